@@ -0,0 +1,88 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the benchmarks like the JMH main class (same command line options), but
+ * always with the GC profiler, which reports the allocations per update
+ * (gc.alloc.rate.norm).
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws RunnerException {
+		CommandLineOptions cmdOptions;
+		try {
+			cmdOptions = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.err.println("Error parsing command line:");
+			System.err.println(" " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		if (cmdOptions.shouldHelp()) {
+			try {
+				cmdOptions.showHelp();
+			} catch (IOException e) {
+				// nothing to show then
+			}
+			return;
+		}
+
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(cmdOptions);
+		boolean gcProfiler = false;
+		for (ProfilerConfig profiler : cmdOptions.getProfilers()) {
+			if (profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName()))
+				gcProfiler = true;
+		}
+		if (!gcProfiler)
+			options.addProfiler(GCProfiler.class);
+
+		Runner runner = new Runner(options.build());
+		if (cmdOptions.shouldList()) {
+			runner.list();
+		} else {
+			runner.run();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import de.tlabs.ssr.g1.client.XMLChunkChannelInputStream;
+import de.tlabs.ssr.g1.client.XMLChunkInputStream;
+
+/**
+ * Splitting the input into '\0' terminated chunks. The input is always 
+ * available, so only the framing itself is measured: copying from the
+ * channel or stream and searching for the delimiters.
+ */
+public class FramingBenchmark extends UpdateBenchmark {
+	private XMLChunkChannelInputStream channelStream;
+	private XMLChunkInputStream stream;
+
+	@Override
+	protected void setUp() {
+		channelStream = new XMLChunkChannelInputStream(new Workload.SessionChannel(workload.session, true));
+		stream = new XMLChunkInputStream(32 * 1024, new Workload.SessionInputStream(workload.session));
+	}
+
+	/** The framer XmlInputThread uses. */
+	@Benchmark
+	public ByteBuffer channelStream() throws IOException {
+		channelStream.bufferNextChunk();
+		return channelStream.getChunk();
+	}
+
+	/** The stream based framer, copying each chunk. */
+	@Benchmark
+	public int stream() throws IOException {
+		stream.bufferNextChunk();
+		return stream.available();
+	}
+}
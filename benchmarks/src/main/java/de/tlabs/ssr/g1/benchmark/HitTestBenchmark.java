@@ -0,0 +1,124 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tlabs.ssr.g1.client.AudioScene;
+import de.tlabs.ssr.g1.client.SceneSnapshot;
+import de.tlabs.ssr.g1.client.SoundSource;
+
+/**
+ * Hit test of a touch on the snapshot, as SourcesView does on every touch
+ * down: with the spatial grid and with a linear scan over all sources (the
+ * grid queried without distance limit, then checked against the select
+ * radius). Sources are spread over a square with one source per square
+ * meter, touches hit random points of it. Scores are per hit test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitTestBenchmark {
+	private static final int NUM_TOUCHES = 4096;	// must be a power of two
+
+	/** Number of sources in the scene. */
+	@Param({"1000"})
+	public int sources;
+
+	/** Select radius in meters (70 pixels at 50 pixels per meter). */
+	@Param({"1.4"})
+	public float radius;
+
+	private SceneSnapshot snapshot;
+	private float[][] touches = new float[NUM_TOUCHES][];
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(1);
+		float size = (float) Math.sqrt(sources);
+		AudioScene audioScene = new AudioScene();
+		for (int i = 0; i < sources; i++) {
+			SoundSource s = new SoundSource(Integer.toString(i + 1));
+			audioScene.addSoundSource(s);
+			s.setXY(random.nextFloat() * size, random.nextFloat() * size);
+		}
+		audioScene.publishSnapshot();
+		snapshot = audioScene.getSnapshot();
+		
+		for (int i = 0; i < NUM_TOUCHES; i++)
+			touches[i] = new float[] { random.nextFloat() * size, random.nextFloat() * size };
+	}
+
+	private float[] nextTouch() {
+		int i = next;
+		next = (i + 1) & (NUM_TOUCHES - 1);
+		return touches[i];
+	}
+
+	@Benchmark
+	public int grid() {
+		return snapshot.getNearestSoundSourceIndex(nextTouch(), radius);
+	}
+
+	@Benchmark
+	public int linearScan() {
+		float[] touch = nextTouch();
+		int index = snapshot.getNearestSoundSourceIndex(touch, Float.POSITIVE_INFINITY);
+		if (index >= 0) {
+			SoundSource s = snapshot.getSoundSource(index);
+			float dX = s.getX() - touch[0];
+			float dY = s.getY() - touch[1];
+			if (dX*dX + dY*dY > radius * radius)
+				index = -1;
+		}
+		return index;
+	}
+}
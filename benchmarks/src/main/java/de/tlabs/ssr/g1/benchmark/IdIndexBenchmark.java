@@ -0,0 +1,132 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tlabs.ssr.g1.client.SoundSource;
+import de.tlabs.ssr.g1.client.SoundSourceIdIndex;
+
+/**
+ * Looking up sources by id in the SoundSourceIdIndex, as String and as byte
+ * range within an update like SceneUpdateScanner does, compared to the linear
+ * search over all sources. Ids are looked up in random order, scores are per
+ * lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdIndexBenchmark {
+	private static final int NUM_LOOKUPS = 4096;	// must be a power of two
+
+	/** Number of sources in the scene. */
+	@Param({"10", "100", "1000", "10000"})
+	public int sources;
+
+	private SoundSource[] soundSources;
+	private SoundSourceIdIndex index;
+	private String[] ids = new String[NUM_LOOKUPS];
+	// the ids within source elements, as in a received update
+	private byte[] data;
+	private int[] starts = new int[NUM_LOOKUPS];
+	private int[] ends = new int[NUM_LOOKUPS];
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		soundSources = new SoundSource[sources];
+		index = new SoundSourceIdIndex();
+		for (int i = 0; i < sources; i++) {
+			soundSources[i] = new SoundSource(Integer.toString(i + 1));
+			index.add(soundSources[i]);
+		}
+		
+		Random random = new Random(1);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < NUM_LOOKUPS; i++) {
+			ids[i] = soundSources[random.nextInt(sources)].getId();
+			sb.append("<source id='");
+			starts[i] = sb.length();
+			sb.append(ids[i]);
+			ends[i] = sb.length();
+			sb.append("'><position x='1.5' y='-2'/></source>");
+		}
+		data = new byte[sb.length()];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) sb.charAt(i);
+	}
+
+	private int nextLookup() {
+		int i = next;
+		next = (i + 1) & (NUM_LOOKUPS - 1);
+		return i;
+	}
+
+	@Benchmark
+	public SoundSource indexString() {
+		return index.get(ids[nextLookup()]);
+	}
+
+	@Benchmark
+	public SoundSource indexBytes() {
+		int i = nextLookup();
+		return index.get(data, starts[i], ends[i]);
+	}
+
+	@Benchmark
+	public SoundSource linearSearch() {
+		String id = ids[nextLookup()];
+		for (int i = 0; i < soundSources.length; i++) {
+			if (soundSources[i].getId().equals(id))
+				return soundSources[i];
+		}
+		return null;
+	}
+}
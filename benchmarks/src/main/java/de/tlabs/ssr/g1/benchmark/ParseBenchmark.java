@@ -0,0 +1,125 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import de.tlabs.ssr.g1.client.AttributeDecoder;
+import de.tlabs.ssr.g1.client.AudioScene;
+import de.tlabs.ssr.g1.client.SceneMutationBatch;
+import de.tlabs.ssr.g1.client.SceneUpdateScanner;
+import de.tlabs.ssr.g1.client.SceneUpdateXMLHandler;
+
+/**
+ * Parsing of single, already framed updates into the mutation batch. Unless
+ * noted otherwise the batch is dropped afterwards, so the scene is not changed.
+ */
+public class ParseBenchmark extends UpdateBenchmark {
+	private AudioScene audioScene;
+	private SceneMutationBatch batch;
+	private XMLReader xmlReader;
+	private ChunkStream chunkStream;
+	private InputSource inputSource;
+	private SceneUpdateScanner scanner;
+	private ByteBuffer[] chunks;
+
+	@Override
+	protected void setUp() throws IOException, SAXException, ParserConfigurationException {
+		audioScene = new AudioScene();
+		AttributeDecoder decoder = new AttributeDecoder();
+		batch = new SceneMutationBatch(audioScene);
+		workload.loadScene(audioScene, decoder, batch);
+
+		// sax parser as set up for the per-chunk parsing in XmlInputThread
+		xmlReader = Workload.newXMLReader();
+		xmlReader.setContentHandler(new SceneUpdateXMLHandler(audioScene, decoder, batch));
+		chunkStream = new ChunkStream();
+		inputSource = new InputSource(chunkStream);
+
+		scanner = new SceneUpdateScanner(audioScene, decoder, batch);
+		chunks = new ByteBuffer[workload.numChunks];
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = ByteBuffer.wrap(workload.session, workload.chunkStart[i], workload.getChunkLength(i));
+		}
+	}
+
+	/** SAX parser and SceneUpdateXMLHandler, one parse() per update. */
+	@Benchmark
+	public int sax() throws IOException, SAXException {
+		int i = nextChunk();
+		chunkStream.setChunk(workload.session, workload.chunkStart[i], workload.getChunkLength(i));
+		xmlReader.parse(inputSource);
+		int size = batch.size();
+		batch.clear();
+		return size;
+	}
+
+	/** SceneUpdateScanner. */
+	@Benchmark
+	public boolean scanner() {
+		boolean understood = scanner.scan(chunks[nextChunk()]);
+		batch.clear();
+		return understood;
+	}
+
+	/** SceneUpdateScanner, the batch is applied after every update (publishing a snapshot each time). */
+	@Benchmark
+	public boolean scannerAndApply() {
+		boolean understood = scanner.scan(chunks[nextChunk()]);
+		batch.apply();
+		return understood;
+	}
+
+	// input stream on a part of a byte array, without copying
+	private static class ChunkStream extends ByteArrayInputStream {
+		ChunkStream() {
+			super(new byte[0]);
+		}
+
+		void setChunk(byte[] data, int offset, int length) {
+			buf = data;
+			pos = offset;
+			count = offset + length;
+			mark = offset;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.io.IOException;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import de.tlabs.ssr.g1.client.AttributeDecoder;
+import de.tlabs.ssr.g1.client.AudioScene;
+import de.tlabs.ssr.g1.client.ContinuousChunkInputStream;
+import de.tlabs.ssr.g1.client.SceneMutationBatch;
+import de.tlabs.ssr.g1.client.SceneUpdateScanner;
+import de.tlabs.ssr.g1.client.SceneUpdateXMLHandler;
+import de.tlabs.ssr.g1.client.XMLChunkChannelInputStream;
+
+/**
+ * The whole inbound pipeline as XmlInputThread runs it after the scene
+ * description: framing, parsing and applying the batches to the audio scene.
+ * Every invocation processes {@link #CHUNKS_PER_INVOCATION} updates of an
+ * endless session, scores are per update.
+ */
+public class PipelineBenchmark extends UpdateBenchmark {
+	public static final int CHUNKS_PER_INVOCATION = 256;
+
+	private AudioScene audioScene;
+	private SceneMutationBatch batch;
+	private XMLReader xmlReader;
+	private XMLChunkChannelInputStream chunkInputStream;
+	private InputSource chunkInputSource;
+	private SceneUpdateScanner scanner;
+	private ContinuousChunkInputStream scannedStream;
+	private ContinuousChunkInputStream parsedStream;
+	private int chunksLeft;
+
+	@Override
+	protected void setUp() throws IOException, SAXException, ParserConfigurationException {
+		audioScene = new AudioScene();
+		AttributeDecoder decoder = new AttributeDecoder();
+		batch = new SceneMutationBatch(audioScene);
+		workload.loadScene(audioScene, decoder, batch);
+
+		xmlReader = Workload.newXMLReader();
+		xmlReader.setContentHandler(new SceneUpdateXMLHandler(audioScene, decoder, batch));
+		chunkInputStream = new XMLChunkChannelInputStream(new Workload.SessionChannel(workload.session, true));
+		chunkInputSource = new InputSource(chunkInputStream);
+		scanner = new SceneUpdateScanner(audioScene, decoder, batch);
+		scannedStream = new ContinuousChunkInputStream(chunkInputStream, scanner, batch) {
+			@Override
+			protected boolean isAborted() {
+				return chunksLeft-- == 0;
+			}
+		};
+		parsedStream = new ContinuousChunkInputStream(chunkInputStream, null, batch) {
+			@Override
+			protected boolean isAborted() {
+				return chunksLeft-- == 0;
+			}
+		};
+	}
+
+	/** Streaming parse, chunks the scanner understands bypass the parser (the default). */
+	@Benchmark
+	@OperationsPerInvocation(CHUNKS_PER_INVOCATION)
+	public void streaming() throws IOException, SAXException {
+		parseStream(scannedStream);
+	}
+
+	/** Streaming parse of every chunk by the SAX parser. */
+	@Benchmark
+	@OperationsPerInvocation(CHUNKS_PER_INVOCATION)
+	public void streamingSax() throws IOException, SAXException {
+		parseStream(parsedStream);
+	}
+
+	/** Scanner, or SAX parser with one parse() per chunk if the scanner fails. */
+	@Benchmark
+	@OperationsPerInvocation(CHUNKS_PER_INVOCATION)
+	public void chunkLoop() throws IOException, SAXException {
+		for (int i = 0; i < CHUNKS_PER_INVOCATION; i++) {
+			if (!chunkInputStream.hasBufferedChunk())
+				batch.apply();
+			chunkInputStream.bufferNextChunk();
+			if (!scanner.scan(chunkInputStream.getChunk())) {
+				xmlReader.parse(chunkInputSource);
+			}
+		}
+	}
+
+	private void parseStream(ContinuousChunkInputStream stream) throws IOException, SAXException {
+		chunksLeft = CHUNKS_PER_INVOCATION;
+		stream.reset();
+		xmlReader.parse(new InputSource(stream));
+	}
+}
@@ -0,0 +1,96 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parameters and input shared by the benchmarks of the update stream. Scores
+ * are per update (chunk), restrict the parameters with -p to shorten a run,
+ * e.g. -p sources=64 -p mix=mixed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class UpdateBenchmark {
+	/** Number of sources in the scene. */
+	@Param({"8", "64", "512", "2048"})
+	public int sources;
+
+	/** Message mix of the updates, see {@link de.tlabs.ssr.g1.mock.SceneGenerator#parseMix(String)}. */
+	@Param({"position", "orientation", "level", "mixed"})
+	public String mix;
+
+	/** Number of source elements per update, i.e. the chunk size. */
+	@Param({"1", "16", "128"})
+	public int sourcesPerChunk;
+
+	protected Workload workload;
+	private int nextChunk = 0;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() throws Exception {
+		workload = new Workload(sources, mix, sourcesPerChunk);
+		setUp();
+	}
+
+	/**
+	 * Sets up the benchmark once the workload exists (JMH does not guarantee
+	 * that setup methods of superclasses run first).
+	 */
+	protected abstract void setUp() throws Exception;
+
+	/**
+	 * Returns the index of the next update of the session, round robin.
+	 */
+	protected int nextChunk() {
+		int i = nextChunk;
+		nextChunk = (i + 1 == workload.numChunks) ? 0 : i + 1;
+		return i;
+	}
+}
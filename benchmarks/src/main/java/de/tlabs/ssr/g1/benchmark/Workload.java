@@ -0,0 +1,202 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import de.tlabs.ssr.g1.client.AttributeDecoder;
+import de.tlabs.ssr.g1.client.AudioScene;
+import de.tlabs.ssr.g1.client.SceneDescrXMLHandler;
+import de.tlabs.ssr.g1.client.SceneMutationBatch;
+import de.tlabs.ssr.g1.mock.SceneGenerator;
+
+/**
+ * Input of the benchmarks: a scene description and a session of scene updates
+ * as the SSR sends them, generated by the mock server's {@link SceneGenerator}.
+ * The session contains at least {@link #MIN_CHUNKS} updates and updates every
+ * source at least once.
+ */
+final class Workload {
+	static final int MIN_CHUNKS = 256;
+	private static final int NUM_LOUDSPEAKERS = 8;
+	private static final long SEED = 1;
+
+	final byte[] description;	// scene description, without '\0'
+	final byte[] session;		// all updates, each terminated by '\0'
+	final int[] chunkStart;		// first index of each update in session
+	final int[] chunkEnd;		// index of the '\0' after each update
+	final int numChunks;
+
+	Workload(int numSources, String mix, int sourcesPerChunk) {
+		SceneGenerator generator = new SceneGenerator(numSources, NUM_LOUDSPEAKERS, SEED);
+		generator.setMix(SceneGenerator.parseMix(mix));
+
+		ByteBuffer buffer = generator.describeScene();
+		description = new byte[buffer.remaining() - 1];
+		buffer.get(description);
+
+		numChunks = Math.max(MIN_CHUNKS, (numSources + sourcesPerChunk - 1) / sourcesPerChunk);
+		chunkStart = new int[numChunks];
+		chunkEnd = new int[numChunks];
+		ByteBuffer sessionBuffer = ByteBuffer.allocate(64 * 1024);
+		for (int i = 0; i < numChunks; i++) {
+			buffer = generator.nextUpdate(sourcesPerChunk);
+			if (sessionBuffer.remaining() < buffer.remaining()) {
+				ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(sessionBuffer.capacity() * 2, 
+						sessionBuffer.position() + buffer.remaining()));
+				sessionBuffer.flip();
+				newBuffer.put(sessionBuffer);
+				sessionBuffer = newBuffer;
+			}
+			chunkStart[i] = sessionBuffer.position();
+			sessionBuffer.put(buffer);
+			chunkEnd[i] = sessionBuffer.position() - 1;
+		}
+		session = new byte[sessionBuffer.position()];
+		sessionBuffer.flip();
+		sessionBuffer.get(session);
+	}
+
+	int getChunkLength(int i) {
+		return chunkEnd[i] - chunkStart[i];
+	}
+
+	float getAverageChunkLength() {
+		return (float) (session.length - numChunks) / numChunks;
+	}
+
+	/**
+	 * Parses the scene description into the given (empty) scene.
+	 */
+	void loadScene(AudioScene audioScene, AttributeDecoder decoder, SceneMutationBatch batch) 
+			throws IOException, SAXException, ParserConfigurationException {
+		XMLReader xmlReader = newXMLReader();
+		SceneDescrXMLHandler handler = new SceneDescrXMLHandler(audioScene, decoder, batch);
+		xmlReader.setContentHandler(handler);
+		handler.reset();
+		xmlReader.parse(new InputSource(new ByteArrayInputStream(description)));
+		if (!handler.receivedSceneDescr())
+			throw new IllegalStateException("scene description not understood");
+		batch.apply();
+	}
+
+	/**
+	 * Creates a reader like the one XmlInputThread uses. The SAX parser of Android
+	 * reports local names by default, the one of the JDK has to be asked to.
+	 */
+	static XMLReader newXMLReader() throws SAXException, ParserConfigurationException {
+		SAXParserFactory spf = SAXParserFactory.newInstance();
+		spf.setNamespaceAware(true);
+		return spf.newSAXParser().getXMLReader();
+	}
+
+	/**
+	 * Channel returning the session, like a socket channel that always has input.
+	 * Ends after the session or starts over again.
+	 */
+	static class SessionChannel implements ReadableByteChannel {
+		private final byte[] data;
+		private final boolean endless;
+		private int pos = 0;
+		
+		SessionChannel(byte[] data, boolean endless) {
+			this.data = data;
+			this.endless = endless;
+		}
+
+		void rewind() {
+			pos = 0;
+		}
+
+		public int read(ByteBuffer dst) {
+			if (pos == data.length) {
+				if (!endless)
+					return -1;
+				pos = 0;
+			}
+			int numBytes = Math.min(dst.remaining(), data.length - pos);
+			dst.put(data, pos, numBytes);
+			pos += numBytes;
+			return numBytes;
+		}
+
+		public boolean isOpen() {
+			return true;
+		}
+
+		public void close() {
+		}
+	}
+
+	/**
+	 * Stream returning the session over and over again.
+	 */
+	static class SessionInputStream extends InputStream {
+		private final byte[] data;
+		private int pos = 0;
+
+		SessionInputStream(byte[] data) {
+			this.data = data;
+		}
+
+		@Override
+		public int read() {
+			if (pos == data.length)
+				pos = 0;
+			return data[pos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0)
+				return 0;
+			if (pos == data.length)
+				pos = 0;
+			int numBytes = Math.min(len, data.length - pos);
+			System.arraycopy(data, pos, b, off, numBytes);
+			pos += numBytes;
+			return numBytes;
+		}
+	}
+}
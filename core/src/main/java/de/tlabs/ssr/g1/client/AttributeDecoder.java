@@ -0,0 +1,315 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+
+package de.tlabs.ssr.g1.client;
+
+/**
+ * Decodes attribute values of SSR xml messages without throwing exceptions and
+ * without creating objects. Values can be given as strings, char ranges (sax
+ * character data) or byte ranges (raw chunk data).
+ * Each decode method returns {@link #ABSENT}, {@link #OK} or {@link #MALFORMED},
+ * the decoded value is stored in the corresponding public field. Malformed values
+ * are counted.
+ */
+public class AttributeDecoder {
+	public static final int ABSENT = 0;
+	public static final int OK = 1;
+	public static final int MALFORMED = 2;
+
+	private static final int MAX_FLOAT_DIGITS = 18;
+	private static final int MAX_VALUE_LENGTH = 64;
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	private static final String TRUE = "true";
+	private static final String FALSE = "false";
+	private static final SoundSource.SourceModel[] SOURCE_MODELS = SoundSource.SourceModel.values();
+	private static final Loudspeaker.SpeakerModel[] SPEAKER_MODELS = Loudspeaker.SpeakerModel.values();
+
+	// decoded values
+	public float floatValue;
+	public boolean booleanValue;
+	public SoundSource.SourceModel sourceModel;
+	public Loudspeaker.SpeakerModel speakerModel;
+
+	private byte[] scratch = new byte[MAX_VALUE_LENGTH]; // char values are converted to bytes here
+	private int numMalformed = 0;
+
+	/**
+	 * @return Number of malformed values encountered so far
+	 */
+	public int getNumMalformed() {
+		return numMalformed;
+	}
+
+	public int decodeFloat(String s) {
+		if (s == null)
+			return ABSENT;
+		int length = toScratch(s);
+		if (length == -1)
+			return malformed();
+		return decodeFloat(scratch, 0, length);
+	}
+
+	public int decodeFloat(char[] ch, int start, int length) {
+		int scratchLength = toScratch(ch, start, length);
+		if (scratchLength == -1)
+			return malformed();
+		return decodeFloat(scratch, 0, scratchLength);
+	}
+
+	/**
+	 * Decodes a decimal float value (optional sign, fraction and exponent).
+	 *
+	 * @param data Ascii characters
+	 * @param start First index of value
+	 * @param end Index after value
+	 */
+	public int decodeFloat(byte[] data, int start, int end) {
+		start = skipWhitespace(data, start, end);
+		end = trimWhitespace(data, start, end);
+		if (start == end)
+			return malformed();
+
+		// sign
+		boolean negative = false;
+		if (data[start] == '-') {
+			negative = true;
+			start++;
+		} else if (data[start] == '+') {
+			start++;
+		}
+
+		// mantissa
+		long mantissa = 0;
+		int numDigits = 0;
+		int exponent = 0;
+		boolean afterPoint = false;
+		boolean anyDigits = false;
+		int i = start;
+		for (; i < end; i++) {
+			byte c = data[i];
+			if (c >= '0' && c <= '9') {
+				anyDigits = true;
+				if (numDigits < MAX_FLOAT_DIGITS) {
+					if (mantissa != 0 || c != '0')
+						numDigits++;
+					mantissa = mantissa * 10 + (c - '0');
+					if (afterPoint)
+						exponent--;
+				} else if (!afterPoint) {
+					exponent++; // digits beyond precision
+				}
+			} else if (c == '.' && !afterPoint) {
+				afterPoint = true;
+			} else {
+				break;
+			}
+		}
+		if (!anyDigits)
+			return malformed();
+
+		// exponent
+		if (i < end) {
+			if (data[i] != 'e' && data[i] != 'E')
+				return malformed();
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (data[i] == '-' || data[i] == '+')) {
+				negativeExponent = data[i] == '-';
+				i++;
+			}
+			if (i == end)
+				return malformed();
+			int explicitExponent = 0;
+			for (; i < end; i++) {
+				byte c = data[i];
+				if (c < '0' || c > '9')
+					return malformed();
+				if (explicitExponent < 1000)
+					explicitExponent = explicitExponent * 10 + (c - '0');
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		double value = (double) mantissa;
+		if (exponent < 0) {
+			while (exponent < -22) {
+				value /= 1e22;
+				exponent += 22;
+			}
+			value /= POWERS_OF_TEN[-exponent];
+		} else if (exponent > 0) {
+			while (exponent > 22) {
+				value *= 1e22;
+				exponent -= 22;
+			}
+			value *= POWERS_OF_TEN[exponent];
+		}
+		floatValue = (float) (negative ? -value : value);
+		return OK;
+	}
+
+	public int decodeBoolean(String s) {
+		if (s == null)
+			return ABSENT;
+		if (s.equals(TRUE)) {
+			booleanValue = true;
+			return OK;
+		} else if (s.equals(FALSE)) {
+			booleanValue = false;
+			return OK;
+		}
+		return malformed();
+	}
+
+	public int decodeBoolean(byte[] data, int start, int end) {
+		if (matches(data, start, end, TRUE, false)) {
+			booleanValue = true;
+			return OK;
+		} else if (matches(data, start, end, FALSE, false)) {
+			booleanValue = false;
+			return OK;
+		}
+		return malformed();
+	}
+
+	public int decodeSourceModel(String s) {
+		if (s == null)
+			return ABSENT;
+		for (int i = 0; i < SOURCE_MODELS.length; i++) {
+			if (SOURCE_MODELS[i].name().equalsIgnoreCase(s)) {
+				sourceModel = SOURCE_MODELS[i];
+				return OK;
+			}
+		}
+		return malformed();
+	}
+
+	public int decodeSourceModel(byte[] data, int start, int end) {
+		for (int i = 0; i < SOURCE_MODELS.length; i++) {
+			if (matches(data, start, end, SOURCE_MODELS[i].name(), true)) {
+				sourceModel = SOURCE_MODELS[i];
+				return OK;
+			}
+		}
+		return malformed();
+	}
+
+	public int decodeSpeakerModel(String s) {
+		if (s == null)
+			return ABSENT;
+		for (int i = 0; i < SPEAKER_MODELS.length; i++) {
+			if (SPEAKER_MODELS[i].name().equalsIgnoreCase(s)) {
+				speakerModel = SPEAKER_MODELS[i];
+				return OK;
+			}
+		}
+		return malformed();
+	}
+
+	public int decodeSpeakerModel(byte[] data, int start, int end) {
+		for (int i = 0; i < SPEAKER_MODELS.length; i++) {
+			if (matches(data, start, end, SPEAKER_MODELS[i].name(), true)) {
+				speakerModel = SPEAKER_MODELS[i];
+				return OK;
+			}
+		}
+		return malformed();
+	}
+
+	private int malformed() {
+		numMalformed++;
+		return MALFORMED;
+	}
+
+	// copy ascii string to scratch buffer, returns length or -1 if not possible
+	private int toScratch(String s) {
+		int length = s.length();
+		if (length > scratch.length)
+			return -1;
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			if (c > 127)
+				return -1;
+			scratch[i] = (byte) c;
+		}
+		return length;
+	}
+
+	// copy ascii char range to scratch buffer, returns length or -1 if not possible
+	private int toScratch(char[] ch, int start, int length) {
+		if (length > scratch.length)
+			return -1;
+		for (int i = 0; i < length; i++) {
+			char c = ch[start + i];
+			if (c > 127)
+				return -1;
+			scratch[i] = (byte) c;
+		}
+		return length;
+	}
+
+	private static boolean matches(byte[] data, int start, int end, String s, boolean ignoreCase) {
+		if (end - start != s.length())
+			return false;
+		for (int i = 0; i < s.length(); i++) {
+			char c = (char) data[start + i];
+			char d = s.charAt(i);
+			if (ignoreCase) {
+				c = Character.toUpperCase(c);
+				d = Character.toUpperCase(d);
+			}
+			if (c != d)
+				return false;
+		}
+		return true;
+	}
+
+	private static int skipWhitespace(byte[] data, int start, int end) {
+		while (start < end && isWhitespace(data[start]))
+			start++;
+		return start;
+	}
+
+	private static int trimWhitespace(byte[] data, int start, int end) {
+		while (end > start && isWhitespace(data[end - 1]))
+			end--;
+		return end;
+	}
+
+	private static boolean isWhitespace(byte c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+}
@@ -0,0 +1,67 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.nio.channels.SocketChannel;
+
+/**
+ * Is told about the state of the connection of a {@link ConnectionManager}.
+ * All methods are called by the input thread.
+ */
+public interface ConnectionListener {
+	/**
+	 * A complete scene description was received and replaced the scene.
+	 * 
+	 * @param reconnected false for the first connection, true after a reconnect
+	 */
+	public void sceneReceived(boolean reconnected);
+	
+	/**
+	 * The connection was lost, reconnecting in the background.
+	 * 
+	 * @param error Description of the cause
+	 */
+	public void connectionLost(String error);
+	
+	/**
+	 * A new connection was established after the old one was lost, requests
+	 * have to be written to the given channel from now on.
+	 */
+	public void channelChanged(SocketChannel channel);
+	
+	/**
+	 * The input could not be read at all (e.g. no xml parser), the input thread
+	 * has finished.
+	 */
+	public void inputFailed(String error);
+}
@@ -0,0 +1,322 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SocketChannel;
+
+import de.tub.tlabs.android.utils.Clock;
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * Owns the connection to an SSR server and the {@link XmlInputThread} reading
+ * from it. The first connection is made by {@link #connect()}. If the
+ * connection is lost afterwards, the input thread re-establishes it with
+ * {@link #reconnect()}, retrying with exponential backoff. The input thread,
+ * its parser and buffers as well as the outbound writer are kept
+ * across reconnects, the audio scene stays on screen until the server has
+ * sent a complete new scene description.
+ */
+public class ConnectionManager {
+	private static final String TAG = "ConnectionManager";
+	
+	// delays between reconnect attempts (in ms), the first attempt is made right away
+	public static final long MIN_RECONNECT_DELAY = 100;
+	public static final long MAX_RECONNECT_DELAY = 5000;
+	// a connection without any input for this long counts as lost (in ms, 0 never times out)
+	public static final long DEFAULT_READ_TIMEOUT = 30000;
+	// how long close() waits for the input thread to finish (in ms)
+	public static final long SHUTDOWN_TIMEOUT = 1000;
+	
+	public enum State {
+		DISCONNECTED, CONNECTING, CONNECTED, RECONNECTING, CLOSED
+	}
+	
+	private String host;
+	private int port;
+	private AudioScene audioScene;
+	private ConnectionListener listener;
+	private SocketChannel socketChannel = null;	// guarded by this
+	private State state = State.DISCONNECTED;	// guarded by this
+	private XmlInputThread xmlInputThread = null;
+	private int numAttempts = 0;	// connection attempts since last received scene description
+	private volatile long readTimeout = DEFAULT_READ_TIMEOUT;
+	
+	// statistics
+	private int numReconnects = 0;
+	private long lastLostTime = 0;
+	private long maxRecoveryTime = 0;	// from lost connection to reconnect in ms
+	private long shutdownTime = -1;		// time close() waited for the input thread in ms
+	
+	/**
+	 * @param audioScene Scene the input thread parses the server's scene into
+	 * @param listener Is told about the state of the connection, called by the input thread
+	 */
+	public ConnectionManager(String host, int port, AudioScene audioScene, ConnectionListener listener) {
+		this.host = host;
+		this.port = port;
+		this.audioScene = audioScene;
+		this.listener = listener;
+	}
+	
+	public String getHost() {
+		return host;
+	}
+	
+	public int getPort() {
+		return port;
+	}
+	
+	public AudioScene getAudioScene() {
+		return audioScene;
+	}
+	
+	public ConnectionListener getListener() {
+		return listener;
+	}
+	
+	public synchronized State getState() {
+		return state;
+	}
+	
+	public synchronized SocketChannel getSocketChannel() {
+		return socketChannel;
+	}
+	
+	public long getReadTimeout() {
+		return readTimeout;
+	}
+	
+	/**
+	 * @param readTimeout Time without any input after which the connection counts
+	 * as lost, in ms, 0 never times out. Applies from the next connection on.
+	 */
+	public void setReadTimeout(long readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+	
+	/**
+	 * @return Time the last call to {@link #close()} waited for the input thread
+	 * to finish in ms, -1 if not closed yet
+	 */
+	public synchronized long getShutdownTime() {
+		return shutdownTime;
+	}
+	
+	/**
+	 * Connects to the server, blocks until connected. Can be cancelled by
+	 * {@link #close()}. The connected channel is non-blocking.
+	 * 
+	 * @throws AsynchronousCloseException if cancelled
+	 * @throws IOException if connecting failed
+	 */
+	public void connect() throws IOException {
+		SocketChannel channel;
+		synchronized (this) {
+			if (state == State.CLOSED)
+				throw new AsynchronousCloseException();
+			if (state == State.DISCONNECTED)
+				state = State.CONNECTING;
+			
+			// first create unconnected socket, so it can be closed while connecting
+			channel = SocketChannel.open();
+			socketChannel = channel;
+		}
+		try {
+			channel.connect(new InetSocketAddress(host, port));
+			channel.configureBlocking(false);
+		} catch (IOException e) {
+			synchronized (this) {
+				if (socketChannel == channel)
+					socketChannel = null;
+			}
+			closeQuietly(channel);
+			throw e;
+		}
+		synchronized (this) {
+			if (state == State.CLOSED) {
+				closeQuietly(channel);
+				throw new AsynchronousCloseException();
+			}
+			state = State.CONNECTED;
+		}
+	}
+	
+	/**
+	 * Starts the xml input thread on the established connection.
+	 */
+	public synchronized void start() {
+		if (xmlInputThread != null)
+			return;
+		xmlInputThread = new XmlInputThread(this);
+		xmlInputThread.start();
+	}
+	
+	/**
+	 * Called by the input thread when the connection was lost. Closes the
+	 * channel and connects again, waiting between failed attempts. The
+	 * listener is handed the new channel (for the outbound writer).
+	 * 
+	 * @return The new channel or null if the manager was closed meanwhile
+	 */
+	SocketChannel reconnect() {
+		synchronized (this) {
+			if (state == State.CLOSED)
+				return null;
+			state = State.RECONNECTING;
+			closeQuietly(socketChannel);
+			socketChannel = null;
+			lastLostTime = Clock.SYSTEM.uptimeMillis();
+		}
+		
+		while (true) {
+			// wait before trying again (closing wakes us up)
+			synchronized (this) {
+				long delay = getReconnectDelay(numAttempts++);
+				if (delay > 0 && state != State.CLOSED) {
+					Log.d(TAG, "reconnecting in " + delay + " ms");
+					try {
+						wait(delay);
+					} catch (InterruptedException e) {
+						// try right away
+					}
+				}
+				if (state == State.CLOSED)
+					return null;
+			}
+			
+			try {
+				connect();
+				break;
+			} catch (AsynchronousCloseException e) {
+				return null;
+			} catch (IOException e) {
+				Log.d(TAG, "reconnect failed: " + e.getMessage());
+			}
+		}
+		
+		SocketChannel channel;
+		synchronized (this) {
+			channel = socketChannel;
+			numReconnects++;
+			long recoveryTime = Clock.SYSTEM.uptimeMillis() - lastLostTime;
+			if (recoveryTime > maxRecoveryTime)
+				maxRecoveryTime = recoveryTime;
+		}
+		listener.channelChanged(channel);
+		Log.d(TAG, "reconnected to " + host + ":" + port);
+		return channel;
+	}
+	
+	/**
+	 * Called by the input thread when a complete scene description was
+	 * received, i.e. the connection is healthy again.
+	 */
+	synchronized void sceneReceived() {
+		numAttempts = 0;
+	}
+	
+	/**
+	 * Closes the connection and stops the input thread, cancels pending
+	 * connection attempts. Returns when the input thread has finished (or
+	 * after {@link #SHUTDOWN_TIMEOUT}). The manager can not be used afterwards.
+	 */
+	public void close() {
+		XmlInputThread thread;
+		synchronized (this) {
+			if (state == State.CLOSED)
+				return;
+			state = State.CLOSED;
+			thread = xmlInputThread;
+			xmlInputThread = null;
+			notifyAll();	// stop waiting for next reconnect attempt
+		}
+		
+		// wake up xml input thread, wherever it waits
+		long startTime = System.nanoTime();
+		if (thread != null)
+			thread.abort();
+		
+		// close socket channel (also cancels a blocking connect)
+		SocketChannel channel;
+		synchronized (this) {
+			channel = socketChannel;
+			socketChannel = null;
+		}
+		closeQuietly(channel);
+		
+		// wait for input thread
+		if (thread != null && thread != Thread.currentThread()) {
+			try {
+				thread.join(SHUTDOWN_TIMEOUT);
+			} catch (InterruptedException e) {
+				Log.d(TAG, "interrupted while waiting for input thread");
+			}
+			if (thread.isAlive())
+				Log.d(TAG, "input thread did not finish within " + SHUTDOWN_TIMEOUT + " ms");
+		}
+		synchronized (this) {
+			shutdownTime = (System.nanoTime() - startTime) / 1000000;
+		}
+		Log.d(TAG, toString());
+	}
+	
+	/**
+	 * @param numAttempts Number of attempts since the last scene description was received
+	 * @return Delay before the next attempt in ms
+	 */
+	static long getReconnectDelay(int numAttempts) {
+		if (numAttempts == 0)
+			return 0;
+		long delay = MIN_RECONNECT_DELAY << Math.min(numAttempts - 1, 16);
+		return Math.min(delay, MAX_RECONNECT_DELAY);
+	}
+	
+	private static void closeQuietly(SocketChannel channel) {
+		if (channel == null)
+			return;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			Log.d(TAG, "exception on socket channel close(): " + e.getMessage());
+		}
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return host + ":" + port + " " + state + ", reconnects: " + numReconnects 
+				+ ", max recovery time: " + maxRecoveryTime + " ms, shutdown time: " + shutdownTime + " ms";
+	}
+}
@@ -0,0 +1,175 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Presents a continuous sequence of '\0' separated xml documents as one single
+ * xml document, so a sax parser can parse a whole connection with one call to
+ * parse(). The documents are wrapped into a {@link #ROOT_ELEMENT} element,
+ * delimiters and xml declarations are dropped.
+ * If a {@link SceneUpdateScanner} is given, every chunk is offered to it first,
+ * only chunks the scanner does not understand are passed on to the parser.
+ * If a {@link SceneMutationBatch} is given, it is applied whenever no further
+ * chunk is buffered, i.e. right before the stream would block on the channel.
+ */
+public class ContinuousChunkInputStream extends InputStream {
+	public static final String ROOT_ELEMENT = "ssrstream";
+
+	private static final byte[] PREFIX = ascii("<" + ROOT_ELEMENT + ">");
+	private static final byte[] SUFFIX = ascii("</" + ROOT_ELEMENT + ">");
+
+	private XMLChunkChannelInputStream chunkInputStream;
+	private SceneUpdateScanner scanner;
+	private SceneMutationBatch batch;
+	private int prefixPos = 0;
+	private int suffixPos = -1;	// >= 0 when input is finished
+	private boolean chunkAvailable = false;
+
+	/**
+	 * @param chunkInputStream Source of the chunks
+	 * @param scanner Scanner to try first for each chunk, can be null
+	 * @param batch Batch to apply before blocking, can be null
+	 */
+	public ContinuousChunkInputStream(XMLChunkChannelInputStream chunkInputStream, SceneUpdateScanner scanner,
+			SceneMutationBatch batch) {
+		this.chunkInputStream = chunkInputStream;
+		this.scanner = scanner;
+		this.batch = batch;
+	}
+
+	/**
+	 * Starts a new stream, e.g. after the chunk input stream was handed a new
+	 * connection.
+	 */
+	public void reset() {
+		prefixPos = 0;
+		suffixPos = -1;
+		chunkAvailable = false;
+	}
+
+	/**
+	 * Checked before each new chunk is read. If true is returned, the root element
+	 * is closed and the stream ends.
+	 */
+	protected boolean isAborted() {
+		return false;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		if (read(b, 0, 1) == -1)
+			return -1;
+		return b[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+
+		while (true) {
+			// start of stream
+			if (prefixPos < PREFIX.length) {
+				return copy(PREFIX, prefixPos, b, off, len, true);
+			}
+
+			// end of stream
+			if (suffixPos >= 0) {
+				if (suffixPos == SUFFIX.length)
+					return -1;
+				return copy(SUFFIX, suffixPos, b, off, len, false);
+			}
+
+			// rest of current chunk
+			if (chunkAvailable) {
+				int numBytes = chunkInputStream.read(b, off, len);
+				if (numBytes > 0)
+					return numBytes;
+				chunkAvailable = false;
+			}
+
+			// next chunk (apply collected changes first if we have to wait for it)
+			if (batch != null && !chunkInputStream.hasBufferedChunk())
+				batch.apply();
+			if (isAborted() || !chunkInputStream.bufferNextChunk()) {
+				suffixPos = 0;
+				continue;
+			}
+			ByteBuffer chunk = chunkInputStream.getChunk();
+			if (scanner != null && scanner.scan(chunk))
+				continue;
+			skipXmlDeclaration(chunk);
+			chunkAvailable = true;
+		}
+	}
+
+	private int copy(byte[] src, int srcPos, byte[] dst, int off, int len, boolean prefix) {
+		int numBytes = Math.min(len, src.length - srcPos);
+		System.arraycopy(src, srcPos, dst, off, numBytes);
+		if (prefix)
+			prefixPos += numBytes;
+		else
+			suffixPos += numBytes;
+		return numBytes;
+	}
+
+	// xml declarations are only allowed at the very start of a document
+	private static void skipXmlDeclaration(ByteBuffer chunk) {
+		int pos = chunk.position();
+		int limit = chunk.limit();
+		while (pos < limit && chunk.get(pos) <= ' ')
+			pos++;
+		if (pos + 1 >= limit || chunk.get(pos) != '<' || chunk.get(pos + 1) != '?')
+			return;
+		for (pos += 2; pos + 1 < limit; pos++) {
+			if (chunk.get(pos) == '?' && chunk.get(pos + 1) == '>') {
+				chunk.position(pos + 2);
+				return;
+			}
+		}
+	}
+
+	private static byte[] ascii(String s) {
+		byte[] bytes = new byte[s.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) s.charAt(i);
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,312 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+/**
+ * Abstact class representing an entity in a audioscene.
+ * The numeric state lives in a slot of an {@link EntityStore}, an entity
+ * object is only a view on its slot. Entities not (yet) part of an audio
+ * scene have a store of their own or share a staging store (like the ones
+ * of a parsed scene description) and are moved into the store of the scene
+ * when added.
+ * 
+ * @author Peter Bartz
+ */public abstract class Entity {
+	private static final String TAG = "Entity";
+	
+	// locally set values are given up if the server does not confirm them in time (in ns)
+	public static final long PENDING_TIMEOUT = 1000000000L;
+	// tolerances when comparing locally set values with values sent by the server
+	private static final float POSITION_TOLERANCE = 0.001f;
+	private static final float AZIMUTH_TOLERANCE = 0.01f;
+	
+	protected EntityStore store;
+	protected int handle;
+	
+	public boolean isSelected() {
+		return (store.flags[handle] & EntityStore.SELECTED) != 0;
+	}
+
+	public void setSelected(boolean selected) {
+		store.setSelected(handle, selected);
+	}
+
+	public float getX() {
+		return store.x[handle];
+	}
+
+	public void setX(float x) {
+		store.x[handle] = x;
+		store.positionChanged(handle);
+	}
+
+	public float getY() {
+		return store.y[handle];
+	}
+	
+	public void setY(float y) {
+		store.y[handle] = y;
+		store.positionChanged(handle);
+	}
+	
+	public float[] getXY() {
+		return new float[] {getX(), getY()};
+	}
+	
+	public void getXY(float[] pos) {
+		pos[0] = getX();
+		pos[1] = getY();
+	}
+	
+	public void setXY(float[] position) {
+		setXY(position[0], position[1]);
+	}
+
+	public void setXY(float x, float y) {
+		store.x[handle] = x;
+		store.y[handle] = y;
+		store.positionChanged(handle);
+	}
+
+	public void savePosition(float x, float y) {
+		store.savedX[handle] = x;
+		store.savedY[handle] = y;
+	}
+	
+	public void savePosition(float[] pos) {
+		savePosition(pos[0], pos[1]);
+	}
+	
+	public float getSavedX() {
+		return store.savedX[handle];
+	}
+	
+	public float getSavedY() {
+		return store.savedY[handle];
+	}
+	
+	/**
+	 * Sets position locally, before the server confirms it. Positions sent
+	 * by the server are ignored until one matches, see {@link #applyServerXY(float, float, long)}.
+	 * 
+	 * @param time Current time in ns
+	 */
+	public void setPendingXY(float x, float y, long time) {
+		setXY(x, y);
+		store.flags[handle] |= EntityStore.PENDING_POSITION;
+		store.pendingTime[handle] = time;
+	}
+	
+	/**
+	 * Applies a position sent by the server. If a locally set position is
+	 * pending, positions not matching it are older echoes and are ignored,
+	 * until the matching one arrives or the local position times out.
+	 * 
+	 * @param time Current time in ns
+	 * @return false if the position was ignored
+	 */
+	public boolean applyServerXY(float x, float y, long time) {
+		if ((store.flags[handle] & EntityStore.PENDING_POSITION) != 0) {
+			if (!isClose(x, getX()) || !isClose(y, getY())) {
+				if (time - store.pendingTime[handle] < PENDING_TIMEOUT)
+					return false;
+			}
+			store.flags[handle] &= ~EntityStore.PENDING_POSITION;
+		}
+		setXY(x, y);
+		return true;
+	}
+	
+	public boolean isPositionPending() {
+		return (store.flags[handle] & EntityStore.PENDING_POSITION) != 0;
+	}
+	
+	private static boolean isClose(float serverValue, float localValue) {
+		return Math.abs(serverValue - localValue) <= POSITION_TOLERANCE * Math.max(1.0f, Math.abs(localValue));
+	}
+	
+	public float getAzimuth() {
+		return store.azimuth[handle];
+	}
+	
+	/**
+	 * Sets azimuth locally, before the server confirms it, like {@link #setPendingXY(float, float, long)}.
+	 */
+	public void setPendingAzimuth(float azimuth, long time) {
+		setAzimuth(azimuth);
+		store.flags[handle] |= EntityStore.PENDING_AZIMUTH;
+		store.pendingTime[handle] = time;
+	}
+	
+	/**
+	 * Applies an azimuth sent by the server, like {@link #applyServerXY(float, float, long)}.
+	 * Azimuths are compared modulo 360 degrees.
+	 */
+	public boolean applyServerAzimuth(float azimuth, long time) {
+		if ((store.flags[handle] & EntityStore.PENDING_AZIMUTH) != 0) {
+			float diff = (azimuth - getAzimuth()) % 360.0f;
+			if (diff > 180.0f)
+				diff -= 360.0f;
+			else if (diff < -180.0f)
+				diff += 360.0f;
+			if (Math.abs(diff) > AZIMUTH_TOLERANCE) {
+				if (time - store.pendingTime[handle] < PENDING_TIMEOUT)
+					return false;
+			}
+			store.flags[handle] &= ~EntityStore.PENDING_AZIMUTH;
+		}
+		setAzimuth(azimuth);
+		return true;
+	}
+
+	public void setAzimuth(float azimuth) {
+		store.azimuth[handle] = azimuth;
+		store.flags[handle] |= EntityStore.AZIMUTH_CHANGED;
+	}
+	
+	public boolean isPositionFixed() {
+		return (store.flags[handle] & EntityStore.POSITION_FIXED) != 0;
+	}
+	
+	public void setPositionFixed(boolean positionFixed) {
+		setFlag(EntityStore.POSITION_FIXED, positionFixed);
+	}
+
+	public boolean getAndClearPositionFlag() {
+		return getAndClearFlag(EntityStore.POSITION_CHANGED);
+	}
+
+	public void setPositionFlag(boolean positionFlag) {
+		setFlag(EntityStore.POSITION_CHANGED, positionFlag);
+	}
+
+	public boolean getAndClearAzimuthFlag() {
+		return getAndClearFlag(EntityStore.AZIMUTH_CHANGED);
+	}
+
+	public void setAzimuthFlag(boolean azimuthFlag) {
+		setFlag(EntityStore.AZIMUTH_CHANGED, azimuthFlag);
+	}
+
+	public boolean getAndClearSelectedFlag() {
+		return getAndClearFlag(EntityStore.SELECTED_CHANGED);
+	}
+
+	public void setSelectedFlag(boolean selectedFlag) {
+		setFlag(EntityStore.SELECTED_CHANGED, selectedFlag);
+	}
+
+	public Entity(float posX, float posY) {
+		initEntity(new EntityStore(1));
+		setX(posX);
+		setY(posY);
+	}
+
+	public Entity() {
+		initEntity(new EntityStore(1));
+	}
+	
+	// new entity in a slot of the given store, e.g. a staging store
+	Entity(EntityStore store) {
+		initEntity(store);
+	}
+	
+	// view on an existing slot, e.g. of a snapshot
+	Entity(EntityStore store, int handle) {
+		this.store = store;
+		this.handle = handle;
+	}
+	
+	/**
+	 * Copies position, orientation and state of another entity (flags are not copied).
+	 */
+	public void copyFrom(Entity entity) {
+		store.x[handle] = entity.store.x[entity.handle];
+		store.y[handle] = entity.store.y[entity.handle];
+		store.positionChanged(handle);
+		store.azimuth[handle] = entity.store.azimuth[entity.handle];
+		setSelected(entity.isSelected());
+		setPositionFixed(entity.isPositionFixed());
+	}
+	
+	public EntityStore getStore() {
+		return store;
+	}
+	
+	public int getHandle() {
+		return handle;
+	}
+	
+	/**
+	 * Moves the state of this entity into a slot of another store.
+	 */
+	void moveTo(EntityStore newStore) {
+		if (newStore == store)
+			return;
+		int newHandle = newStore.add(this);
+		newStore.copySlot(store, handle, newHandle);
+		newStore.positionChanged(newHandle);
+		store.remove(handle);
+		store = newStore;
+		handle = newHandle;
+	}
+	
+	/**
+	 * Moves the state of this entity into a store of its own, e.g. when it is
+	 * removed from a scene.
+	 */
+	void detach() {
+		moveTo(new EntityStore(1));
+	}
+	
+	private void setFlag(int flag, boolean value) {
+		if (value) {
+			store.flags[handle] |= flag;
+		} else {
+			store.flags[handle] &= ~flag;
+		}
+	}
+	
+	private boolean getAndClearFlag(int flag) {
+		boolean returnValue = (store.flags[handle] & flag) != 0;
+		store.flags[handle] &= ~flag;
+		return returnValue;
+	}
+	
+	private void initEntity(EntityStore store) {
+		this.store = store;
+		handle = store.add(this);
+		store.flags[handle] = EntityStore.POSITION_CHANGED | EntityStore.AZIMUTH_CHANGED 
+				| EntityStore.SELECTED_CHANGED;
+	}
+}
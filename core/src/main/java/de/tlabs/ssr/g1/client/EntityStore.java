@@ -0,0 +1,301 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.util.BitSet;
+
+/**
+ * Structure-of-arrays storage for the numeric state of entities. Every
+ * entity owns one slot, identified by a dense int handle (0 to size-1).
+ * {@link Entity} objects are thin views on their slot. Removing an entity
+ * moves the last slot into the gap, so handles stay dense and loops over
+ * all entities run over plain arrays.
+ * Columns only used by sound sources (volume, level) are allocated for all
+ * entities, which is cheaper than a second store.
+ * Selection is mirrored in a bit set with a cached count, to iterate over
+ * selected entities quickly.
+ * Optionally, a {@link SpatialGrid} over the positions is maintained.
+ */
+public class EntityStore {
+	// flags
+	public static final int SELECTED = 1;
+	public static final int POSITION_FIXED = 2;
+	public static final int MUTED = 4;
+	public static final int POSITION_CHANGED = 8;
+	public static final int AZIMUTH_CHANGED = 16;
+	public static final int SELECTED_CHANGED = 32;
+	public static final int PENDING_POSITION = 64;	// position was set locally, server has not confirmed it yet
+	public static final int PENDING_AZIMUTH = 128;	// same for azimuth
+	
+	private static final int MIN_CAPACITY = 8;
+	
+	private int size = 0;
+	private Entity[] owners;
+	float[] x;
+	float[] y;
+	float[] savedX;
+	float[] savedY;
+	float[] azimuth;
+	float[] volume;
+	float[] level;
+	float[] normalizedLevel;
+	int[] flags;
+	long[] pendingTime;	// time of last local change not confirmed by server (in ns)
+	private BitSet selection = new BitSet();
+	private int numSelected = 0;
+	private SpatialGrid grid = null;
+	
+	public EntityStore() {
+		this(MIN_CAPACITY);
+	}
+	
+	public EntityStore(int capacity) {
+		allocate(capacity);
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Creates a spatial grid over the positions of all entities of this store,
+	 * which is updated on every change of position from now on.
+	 */
+	public void enableSpatialGrid(float cellSize) {
+		grid = new SpatialGrid(this, cellSize, owners.length);
+		for (int i = 0; i < size; i++)
+			grid.insert(i);
+	}
+	
+	/**
+	 * @return The spatial grid or null if not enabled
+	 */
+	public SpatialGrid getSpatialGrid() {
+		return grid;
+	}
+	
+	public boolean isSelected(int handle) {
+		return selection.get(handle);
+	}
+	
+	public void setSelected(int handle, boolean selected) {
+		if (selected) {
+			flags[handle] |= SELECTED;
+		} else {
+			flags[handle] &= ~SELECTED;
+		}
+		setSelectionBit(handle, selected);
+	}
+	
+	public int getNumSelected() {
+		return numSelected;
+	}
+	
+	/**
+	 * Use like this: 
+	 * <code>for (int h = nextSelected(0); h >= 0; h = nextSelected(h + 1))</code>
+	 * 
+	 * @return Handle of first selected entity at or after fromHandle, -1 if there is none
+	 */
+	public int nextSelected(int fromHandle) {
+		return selection.nextSetBit(fromHandle);
+	}
+	
+	/**
+	 * Has to be called after x or y of a slot was changed.
+	 */
+	void positionChanged(int handle) {
+		flags[handle] |= POSITION_CHANGED;
+		if (grid != null)
+			grid.update(handle);
+	}
+	
+	/**
+	 * @return The entity owning the given slot
+	 */
+	public Entity getOwner(int handle) {
+		return owners[handle];
+	}
+	
+	/**
+	 * Allocates a new slot for the given entity. All values are zero.
+	 * 
+	 * @return Handle of the new slot
+	 */
+	int add(Entity owner) {
+		if (size == owners.length)
+			grow(size + 1);
+		int handle = size++;
+		owners[handle] = owner;
+		x[handle] = 0.0f;
+		y[handle] = 0.0f;
+		savedX[handle] = 0.0f;
+		savedY[handle] = 0.0f;
+		azimuth[handle] = 0.0f;
+		volume[handle] = 0.0f;
+		level[handle] = 0.0f;
+		normalizedLevel[handle] = 0.0f;
+		flags[handle] = 0;
+		pendingTime[handle] = 0;
+		if (grid != null)
+			grid.insert(handle);
+		return handle;
+	}
+	
+	/**
+	 * Frees a slot. The last slot is moved into the gap, its owner is notified
+	 * of the new handle.
+	 */
+	void remove(int handle) {
+		int last = --size;
+		if (grid != null)
+			grid.remove(handle);
+		setSelectionBit(handle, false);
+		if (handle != last) {
+			copySlot(this, last, handle);
+			owners[handle] = owners[last];
+			owners[handle].handle = handle;
+			if (grid != null)
+				grid.move(last, handle);
+			setSelectionBit(last, false);
+		}
+		owners[last] = null;
+	}
+	
+	/**
+	 * Removes all slots. Owners are not notified, they must not be used any more.
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			owners[i] = null;
+		}
+		size = 0;
+		selection.clear();
+		numSelected = 0;
+		if (grid != null)
+			grid.clear();
+	}
+	
+	/**
+	 * Copies all values of one slot into a slot of this store.
+	 */
+	void copySlot(EntityStore src, int srcHandle, int dstHandle) {
+		x[dstHandle] = src.x[srcHandle];
+		y[dstHandle] = src.y[srcHandle];
+		savedX[dstHandle] = src.savedX[srcHandle];
+		savedY[dstHandle] = src.savedY[srcHandle];
+		azimuth[dstHandle] = src.azimuth[srcHandle];
+		volume[dstHandle] = src.volume[srcHandle];
+		level[dstHandle] = src.level[srcHandle];
+		normalizedLevel[dstHandle] = src.normalizedLevel[srcHandle];
+		flags[dstHandle] = src.flags[srcHandle];
+		pendingTime[dstHandle] = src.pendingTime[srcHandle];
+		setSelectionBit(dstHandle, (flags[dstHandle] & SELECTED) != 0);
+	}
+	
+	/**
+	 * Makes this store a copy of another one (including its spatial grid), 
+	 * owners are not copied. Used for snapshots, which attach their own views 
+	 * to the slots.
+	 */
+	void copyValuesFrom(EntityStore src) {
+		int n = src.size;
+		if (owners.length < n)
+			grow(n);
+		if (src.grid != null) {
+			if (grid == null)
+				grid = new SpatialGrid(this, src.grid.getCellSize(), owners.length);
+			grid.copyFrom(src.grid, n);
+		} else {
+			grid = null;
+		}
+		System.arraycopy(src.x, 0, x, 0, n);
+		System.arraycopy(src.y, 0, y, 0, n);
+		System.arraycopy(src.savedX, 0, savedX, 0, n);
+		System.arraycopy(src.savedY, 0, savedY, 0, n);
+		System.arraycopy(src.azimuth, 0, azimuth, 0, n);
+		System.arraycopy(src.volume, 0, volume, 0, n);
+		System.arraycopy(src.level, 0, level, 0, n);
+		System.arraycopy(src.normalizedLevel, 0, normalizedLevel, 0, n);
+		System.arraycopy(src.flags, 0, flags, 0, n);
+		System.arraycopy(src.pendingTime, 0, pendingTime, 0, n);
+		selection.clear();
+		selection.or(src.selection);
+		numSelected = src.numSelected;
+		size = n;
+	}
+	
+	private void setSelectionBit(int handle, boolean selected) {
+		if (selection.get(handle) != selected) {
+			selection.set(handle, selected);
+			numSelected += selected ? 1 : -1;
+		}
+	}
+	
+	private void grow(int minCapacity) {
+		int capacity = Math.max(minCapacity, Math.max(MIN_CAPACITY, owners.length * 2));
+		Entity[] oldOwners = owners;
+		float[] oldX = x, oldY = y, oldSavedX = savedX, oldSavedY = savedY, oldAzimuth = azimuth;
+		float[] oldVolume = volume, oldLevel = level, oldNormalizedLevel = normalizedLevel;
+		int[] oldFlags = flags;
+		long[] oldPendingTime = pendingTime;
+		allocate(capacity);
+		System.arraycopy(oldOwners, 0, owners, 0, size);
+		System.arraycopy(oldX, 0, x, 0, size);
+		System.arraycopy(oldY, 0, y, 0, size);
+		System.arraycopy(oldSavedX, 0, savedX, 0, size);
+		System.arraycopy(oldSavedY, 0, savedY, 0, size);
+		System.arraycopy(oldAzimuth, 0, azimuth, 0, size);
+		System.arraycopy(oldVolume, 0, volume, 0, size);
+		System.arraycopy(oldLevel, 0, level, 0, size);
+		System.arraycopy(oldNormalizedLevel, 0, normalizedLevel, 0, size);
+		System.arraycopy(oldFlags, 0, flags, 0, size);
+		System.arraycopy(oldPendingTime, 0, pendingTime, 0, size);
+		if (grid != null)
+			grid.setCapacity(capacity, size);	// may rebuild the grid, so positions must be copied already
+	}
+	
+	private void allocate(int capacity) {
+		owners = new Entity[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		savedX = new float[capacity];
+		savedY = new float[capacity];
+		azimuth = new float[capacity];
+		volume = new float[capacity];
+		level = new float[capacity];
+		normalizedLevel = new float[capacity];
+		flags = new int[capacity];
+		pendingTime = new long[capacity];
+	}
+}
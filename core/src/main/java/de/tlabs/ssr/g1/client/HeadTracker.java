@@ -0,0 +1,278 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import de.tub.tlabs.android.utils.FirstOrderOrientationLPFilter;
+import de.tub.tlabs.android.utils.OrientationPredictor;
+
+/**
+ * Turns raw compass azimuths into reference orientations worth sending.
+ * Measurements are smoothed with a first order low-pass filter, a new
+ * orientation is only reported if it differs from the last reported one by
+ * more than the dead-band and if the maximum send rate allows it.
+ * Optionally, the orientation is extrapolated by the expected latency
+ * until the renderer applies it (see {@link #setPredictionLatency(float)}).
+ * 
+ * Also keeps statistics to tune the parameters: jitter (rms of second
+ * differences, i.e. noise without the actual head movement) before and
+ * after filtering, the delay of the filter and the mean error between the
+ * raw and the last reported orientation, which includes the effect of
+ * dead-band and rate limit.
+ */
+public class HeadTracker {
+	public static final float DEFAULT_FILTER_STRENGTH = 0.5f;
+	public static final float DEFAULT_DEAD_BAND = 0.5f; // in degrees
+	public static final int DEFAULT_MAX_SEND_RATE = 30; // in Hz
+	public static final float DEFAULT_VELOCITY_SMOOTHING = 0.6f;
+	public static final float MAX_EXTRAPOLATION = 30.0f; // in degrees
+	
+	private float filterStrength = DEFAULT_FILTER_STRENGTH;
+	private float deadBand = DEFAULT_DEAD_BAND;
+	private long minSendInterval = 1000000000L / DEFAULT_MAX_SEND_RATE; // in ns
+	private FirstOrderOrientationLPFilter filter = new FirstOrderOrientationLPFilter(filterStrength);
+	private OrientationPredictor predictor = null;
+	private SensorTrace trace = null;
+	
+	private boolean calibrateFlag = true;
+	private float initialAzimuth;
+	private float rawAzimuth;	// unwrapped
+	private float filteredAzimuth;	// unwrapped
+	private float sentAzimuth;	// unwrapped
+	private long lastEventTime;
+	private long lastSendTime;
+	
+	// statistics
+	private int numEvents = 0;
+	private int numSent = 0;
+	private long sumEventIntervals = 0;
+	private float lastRawDiff = 0.0f;
+	private float lastFilteredDiff = 0.0f;
+	private double sumRawJitter = 0.0;
+	private double sumFilteredJitter = 0.0;
+	private double sumError = 0.0;
+	
+	/**
+	 * @param filterStrength [0.0 .. 1.0], higher value filters more but adds delay
+	 */
+	public synchronized void setFilterStrength(float filterStrength) {
+		this.filterStrength = filterStrength;
+		filter = new FirstOrderOrientationLPFilter(filterStrength);
+		calibrateFlag = true;
+	}
+	
+	public synchronized float getFilterStrength() {
+		return filterStrength;
+	}
+	
+	/**
+	 * Enables prediction of the orientation at the time the renderer applies
+	 * it. The latency should be the end-to-end latency from the sensor to the
+	 * renderer, including the filter delay ({@link #getFilterDelay()}).
+	 * 
+	 * @param latency in ms, 0 disables prediction
+	 */
+	public synchronized void setPredictionLatency(float latency) {
+		if (latency <= 0.0f) {
+			predictor = null;
+		} else if (predictor == null) {
+			predictor = new OrientationPredictor(latency / 1000.0f, DEFAULT_VELOCITY_SMOOTHING, MAX_EXTRAPOLATION);
+			calibrateFlag = true;
+		} else {
+			predictor.setLatency(latency / 1000.0f);
+		}
+	}
+	
+	/**
+	 * @return Prediction latency in ms, 0 if disabled
+	 */
+	public synchronized float getPredictionLatency() {
+		return predictor == null ? 0.0f : predictor.getLatency() * 1000.0f;
+	}
+	
+	/**
+	 * Starts recording raw measurements, see {@link PredictionEvaluator}.
+	 * 
+	 * @param capacity Maximum number of measurements to record
+	 */
+	public synchronized void startTrace(int capacity) {
+		trace = new SensorTrace(capacity);
+	}
+	
+	/**
+	 * @return Recorded trace, null if recording was not started
+	 */
+	public synchronized SensorTrace getTrace() {
+		return trace;
+	}
+	
+	/**
+	 * @param deadBand Minimum change of orientation to be reported (in degrees)
+	 */
+	public synchronized void setDeadBand(float deadBand) {
+		this.deadBand = deadBand;
+	}
+	
+	/**
+	 * @param maxSendRate Maximum number of reported orientations per second
+	 */
+	public synchronized void setMaxSendRate(int maxSendRate) {
+		minSendInterval = 1000000000L / Math.max(1, maxSendRate);
+	}
+	
+	/**
+	 * Next measurement will be taken as initial orientation.
+	 */
+	public synchronized void calibrate() {
+		calibrateFlag = true;
+	}
+	
+	/**
+	 * Processes a new measurement.
+	 * 
+	 * @param sensorAzimuth Compass azimuth in degrees, as delivered by the orientation sensor
+	 * @param timestamp Time of measurement in ns
+	 * @return true if the orientation should be sent, see {@link #getAzimuth()}
+	 */
+	public synchronized boolean update(float sensorAzimuth, long timestamp) {
+		float measurement = -sensorAzimuth;
+		if (trace != null)
+			trace.add(sensorAzimuth, timestamp);
+		
+		if (calibrateFlag) {
+			// current orientation becomes "straight ahead" (90 degrees in scene coordinates)
+			initialAzimuth = measurement - 90.0f;
+			filter.init(measurement);
+			if (predictor != null)
+				predictor.init(measurement, timestamp);
+			rawAzimuth = filteredAzimuth = measurement;
+			lastEventTime = timestamp;
+			lastSendTime = timestamp;
+			sentAzimuth = filteredAzimuth;
+			lastRawDiff = lastFilteredDiff = 0.0f;
+			calibrateFlag = false;
+			numSent++;
+			return true;
+		}
+		
+		// unwrap raw value (for statistics only, filter does its own unwrapping)
+		float rawDiff = measurement - rawAzimuth;
+		rawDiff -= 360.0f * Math.round(rawDiff / 360.0f);
+		rawAzimuth += rawDiff;
+		
+		float filtered = filter.filter(measurement);
+		float filteredDiff = filtered - filteredAzimuth;
+		filteredAzimuth = filtered;
+		
+		// statistics
+		numEvents++;
+		sumEventIntervals += timestamp - lastEventTime;
+		lastEventTime = timestamp;
+		sumRawJitter += (rawDiff - lastRawDiff) * (rawDiff - lastRawDiff);
+		sumFilteredJitter += (filteredDiff - lastFilteredDiff) * (filteredDiff - lastFilteredDiff);
+		lastRawDiff = rawDiff;
+		lastFilteredDiff = filteredDiff;
+		sumError += Math.abs(rawAzimuth - sentAzimuth);
+		
+		// extrapolate filtered orientation
+		float azimuth = filteredAzimuth;
+		if (predictor != null)
+			azimuth = predictor.predict(filteredAzimuth, timestamp);
+		
+		// outside dead-band and not too early?
+		if (Math.abs(azimuth - sentAzimuth) < deadBand || timestamp - lastSendTime < minSendInterval)
+			return false;
+		sentAzimuth = azimuth;
+		lastSendTime = timestamp;
+		numSent++;
+		return true;
+	}
+	
+	/**
+	 * @return Last reported orientation in degrees [0 .. 360)
+	 */
+	public synchronized float getAzimuth() {
+		float azimuth = (sentAzimuth - initialAzimuth) % 360.0f;
+		return azimuth < 0.0f ? azimuth + 360.0f : azimuth;
+	}
+	
+	public synchronized int getNumEvents() {
+		return numEvents;
+	}
+	
+	public synchronized int getNumSent() {
+		return numSent;
+	}
+	
+	/**
+	 * @return Mean time between measurements in ms
+	 */
+	public synchronized float getMeanEventInterval() {
+		return numEvents == 0 ? 0.0f : (float) sumEventIntervals / numEvents / 1000000.0f;
+	}
+	
+	/**
+	 * @return Delay of the filter for steady head movements in ms
+	 */
+	public synchronized float getFilterDelay() {
+		return filterStrength / (1.0f - filterStrength) * getMeanEventInterval();
+	}
+	
+	public synchronized float getRawJitter() {
+		return numEvents == 0 ? 0.0f : (float) Math.sqrt(sumRawJitter / numEvents);
+	}
+	
+	public synchronized float getFilteredJitter() {
+		return numEvents == 0 ? 0.0f : (float) Math.sqrt(sumFilteredJitter / numEvents);
+	}
+	
+	/**
+	 * @return Mean difference between raw and last reported orientation in degrees
+	 */
+	public synchronized float getMeanError() {
+		return numEvents == 0 ? 0.0f : (float) (sumError / numEvents);
+	}
+	
+	public synchronized void resetStatistics() {
+		numEvents = numSent = 0;
+		sumEventIntervals = 0;
+		sumRawJitter = sumFilteredJitter = sumError = 0.0;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "events: " + numEvents + " (every " + getMeanEventInterval() + " ms), sent: " + numSent
+				+ ", jitter raw/filtered: " + getRawJitter() + "/" + getFilteredJitter() + " deg"
+				+ ", filter delay: " + getFilterDelay() + " ms, prediction: " + getPredictionLatency()
+				+ " ms, mean error: " + getMeanError() + " deg";
+	}
+}
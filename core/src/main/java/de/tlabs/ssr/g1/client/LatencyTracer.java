@@ -0,0 +1,276 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import de.tub.tlabs.android.utils.Histogram;
+
+/**
+ * Measures how long position and orientation changes take from the input
+ * event to the rendered echo of the server. Each traced value is
+ * timestamped on input, when it goes out with a request, when the server
+ * echoes it and when the first frame containing the echo is drawn.
+ * Echoes are matched with traced values by target and value, values that
+ * were never echoed (e.g. coalesced by the request scheduler) are dropped
+ * when a newer value of the same target comes back.
+ * 
+ * Latencies are collected per group (dragged sources, head tracking) and
+ * stage in histograms with 0.5 ms resolution.
+ */
+public class LatencyTracer {
+	// types of traced values
+	public static final int SOURCE_POSITION = 0;
+	public static final int SOURCE_AZIMUTH = 1;
+	public static final int REFERENCE_AZIMUTH = 2;
+	
+	// groups
+	public static final int DRAG = 0;
+	public static final int HEAD = 1;
+	private static final String[] GROUP_NAMES = { "drag", "head" };
+	
+	// stages
+	public static final int INPUT_TO_SENT = 0;
+	public static final int SENT_TO_ECHO = 1;
+	public static final int ECHO_TO_DRAWN = 2;
+	public static final int TOTAL = 3;
+	private static final String[] STAGE_NAMES = { "input-sent", "sent-echo", "echo-drawn", "total" };
+	
+	private static final int CAPACITY = 256;	// max. number of values in flight
+	private static final float BUCKET_WIDTH = 0.5f;	// in ms
+	private static final int NUM_BUCKETS = 4000;
+	private static final float POSITION_TOLERANCE = 0.001f;
+	private static final float AZIMUTH_TOLERANCE = 0.01f;
+	
+	// states of traced values
+	private static final int FREE = 0;
+	private static final int INPUT = 1;
+	private static final int SENT = 2;
+	private static final int ECHOED = 3;
+	
+	// traced values
+	private int[] states = new int[CAPACITY];
+	private int[] types = new int[CAPACITY];
+	private String[] ids = new String[CAPACITY];
+	private float[] values1 = new float[CAPACITY];
+	private float[] values2 = new float[CAPACITY];
+	private long[] inputTimes = new long[CAPACITY];
+	private long[] sentTimes = new long[CAPACITY];
+	private long[] echoTimes = new long[CAPACITY];
+	private int next = 0;
+	
+	private Histogram[][] histograms = new Histogram[GROUP_NAMES.length][STAGE_NAMES.length];
+	private int numOverwritten = 0;
+	private int numSuperseded = 0;
+	
+	public LatencyTracer() {
+		for (int i = 0; i < GROUP_NAMES.length; i++) {
+			for (int j = 0; j < STAGE_NAMES.length; j++) {
+				histograms[i][j] = new Histogram(BUCKET_WIDTH, NUM_BUCKETS);
+			}
+		}
+	}
+	
+	/**
+	 * Starts tracing a value handed to the request scheduler.
+	 * 
+	 * @param type SOURCE_POSITION, SOURCE_AZIMUTH or REFERENCE_AZIMUTH
+	 * @param id Source id, null for the reference
+	 * @param value1 x or azimuth
+	 * @param value2 y, ignored for azimuths
+	 * @param time Time of input event in ns
+	 */
+	public synchronized void traceInput(int type, String id, float value1, float value2, long time) {
+		if (states[next] != FREE)
+			numOverwritten++;	// oldest value never came back
+		states[next] = INPUT;
+		types[next] = type;
+		ids[next] = id;
+		values1[next] = value1;
+		values2[next] = value2;
+		inputTimes[next] = time;
+		next = (next + 1) % CAPACITY;
+	}
+	
+	/**
+	 * Marks all traced values of a target as sent.
+	 */
+	public synchronized void traceSent(int type, String id, long time) {
+		for (int i = 0; i < CAPACITY; i++) {
+			if (states[i] == INPUT && types[i] == type && isSameId(ids[i], id)) {
+				states[i] = SENT;
+				sentTimes[i] = time;
+			}
+		}
+	}
+	
+	/**
+	 * Matches a value received from the server with the traced values.
+	 * Older values of the same target are dropped.
+	 */
+	public synchronized void traceEcho(int type, String id, float value1, float value2, long time) {
+		// find matching value
+		int match = -1;
+		for (int i = 0; i < CAPACITY; i++) {
+			if (states[i] == SENT && types[i] == type && isSameId(ids[i], id) && matches(i, value1, value2)) {
+				if (match < 0 || inputTimes[i] > inputTimes[match])
+					match = i;
+			}
+		}
+		if (match < 0)
+			return;	// not ours or already echoed
+		
+		// drop older values of this target, they will not come back
+		for (int i = 0; i < CAPACITY; i++) {
+			if (i != match && (states[i] == INPUT || states[i] == SENT) && types[i] == type 
+					&& isSameId(ids[i], id) && inputTimes[i] < inputTimes[match]) {
+				free(i);
+				numSuperseded++;
+			}
+		}
+		
+		int group = getGroup(type);
+		histograms[group][INPUT_TO_SENT].add((sentTimes[match] - inputTimes[match]) / 1000000.0f);
+		histograms[group][SENT_TO_ECHO].add((time - sentTimes[match]) / 1000000.0f);
+		states[match] = ECHOED;
+		echoTimes[match] = time;
+	}
+	
+	/**
+	 * Completes all echoed values contained in the drawn frame.
+	 * 
+	 * @param snapshotTime Time the drawn snapshot of the scene was taken in ns
+	 * @param time Time the frame was drawn in ns
+	 */
+	public synchronized void traceDrawn(long snapshotTime, long time) {
+		for (int i = 0; i < CAPACITY; i++) {
+			if (states[i] == ECHOED && echoTimes[i] <= snapshotTime) {
+				int group = getGroup(types[i]);
+				histograms[group][ECHO_TO_DRAWN].add((time - echoTimes[i]) / 1000000.0f);
+				histograms[group][TOTAL].add((time - inputTimes[i]) / 1000000.0f);
+				free(i);
+			}
+		}
+	}
+	
+	public Histogram getHistogram(int group, int stage) {
+		return histograms[group][stage];
+	}
+	
+	public synchronized void reset() {
+		for (int i = 0; i < CAPACITY; i++)
+			free(i);
+		for (int i = 0; i < GROUP_NAMES.length; i++) {
+			for (int j = 0; j < STAGE_NAMES.length; j++) {
+				histograms[i][j].reset();
+			}
+		}
+		numOverwritten = numSuperseded = 0;
+	}
+	
+	/**
+	 * Writes a summary line per group and stage (latencies in ms), followed by the histogram buckets.
+	 */
+	public synchronized void write(Writer writer) throws IOException {
+		writer.write("group,stage,count,mean,p50,p95,p99,max\n");
+		for (int i = 0; i < GROUP_NAMES.length; i++) {
+			for (int j = 0; j < STAGE_NAMES.length; j++) {
+				Histogram h = histograms[i][j];
+				writer.write(GROUP_NAMES[i] + "," + STAGE_NAMES[j] + "," + h.getCount() + "," + h.getMean() + "," 
+						+ h.getPercentile(50.0f) + "," + h.getPercentile(95.0f) + "," + h.getPercentile(99.0f) 
+						+ "," + h.getMax() + "\n");
+			}
+		}
+		writer.write("\ngroup,stage,from,to,count\n");
+		for (int i = 0; i < GROUP_NAMES.length; i++) {
+			for (int j = 0; j < STAGE_NAMES.length; j++) {
+				histograms[i][j].write(writer, GROUP_NAMES[i] + "," + STAGE_NAMES[j]);
+			}
+		}
+		writer.flush();
+	}
+	
+	/**
+	 * @return One line per group and stage with p50/p95/p99 in ms, for the debug overlay
+	 */
+	public synchronized String[] getSummary() {
+		String[] lines = new String[GROUP_NAMES.length * STAGE_NAMES.length];
+		for (int i = 0; i < GROUP_NAMES.length; i++) {
+			for (int j = 0; j < STAGE_NAMES.length; j++) {
+				Histogram h = histograms[i][j];
+				lines[i * STAGE_NAMES.length + j] = GROUP_NAMES[i] + " " + STAGE_NAMES[j] + ": " + h.getPercentile(50.0f) 
+						+ "/" + h.getPercentile(95.0f) + "/" + h.getPercentile(99.0f) + " ms (" + h.getCount() + ")";
+			}
+		}
+		return lines;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < GROUP_NAMES.length; i++) {
+			for (int j = 0; j < STAGE_NAMES.length; j++) {
+				sb.append(GROUP_NAMES[i]).append(' ').append(STAGE_NAMES[j]).append(": ")
+						.append(histograms[i][j].toString()).append(" ms\n");
+			}
+		}
+		return sb.append("lost: ").append(numOverwritten).append(", superseded: ").append(numSuperseded).toString();
+	}
+	
+	private boolean matches(int i, float value1, float value2) {
+		if (types[i] == SOURCE_POSITION) {
+			return Math.abs(values1[i] - value1) <= POSITION_TOLERANCE * Math.max(1.0f, Math.abs(value1))
+					&& Math.abs(values2[i] - value2) <= POSITION_TOLERANCE * Math.max(1.0f, Math.abs(value2));
+		}
+		float diff = (values1[i] - value1) % 360.0f;
+		if (diff > 180.0f)
+			diff -= 360.0f;
+		else if (diff < -180.0f)
+			diff += 360.0f;
+		return Math.abs(diff) <= AZIMUTH_TOLERANCE;
+	}
+	
+	private void free(int i) {
+		states[i] = FREE;
+		ids[i] = null;
+	}
+	
+	private static boolean isSameId(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+	
+	private static int getGroup(int type) {
+		return type == REFERENCE_AZIMUTH ? HEAD : DRAG;
+	}
+}
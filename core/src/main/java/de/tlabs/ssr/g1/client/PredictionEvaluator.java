@@ -0,0 +1,180 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import de.tub.tlabs.android.utils.FirstOrderOrientationLPFilter;
+import de.tub.tlabs.android.utils.OrientationPredictor;
+
+/**
+ * Replays a recorded {@link SensorTrace} through the head tracking filter
+ * and the {@link OrientationPredictor}, and compares the orientation that
+ * would have been sent with the actual orientation one latency later, i.e.
+ * when the renderer applies it. Errors are reported for the raw values,
+ * the filtered values and the filtered and predicted values.
+ * 
+ * Traces saved by the app can be evaluated offline with {@link #main(String[])}.
+ */
+public class PredictionEvaluator {
+	public static final float[] DEFAULT_LATENCIES = { 50.0f, 100.0f, 150.0f, 200.0f };	// in ms
+	
+	/**
+	 * Prediction errors in degrees.
+	 */
+	public static class Result {
+		public float latency;	// in ms
+		public int numSamples = 0;
+		public float meanErrorRaw, rmsErrorRaw, maxErrorRaw;
+		public float meanErrorFiltered, rmsErrorFiltered, maxErrorFiltered;
+		public float meanErrorPredicted, rmsErrorPredicted, maxErrorPredicted;
+		
+		@Override
+		public String toString() {
+			return "latency " + latency + " ms, " + numSamples + " samples, mean/rms/max error raw: " 
+					+ meanErrorRaw + "/" + rmsErrorRaw + "/" + maxErrorRaw 
+					+ " deg, filtered: " + meanErrorFiltered + "/" + rmsErrorFiltered + "/" + maxErrorFiltered
+					+ " deg, predicted: " + meanErrorPredicted + "/" + rmsErrorPredicted + "/" + maxErrorPredicted + " deg";
+		}
+	}
+	
+	/**
+	 * @param trace Recorded raw sensor values
+	 * @param filterStrength Strength of head tracking filter, see {@link HeadTracker#setFilterStrength(float)}
+	 * @param latency Latency to compensate for (in ms)
+	 * @param velocitySmoothing Filter strength for angular velocity, see {@link OrientationPredictor}
+	 */
+	public static Result evaluate(SensorTrace trace, float filterStrength, float latency, float velocitySmoothing) {
+		Result result = new Result();
+		result.latency = latency;
+		int length = trace.getLength();
+		if (length < 2)
+			return result;
+		
+		// unwrap measurements like FirstOrderOrientationLPFilter (same orientation convention as HeadTracker)
+		float[] unwrapped = new float[length];
+		unwrapped[0] = -trace.getAzimuth(0);
+		int orientationAngleCorrectionFactor = 0;
+		for (int i = 1; i < length; i++) {
+			float measurement = -trace.getAzimuth(i) + ((float) orientationAngleCorrectionFactor * 360.0f);
+			if (unwrapped[i - 1] - measurement < -180.0f) {
+				orientationAngleCorrectionFactor--;
+				measurement -= 360.0f;
+			} else if (unwrapped[i - 1] - measurement > 180.0f) {
+				orientationAngleCorrectionFactor++;
+				measurement += 360.0f;
+			}
+			unwrapped[i] = measurement;
+		}
+		
+		FirstOrderOrientationLPFilter filter = new FirstOrderOrientationLPFilter(filterStrength);
+		filter.init(unwrapped[0]);
+		OrientationPredictor predictor = new OrientationPredictor(latency / 1000.0f, velocitySmoothing, 
+				HeadTracker.MAX_EXTRAPOLATION);
+		predictor.init(unwrapped[0], trace.getTimestamp(0));
+		long latencyNs = (long) (latency * 1000000.0f);
+		
+		double sumRaw = 0.0, sumFiltered = 0.0, sumPredicted = 0.0;
+		double sumSqRaw = 0.0, sumSqFiltered = 0.0, sumSqPredicted = 0.0;
+		int j = 0;
+		for (int i = 1; i < length; i++) {
+			float filtered = filter.filter(unwrapped[i]);
+			float predicted = predictor.predict(filtered, trace.getTimestamp(i));
+			
+			// actual orientation one latency later (linear interpolation)
+			long targetTime = trace.getTimestamp(i) + latencyNs;
+			while (j < length - 1 && trace.getTimestamp(j + 1) < targetTime)
+				j++;
+			if (j == length - 1)
+				break;	// beyond end of trace
+			long t0 = trace.getTimestamp(j);
+			long t1 = trace.getTimestamp(j + 1);
+			float a = (t1 == t0) ? 0.0f : (float) (targetTime - t0) / (float) (t1 - t0);
+			float actual = unwrapped[j] + a * (unwrapped[j + 1] - unwrapped[j]);
+			
+			float errorRaw = Math.abs(unwrapped[i] - actual);
+			float errorFiltered = Math.abs(filtered - actual);
+			float errorPredicted = Math.abs(predicted - actual);
+			sumRaw += errorRaw;
+			sumFiltered += errorFiltered;
+			sumPredicted += errorPredicted;
+			sumSqRaw += errorRaw * errorRaw;
+			sumSqFiltered += errorFiltered * errorFiltered;
+			sumSqPredicted += errorPredicted * errorPredicted;
+			result.maxErrorRaw = Math.max(result.maxErrorRaw, errorRaw);
+			result.maxErrorFiltered = Math.max(result.maxErrorFiltered, errorFiltered);
+			result.maxErrorPredicted = Math.max(result.maxErrorPredicted, errorPredicted);
+			result.numSamples++;
+		}
+		
+		if (result.numSamples > 0) {
+			int n = result.numSamples;
+			result.meanErrorRaw = (float) (sumRaw / n);
+			result.meanErrorFiltered = (float) (sumFiltered / n);
+			result.meanErrorPredicted = (float) (sumPredicted / n);
+			result.rmsErrorRaw = (float) Math.sqrt(sumSqRaw / n);
+			result.rmsErrorFiltered = (float) Math.sqrt(sumSqFiltered / n);
+			result.rmsErrorPredicted = (float) Math.sqrt(sumSqPredicted / n);
+		}
+		return result;
+	}
+	
+	/**
+	 * Evaluates traces written by {@link SensorTrace#write(java.io.Writer)}, e.g.
+	 * pulled from the device, with the default head tracking parameters.
+	 * 
+	 * @param args Trace files
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("usage: PredictionEvaluator TRACE...");
+			System.exit(1);
+		}
+		for (int i = 0; i < args.length; i++) {
+			Reader reader = new FileReader(args[i]);
+			SensorTrace trace;
+			try {
+				trace = SensorTrace.read(reader);
+			} finally {
+				reader.close();
+			}
+			System.out.println(args[i] + ": " + trace.getLength() + " samples");
+			for (int j = 0; j < DEFAULT_LATENCIES.length; j++) {
+				System.out.println("  " + evaluate(trace, HeadTracker.DEFAULT_FILTER_STRENGTH, DEFAULT_LATENCIES[j], 
+						HeadTracker.DEFAULT_VELOCITY_SMOOTHING));
+			}
+		}
+	}
+}
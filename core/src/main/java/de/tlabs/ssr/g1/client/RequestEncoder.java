@@ -0,0 +1,168 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.nio.ByteBuffer;
+
+import de.tub.tlabs.android.utils.StringHelper;
+
+/**
+ * Serializes requests to the server straight into a reusable byte buffer,
+ * without creating any objects. The buffer only grows if a request does
+ * not fit.
+ * 
+ * Usage: beginRequest(), any number of elements, endRequest(), then hand
+ * getBuffer() to the outbound writer. Source attributes (mute) have to be
+ * written before source child elements (orientation, position).
+ */
+public class RequestEncoder {
+	public static final int DEFAULT_DECIMAL_PLACES = 4;
+	// enough room for one element with a float value
+	private static final int ELEMENT_SIZE = 96;
+	
+	private ByteBuffer buffer;
+	private int decimalPlaces = DEFAULT_DECIMAL_PLACES;
+	private boolean sourceTagOpen = false;	// start tag of source element not closed yet?
+	
+	public RequestEncoder(int initialCapacity) {
+		buffer = ByteBuffer.allocate(initialCapacity);
+	}
+	
+	/**
+	 * @param decimalPlaces Number of decimal places written for float values (0 to 9)
+	 */
+	public void setDecimalPlaces(int decimalPlaces) {
+		this.decimalPlaces = Math.max(0, Math.min(9, decimalPlaces));
+	}
+	
+	public void beginRequest() {
+		buffer.clear();
+		sourceTagOpen = false;
+		putAscii("<request>");
+	}
+	
+	/**
+	 * Terminates the request and flips the buffer.
+	 */
+	public void endRequest() {
+		putAscii("</request>\0");
+		buffer.flip();
+	}
+	
+	/**
+	 * @return Encoded request, valid after {@link #endRequest()}
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+	
+	public void referenceOrientation(float azimuth) {
+		putAscii("<reference><orientation azimuth='");
+		putFloat(azimuth);
+		putAscii("'/></reference>");
+	}
+	
+	public void sceneVolume(float volume) {
+		putAscii("<scene volume='");
+		putFloat(volume);
+		putAscii("'/>");
+	}
+	
+	public void transportCommand(String command) {
+		putAscii("<state transport='");
+		putAscii(command);
+		putAscii("'/>");
+	}
+	
+	public void beginSource(String id) {
+		putAscii("<source id='");
+		putAscii(id);
+		putAscii("'");
+		sourceTagOpen = true;
+	}
+	
+	public void sourceMute(boolean muted) {
+		putAscii(muted ? " mute='true'" : " mute='false'");
+	}
+	
+	public void sourceOrientation(float azimuth) {
+		closeSourceTag();
+		putAscii("<orientation azimuth='");
+		putFloat(azimuth);
+		putAscii("'/>");
+	}
+	
+	public void sourcePosition(float x, float y) {
+		closeSourceTag();
+		putAscii("<position x='");
+		putFloat(x);
+		putAscii("' y='");
+		putFloat(y);
+		putAscii("'/>");
+	}
+	
+	public void endSource() {
+		if (sourceTagOpen) {
+			putAscii("/>");
+			sourceTagOpen = false;
+		} else {
+			putAscii("</source>");
+		}
+	}
+	
+	private void closeSourceTag() {
+		if (sourceTagOpen) {
+			putAscii(">");
+			sourceTagOpen = false;
+		}
+	}
+	
+	private void putAscii(String s) {
+		ensureRemaining(s.length());
+		StringHelper.append(buffer, s);
+	}
+	
+	private void putFloat(float value) {
+		ensureRemaining(ELEMENT_SIZE);
+		StringHelper.append(buffer, value, decimalPlaces);
+	}
+	
+	private void ensureRemaining(int size) {
+		if (buffer.remaining() < size) {
+			ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+	}
+}
@@ -0,0 +1,343 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * Thread merging all outgoing requests into at most one request per tick.
+ * Producers only store the latest value for each target (source position,
+ * orientation and mute state, reference orientation, scene volume), values
+ * overwritten before the next tick are never sent. Transport commands are
+ * events and are sent in the order they were queued. Values are only cleared
+ * once the outbound writer accepted their request, a dropped request (queue
+ * full, connection failed) is sent again with the latest values next tick.
+ * 
+ * Within a request the reference orientation comes first, followed by scene
+ * volume and transport commands, then the sources. Only a limited number of
+ * sources goes into one request, the rest waits for the next tick, so that
+ * dragging a large group of sources does not delay head tracking.
+ */
+public class RequestScheduler extends Thread {
+	private static final String TAG = "RequestScheduler";
+	
+	public static final int DEFAULT_TICK_RATE = 100; // in Hz
+	public static final int MAX_SOURCES_PER_TICK = 32;
+	
+	private static final int POSITION = 1;
+	private static final int ORIENTATION = 2;
+	private static final int MUTE = 4;
+	
+	/**
+	 * Latest not yet sent values of one source.
+	 */
+	private static class PendingSource {
+		public String id;
+		public int flags = 0;
+		public float x;
+		public float y;
+		public float azimuth;
+		public boolean muted;
+	}
+	
+	private RequestSink requestSink;
+	private volatile LatencyTracer latencyTracer = null;
+	private volatile long tickPeriod = 1000000000L / DEFAULT_TICK_RATE;	// in ns
+	private volatile boolean abortFlag = false;
+	private volatile boolean waiting = false;
+	private volatile boolean pending = false;
+	
+	// pending values, guarded by this
+	private HashMap<String, PendingSource> sourceMap = new HashMap<String, PendingSource>();	// entries are kept for reuse
+	private ArrayList<PendingSource> pendingSources = new ArrayList<PendingSource>();	// in order of first change
+	private boolean referenceOrientationPending = false;
+	private float referenceAzimuth;
+	private boolean sceneVolumePending = false;
+	private float sceneVolume;
+	private ArrayList<String> transportCommands = new ArrayList<String>();
+	private RequestEncoder requestEncoder = new RequestEncoder(1024);
+	
+	// statistics
+	private int numUpdates = 0;
+	private int numCoalesced = 0;
+	private int numRequests = 0;
+	private int numDropped = 0;
+	private int numSplitTicks = 0;
+	
+	public RequestScheduler(RequestSink requestSink) {
+		super(TAG);
+		this.requestSink = requestSink;
+	}
+	
+	/**
+	 * @param latencyTracer Tracer to be told when values are sent, null for none
+	 */
+	public void setLatencyTracer(LatencyTracer latencyTracer) {
+		this.latencyTracer = latencyTracer;
+	}
+	
+	/**
+	 * @param tickRate Maximum number of requests per second
+	 */
+	public void setTickRate(int tickRate) {
+		tickPeriod = 1000000000L / Math.max(1, tickRate);
+	}
+	
+	public synchronized void setSourcePosition(String id, float x, float y) {
+		PendingSource source = getPendingSource(id, POSITION);
+		source.x = x;
+		source.y = y;
+		changed();
+	}
+	
+	public synchronized void setSourceOrientation(String id, float azimuth) {
+		getPendingSource(id, ORIENTATION).azimuth = azimuth;
+		changed();
+	}
+	
+	public synchronized void setSourceMuted(String id, boolean muted) {
+		getPendingSource(id, MUTE).muted = muted;
+		changed();
+	}
+	
+	public synchronized void setReferenceOrientation(float azimuth) {
+		if (referenceOrientationPending)
+			numCoalesced++;
+		referenceOrientationPending = true;
+		referenceAzimuth = azimuth;
+		changed();
+	}
+	
+	public synchronized void setSceneVolume(float volume) {
+		if (sceneVolumePending)
+			numCoalesced++;
+		sceneVolumePending = true;
+		sceneVolume = volume;
+		changed();
+	}
+	
+	/**
+	 * Queues a transport command, e.g. "start", "stop" or "rewind".
+	 */
+	public synchronized void queueTransportCommand(String command) {
+		transportCommands.add(command);
+		changed();
+	}
+	
+	/**
+	 * Stops the thread, pending values are discarded.
+	 */
+	public void abort() {
+		abortFlag = true;
+		LockSupport.unpark(this);
+	}
+	
+	private PendingSource getPendingSource(String id, int flag) {
+		PendingSource source = sourceMap.get(id);
+		if (source == null) {
+			source = new PendingSource();
+			source.id = id;
+			sourceMap.put(id, source);
+		}
+		if (source.flags == 0)
+			pendingSources.add(source);
+		else if ((source.flags & flag) != 0)
+			numCoalesced++;
+		source.flags |= flag;
+		return source;
+	}
+	
+	private void changed() {
+		numUpdates++;
+		pending = true;
+		if (waiting)
+			LockSupport.unpark(this);
+	}
+	
+	@Override
+	public void run() {
+		Log.d(TAG, "(" + this.getId() + ") HELLO");
+		
+		long nextTick = System.nanoTime();
+		while (!abortFlag) {
+			// nothing to send? sleep until a producer wakes us up
+			if (!pending) {
+				waiting = true;
+				if (!pending && !abortFlag)
+					LockSupport.park();
+				waiting = false;
+				continue;
+			}
+			
+			// wait for next tick
+			long now = System.nanoTime();
+			if (nextTick - now > 0) {
+				LockSupport.parkNanos(nextTick - now);
+				continue;
+			}
+			nextTick = (now - nextTick > tickPeriod) ? now + tickPeriod : nextTick + tickPeriod;
+			
+			tick();
+		}
+		
+		Log.d(TAG, "(" + this.getId() + ") " + toString());
+		Log.d(TAG, "(" + this.getId() + ") GOOD BYE");
+	}
+	
+	/**
+	 * Sends the pending values as one request, called once per tick.
+	 * 
+	 * @return false if the request was dropped
+	 */
+	synchronized boolean tick() {
+		if (!pending)
+			return true;
+		int numSources = buildRequest();
+		if (requestSink.send(requestEncoder.getBuffer())) {
+			clearSent(numSources);
+			numRequests++;
+			return true;
+		} else {
+			// keep everything pending, the latest values go out with the next tick
+			numDropped++;
+			return false;
+		}
+	}
+	
+	/**
+	 * Collects all pending values into one request. Nothing is cleared, the
+	 * request may still be dropped.
+	 * 
+	 * @return Number of sources in the request
+	 */
+	private int buildRequest() {
+		RequestEncoder encoder = requestEncoder;
+		encoder.beginRequest();
+		
+		if (referenceOrientationPending)
+			encoder.referenceOrientation(referenceAzimuth);
+		if (sceneVolumePending)
+			encoder.sceneVolume(sceneVolume);
+		for (int i = 0; i < transportCommands.size(); i++) {
+			encoder.transportCommand(transportCommands.get(i));
+		}
+		
+		int numSources = Math.min(pendingSources.size(), MAX_SOURCES_PER_TICK);
+		for (int i = 0; i < numSources; i++) {
+			PendingSource source = pendingSources.get(i);
+			encoder.beginSource(source.id);
+			if ((source.flags & MUTE) != 0)
+				encoder.sourceMute(source.muted);
+			if ((source.flags & ORIENTATION) != 0)
+				encoder.sourceOrientation(source.azimuth);
+			if ((source.flags & POSITION) != 0)
+				encoder.sourcePosition(source.x, source.y);
+			encoder.endSource();
+		}
+		
+		encoder.endRequest();
+		return numSources;
+	}
+	
+	/**
+	 * Clears the values of a request built by {@link #buildRequest()} once it was sent.
+	 * 
+	 * @param numSources Number of sources in the request
+	 */
+	private void clearSent(int numSources) {
+		LatencyTracer latencyTracer = this.latencyTracer;
+		long now = System.nanoTime();
+		
+		if (referenceOrientationPending) {
+			if (latencyTracer != null)
+				latencyTracer.traceSent(LatencyTracer.REFERENCE_AZIMUTH, null, now);
+			referenceOrientationPending = false;
+		}
+		sceneVolumePending = false;
+		transportCommands.clear();
+		
+		for (int i = 0; i < numSources; i++) {
+			PendingSource source = pendingSources.get(i);
+			if (latencyTracer != null) {
+				if ((source.flags & ORIENTATION) != 0)
+					latencyTracer.traceSent(LatencyTracer.SOURCE_AZIMUTH, source.id, now);
+				if ((source.flags & POSITION) != 0)
+					latencyTracer.traceSent(LatencyTracer.SOURCE_POSITION, source.id, now);
+			}
+			source.flags = 0;
+		}
+		if (numSources < pendingSources.size()) {
+			// leave remaining sources for next tick
+			removeFirst(pendingSources, numSources);
+			numSplitTicks++;
+		} else {
+			pendingSources.clear();
+			pending = false;
+		}
+	}
+	
+	/**
+	 * Removes the first n elements of a list without creating any objects.
+	 */
+	private static void removeFirst(ArrayList<PendingSource> list, int n) {
+		int size = list.size();
+		for (int i = n; i < size; i++) {
+			list.set(i - n, list.get(i));
+		}
+		for (int i = size - 1; i >= size - n; i--) {
+			list.remove(i);
+		}
+	}
+	
+	public synchronized int getNumUpdates() {
+		return numUpdates;
+	}
+	
+	public synchronized int getNumRequests() {
+		return numRequests;
+	}
+	
+	public synchronized int getNumDropped() {
+		return numDropped;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "updates: " + numUpdates + ", coalesced: " + numCoalesced + ", requests: " + numRequests
+				+ ", dropped: " + numDropped + ", split ticks: " + numSplitTicks;
+	}
+}
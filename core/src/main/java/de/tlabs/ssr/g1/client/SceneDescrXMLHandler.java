@@ -0,0 +1,323 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.util.ArrayList;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import de.tlabs.ssr.g1.client.AudioScene.TransportState;
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * XML handler to parse initial scene description and construct an {@link AudioScene}.
+ * Entities are collected first and replace the content of the scene at once when
+ * the description is complete, so the previous scene stays visible meanwhile.
+ * Attributes are set directly on the new entities, they are not part of the scene
+ * yet. Volume and transport state of the scene are kept until the scene is replaced,
+ * the mutation batch is not used.
+ * 
+ * @author Peter Bartz
+ */
+public class SceneDescrXMLHandler extends SceneXMLHandler {
+	private boolean receivedSceneDescr;
+	private boolean parsingRootTag;
+	private boolean parsingScene;
+	private int idCounter = 100;
+	private ArrayList<SoundSource> newSoundSources = new ArrayList<SoundSource>();
+	private ArrayList<Loudspeaker> newLoudspeakers = new ArrayList<Loudspeaker>();
+	private EntityStore stagingStore = new EntityStore();	// state of new sources and loudspeakers until added
+	private Reference newReference = null;
+	private boolean hasNewVolume = false;
+	private float newVolume;
+	private TransportState newTransportState = null;
+
+	public SceneDescrXMLHandler(AudioScene audioScene, AttributeDecoder decoder, SceneMutationBatch batch) {
+		super(audioScene, decoder, batch);
+		this.receivedSceneDescr = false;
+	}
+	
+	public boolean receivedSceneDescr() {
+		return receivedSceneDescr;
+	}
+	
+	/**
+	 * Prepares for the scene description of a new connection.
+	 */
+	public void reset() {
+		receivedSceneDescr = false;
+		idCounter = 100;
+		newSoundSources.clear();
+		newLoudspeakers.clear();
+		stagingStore.clear();
+		newReference = null;
+		hasNewVolume = false;
+		newTransportState = null;
+	}
+	
+	// replaces all entities of the scene with the ones of the new description
+	private void replaceScene() {
+		synchronized (audioScene) {
+			audioScene.reset();
+			for (int i = 0; i < newSoundSources.size(); i++)
+				audioScene.addSoundSource(newSoundSources.get(i));
+			for (int i = 0; i < newLoudspeakers.size(); i++)
+				audioScene.addLoudspeaker(newLoudspeakers.get(i));
+			if (newReference != null)
+				audioScene.setReference(newReference);
+			if (hasNewVolume)
+				audioScene.setVolume(newVolume);
+			if (newTransportState != null)
+				audioScene.setTransportState(newTransportState);
+			audioScene.recalculateReferenceTransformation();
+			audioScene.publishSnapshot();
+		}
+		Log.d(TAG, "replaced audio scene: " + newSoundSources.size() + " sources, " 
+				+ newLoudspeakers.size() + " loudspeakers");
+		newSoundSources.clear();
+		newLoudspeakers.clear();
+		newReference = null;
+		hasNewVolume = false;
+		newTransportState = null;
+	}
+
+	@Override
+	protected void setSoundSourceAttributes(SoundSource soundSource, Attributes attributes) {
+		String sName = attributes.getValue(NAME);
+		if (sName != null) soundSource.setName(sName);
+		if (decoder.decodeSourceModel(attributes.getValue(MODEL)) == AttributeDecoder.OK)
+			soundSource.setSourceModel(decoder.sourceModel);
+		if (decoder.decodeBoolean(attributes.getValue(MUTE)) == AttributeDecoder.OK)
+			soundSource.setMuted(decoder.booleanValue);
+		if (decoder.decodeFloat(attributes.getValue(VOLUME)) == AttributeDecoder.OK)
+			soundSource.setVolume(decoder.floatValue);
+		if (decoder.decodeFloat(attributes.getValue(LEVEL)) == AttributeDecoder.OK)
+			soundSource.setLevel(decoder.floatValue);
+	}
+	
+	@Override
+	protected void setEntityPosition(Entity entity, Attributes attributes) {
+		if (entity == null) return;
+		if (decoder.decodeFloat(attributes.getValue(X)) == AttributeDecoder.OK) {
+			float x = decoder.floatValue;
+			if (decoder.decodeFloat(attributes.getValue(Y)) == AttributeDecoder.OK)
+				entity.setXY(x, decoder.floatValue);
+		}
+		if (decoder.decodeBoolean(attributes.getValue(FIXED)) == AttributeDecoder.OK)
+			entity.setPositionFixed(decoder.booleanValue);
+	}
+	
+	@Override
+	protected void setEntityOrientation(Entity entity, Attributes attributes) {
+		if (entity == null) return;
+		if (decoder.decodeFloat(attributes.getValue(AZIMUTH)) == AttributeDecoder.OK)
+			entity.setAzimuth(decoder.floatValue);
+	}
+	
+	@Override
+	protected void setSceneVolume(String volume) {
+		if (decoder.decodeFloat(volume) == AttributeDecoder.OK) {
+			newVolume = decoder.floatValue;
+			hasNewVolume = true;
+		}
+	}
+	
+	@Override
+	protected void setSceneVolume(char[] ch, int start, int length) {
+		if (decoder.decodeFloat(ch, start, length) == AttributeDecoder.OK) {
+			newVolume = decoder.floatValue;
+			hasNewVolume = true;
+		}
+	}
+	
+	@Override
+	protected void setTransportState(String state) {
+		if (state.equals(START)) {
+			newTransportState = TransportState.PLAYING;
+		} else if (state.equals(STOP)) {
+			newTransportState = TransportState.PAUSED;
+		} else {
+			Log.d(TAG, "Received unknown transport state: " + state);
+		}
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		parsingRootTag = true;
+		parsingScene = false;
+		inUpdateTag = false;
+		inSourceTag = false;
+		inReferenceTag = false;
+		soundSource = null;
+	}
+	
+	@Override
+	public void endDocument() throws SAXException {
+		if (parsingScene) {
+			replaceScene();
+			receivedSceneDescr = true;
+		}
+	}
+	
+	@Override
+	public void startElement(String uri, String localName, String name,
+			Attributes attributes) throws SAXException {
+		if (parsingRootTag) { 
+			parsingRootTag = false;
+			if (localName.equals(UPDATE)) { 
+				parsingScene = true;
+				Log.d(TAG, "creating new audio scene");
+			} else {
+				parsingScene = false;
+				Log.d(TAG, "outer tag is not an update tag (" + localName + ")");
+			}
+			return;
+		} else if (parsingScene) {
+			if (inSourceTag) {
+				if (localName.equals(POSITION)) {
+					// no synchronization needed, because soundSource not added to audioScene yet
+					setEntityPosition(soundSource, attributes);
+					return;
+				} else if (localName.equals(ORIENTATION)) {
+					// no synchronization needed, because soundSource not added to audioScene yet
+					setEntityOrientation(soundSource, attributes);
+					return;
+				}
+			} else if (inLoudspeakerTag) { 
+				if (localName.equals(POSITION)) {
+					// no synchronization needed, because loudspeaker not added to audioScene yet
+					setEntityPosition(loudspeaker, attributes);
+					return;
+				} else if (localName.equals(ORIENTATION)) {
+					// no synchronization needed, because loudspeaker not added to audioScene yet
+					setEntityOrientation(loudspeaker, attributes); 
+					return;
+				}
+			} else if (inReferenceTag) { 
+				if (localName.equals(POSITION)) {
+					// no synchronization needed, because reference not added to audioScene yet
+					setEntityPosition(newReference, attributes);
+					return;
+				} else if (localName.equals(ORIENTATION)) {
+					// no synchronization needed, because reference not added to audioScene yet
+					setEntityOrientation(newReference, attributes);
+					return;
+				}
+			} else if (localName.equals(SOURCE)) { 
+				inSourceTag = true;
+				String sId = attributes.getValue(ID);
+				if (sId == null) 
+					sId = String.valueOf(idCounter++);
+				soundSource = new SoundSource(sId, stagingStore);
+				// no synchronization needed, because soundSource not added to audioScene yet
+				setSoundSourceAttributes(soundSource, attributes);
+				return;
+			} else if (localName.equals(LOUDSPEAKER)) { 
+				inLoudspeakerTag = true;
+				loudspeaker = new Loudspeaker(stagingStore);
+				// no synchronization needed, because loudspeaker not added to audioScene yet
+				setLoudspeakerAttributes(loudspeaker, attributes);
+				return;
+			} else if (localName.equals(REFERENCE)) {
+				inReferenceTag = true;
+				// any direct reference attribs?
+				newReference = new Reference();
+				return;
+			} else if (localName.equals(VOLUME)) {
+				inVolumeTag = true;
+				return;
+			} else if (localName.equals(TRANSPORT)) {
+				inTransportTag = true;
+				return;
+			}
+		}
+		
+		Log.d(TAG, "start unhandled element: '" + localName + "'");
+	}
+	
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (parsingScene) {
+			if (inVolumeTag) {
+				setSceneVolume(ch, start, length);
+			} else if (inTransportTag) {
+				setTransportState(String.valueOf(ch, start, length));
+			}
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String name)
+	throws SAXException {
+		if (!parsingScene) return;
+		
+		if (localName.equals(SOURCE)) {
+			// the source becomes visible with the whole scene
+			newSoundSources.add(soundSource);
+			soundSource = null;
+			inSourceTag = false;
+			return;
+		} else if (localName.equals(LOUDSPEAKER)) {
+			newLoudspeakers.add(loudspeaker);
+			inLoudspeakerTag = false;
+			loudspeaker = null;
+			return;
+		} else if (localName.equals(REFERENCE)) {
+			inReferenceTag = false;
+			return;
+		} else if (localName.equals(VOLUME)) {
+			inVolumeTag = false;
+			return;
+		} else if (localName.equals(TRANSPORT)) {
+			inTransportTag = false;
+			return;
+		}
+	}
+
+	@Override
+	public void error(SAXParseException e) throws SAXException {
+		Log.d(TAG, "error");
+	}
+
+	@Override
+	public void fatalError(SAXParseException e) throws SAXException {
+		Log.d(TAG, "fatal error");
+	}
+	
+	@Override
+	public void warning(SAXParseException e) throws SAXException {
+		Log.d(TAG, "warning");
+	}
+}
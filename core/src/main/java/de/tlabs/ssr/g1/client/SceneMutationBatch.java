@@ -0,0 +1,295 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import de.tlabs.ssr.g1.client.AudioScene.TransportState;
+
+/**
+ * Collects changes to an {@link AudioScene} in primitive arrays, so they can be
+ * applied all at once under a single lock acquisition. Used by the xml input
+ * thread to keep the scene lock, which is also needed by the UI thread, free
+ * most of the time.
+ * A new {@link SceneSnapshot} is published after each batch.
+ * Lock hold times and batch sizes are recorded.
+ */
+public class SceneMutationBatch {
+	private static final int INITIAL_CAPACITY = 256;
+
+	// mutation types
+	private static final int ENTITY_POSITION = 1;
+	private static final int ENTITY_POSITION_FIXED = 2;
+	private static final int ENTITY_AZIMUTH = 3;
+	private static final int SOURCE_NAME = 4;
+	private static final int SOURCE_MODEL = 5;
+	private static final int SOURCE_MUTED = 6;
+	private static final int SOURCE_VOLUME = 7;
+	private static final int SOURCE_LEVEL = 8;
+	private static final int SCENE_VOLUME = 9;
+	private static final int TRANSPORT_STATE = 10;
+
+	private AudioScene audioScene;
+	private int size = 0;
+	private int[] types;
+	private Entity[] entities;
+	private Object[] objects;
+	private float[] values1;
+	private float[] values2;
+
+	// statistics
+	private long numBatches = 0;
+	private long numMutations = 0;
+	private int maxBatchSize = 0;
+	private long totalLockHoldTime = 0; // in ns
+	private long maxLockHoldTime = 0; // in ns
+	private long numIgnoredEchoes = 0; // outdated positions/azimuths of entities changed locally
+
+	public SceneMutationBatch(AudioScene audioScene) {
+		this.audioScene = audioScene;
+		types = new int[INITIAL_CAPACITY];
+		entities = new Entity[INITIAL_CAPACITY];
+		objects = new Object[INITIAL_CAPACITY];
+		values1 = new float[INITIAL_CAPACITY];
+		values2 = new float[INITIAL_CAPACITY];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void setEntityPosition(Entity entity, float x, float y) {
+		add(ENTITY_POSITION, entity, null, x, y);
+	}
+
+	public void setEntityPositionFixed(Entity entity, boolean fixed) {
+		add(ENTITY_POSITION_FIXED, entity, null, fixed ? 1.0f : 0.0f, 0.0f);
+	}
+
+	public void setEntityAzimuth(Entity entity, float azimuth) {
+		add(ENTITY_AZIMUTH, entity, null, azimuth, 0.0f);
+	}
+
+	public void setSourceName(SoundSource source, String name) {
+		add(SOURCE_NAME, source, name, 0.0f, 0.0f);
+	}
+
+	public void setSourceModel(SoundSource source, SoundSource.SourceModel model) {
+		add(SOURCE_MODEL, source, model, 0.0f, 0.0f);
+	}
+
+	public void setSourceMuted(SoundSource source, boolean muted) {
+		add(SOURCE_MUTED, source, null, muted ? 1.0f : 0.0f, 0.0f);
+	}
+
+	public void setSourceVolume(SoundSource source, float volume) {
+		add(SOURCE_VOLUME, source, null, volume, 0.0f);
+	}
+
+	public void setSourceLevel(SoundSource source, float level) {
+		add(SOURCE_LEVEL, source, null, level, 0.0f);
+	}
+
+	public void setSceneVolume(float volume) {
+		add(SCENE_VOLUME, null, null, volume, 0.0f);
+	}
+
+	public void setTransportState(TransportState state) {
+		add(TRANSPORT_STATE, null, state, 0.0f, 0.0f);
+	}
+
+	/**
+	 * Applies all collected mutations in order, holding the lock of the audio scene
+	 * once. The batch is empty afterwards.
+	 */
+	public void apply() {
+		if (size == 0)
+			return;
+
+		long holdTime;
+		LatencyTracer latencyTracer = audioScene.getLatencyTracer();
+		synchronized (audioScene) {
+			long startTime = System.nanoTime();
+			for (int i = 0; i < size; i++) {
+				switch (types[i]) {
+				case ENTITY_POSITION:
+					if (!entities[i].applyServerXY(values1[i], values2[i], startTime))
+						numIgnoredEchoes++;
+					if (latencyTracer != null && entities[i] instanceof SoundSource)
+						latencyTracer.traceEcho(LatencyTracer.SOURCE_POSITION, ((SoundSource) entities[i]).getId(), 
+								values1[i], values2[i], startTime);
+					break;
+				case ENTITY_POSITION_FIXED:
+					entities[i].setPositionFixed(values1[i] != 0.0f);
+					break;
+				case ENTITY_AZIMUTH:
+					if (!entities[i].applyServerAzimuth(values1[i], startTime))
+						numIgnoredEchoes++;
+					if (latencyTracer != null) {
+						if (entities[i] instanceof SoundSource)
+							latencyTracer.traceEcho(LatencyTracer.SOURCE_AZIMUTH, ((SoundSource) entities[i]).getId(), 
+									values1[i], 0.0f, startTime);
+						else if (entities[i] instanceof Reference)
+							latencyTracer.traceEcho(LatencyTracer.REFERENCE_AZIMUTH, null, values1[i], 0.0f, startTime);
+					}
+					break;
+				case SOURCE_NAME:
+					((SoundSource) entities[i]).setName((String) objects[i]);
+					break;
+				case SOURCE_MODEL:
+					((SoundSource) entities[i]).setSourceModel((SoundSource.SourceModel) objects[i]);
+					break;
+				case SOURCE_MUTED:
+					((SoundSource) entities[i]).setMuted(values1[i] != 0.0f);
+					break;
+				case SOURCE_VOLUME:
+					((SoundSource) entities[i]).setVolume(values1[i]);
+					break;
+				case SOURCE_LEVEL:
+					((SoundSource) entities[i]).setLevel(values1[i]);
+					break;
+				case SCENE_VOLUME:
+					audioScene.setVolume(values1[i]);
+					break;
+				case TRANSPORT_STATE:
+					audioScene.setTransportState((TransportState) objects[i]);
+					break;
+				}
+			}
+			audioScene.publishSnapshot();
+			holdTime = System.nanoTime() - startTime;
+		}
+
+		// update statistics
+		numBatches++;
+		numMutations += size;
+		if (size > maxBatchSize)
+			maxBatchSize = size;
+		totalLockHoldTime += holdTime;
+		if (holdTime > maxLockHoldTime)
+			maxLockHoldTime = holdTime;
+
+		clear();
+	}
+
+	/**
+	 * Drops all collected mutations.
+	 */
+	public void clear() {
+		truncate(0);
+	}
+
+	/**
+	 * Drops all mutations collected after the batch had the given size.
+	 */
+	public void truncate(int newSize) {
+		for (int i = newSize; i < size; i++) {
+			entities[i] = null;
+			objects[i] = null;
+		}
+		if (newSize < size)
+			size = newSize;
+	}
+
+	public long getNumBatches() {
+		return numBatches;
+	}
+
+	public long getNumMutations() {
+		return numMutations;
+	}
+
+	/**
+	 * @return Number of positions/azimuths ignored because they were older than a locally set value
+	 */
+	public long getNumIgnoredEchoes() {
+		return numIgnoredEchoes;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public float getAverageBatchSize() {
+		return numBatches == 0 ? 0.0f : (float) numMutations / (float) numBatches;
+	}
+
+	/**
+	 * @return Average lock hold time in microseconds
+	 */
+	public float getAverageLockHoldTime() {
+		return numBatches == 0 ? 0.0f : (float) totalLockHoldTime / (float) numBatches / 1000.0f;
+	}
+
+	/**
+	 * @return Maximum lock hold time in microseconds
+	 */
+	public float getMaxLockHoldTime() {
+		return (float) maxLockHoldTime / 1000.0f;
+	}
+
+	@Override
+	public String toString() {
+		return "batches: " + numBatches + ", mutations/batch: " + getAverageBatchSize() + " (max " + maxBatchSize
+			+ "), lock hold time: " + getAverageLockHoldTime() + " us (max " + getMaxLockHoldTime() + " us)"
+			+ ", ignored echoes: " + numIgnoredEchoes;
+	}
+
+	private void add(int type, Entity entity, Object object, float value1, float value2) {
+		if (size == types.length)
+			grow();
+		types[size] = type;
+		entities[size] = entity;
+		objects[size] = object;
+		values1[size] = value1;
+		values2[size] = value2;
+		size++;
+	}
+
+	private void grow() {
+		int capacity = types.length * 2;
+		int[] newTypes = new int[capacity];
+		Entity[] newEntities = new Entity[capacity];
+		Object[] newObjects = new Object[capacity];
+		float[] newValues1 = new float[capacity];
+		float[] newValues2 = new float[capacity];
+		System.arraycopy(types, 0, newTypes, 0, size);
+		System.arraycopy(entities, 0, newEntities, 0, size);
+		System.arraycopy(objects, 0, newObjects, 0, size);
+		System.arraycopy(values1, 0, newValues1, 0, size);
+		System.arraycopy(values2, 0, newValues2, 0, size);
+		types = newTypes;
+		entities = newEntities;
+		objects = newObjects;
+		values1 = newValues1;
+		values2 = newValues2;
+	}
+}
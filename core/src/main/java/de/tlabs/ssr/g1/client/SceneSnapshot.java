@@ -0,0 +1,202 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import de.tub.tlabs.android.utils.Transform2D;
+import de.tub.tlabs.android.utils.ObjectPool.ObjectFactory;
+
+/**
+ * Immutable (once published) copy of everything needed to draw an
+ * {@link AudioScene} and to pick sources by touch. Snapshots are written by
+ * whichever thread holds the scene lock and handed to the UI thread through
+ * a {@link de.tub.tlabs.android.utils.TripleBuffer}, so drawing never has to
+ * wait for the scene lock.
+ * The entity stores of the scene are copied array by array into stores of
+ * the snapshot, with preallocated views on them. Memory is only allocated
+ * if the scene grows.
+ */
+public class SceneSnapshot {
+	public static final ObjectFactory<SceneSnapshot> FACTORY = new ObjectFactory<SceneSnapshot>() {
+		@Override
+		public SceneSnapshot newObject() {
+			return new SceneSnapshot();
+		}
+	};
+	
+	private EntityStore soundSourceStore = new EntityStore();
+	private SoundSource[] soundSources = new SoundSource[0];		// views on soundSourceStore
+	private SoundSource[] originalSoundSources = new SoundSource[0];
+	private EntityStore loudspeakerStore = new EntityStore();
+	private Loudspeaker[] loudspeakers = new Loudspeaker[0];	// views on loudspeakerStore
+	private Reference reference = new Reference();				// copy
+	private boolean hasReference = false;
+	private boolean drawSourcesFixedEnabled = false;
+	private Transform2D referenceTransformation = new Transform2D();
+	private Transform2D inverseReferenceTransformation = new Transform2D();
+	private long captureTime = 0;	// in ns
+	
+	public SceneSnapshot() {
+		// grids are replaced by copies of the grids of the scene on capture
+		soundSourceStore.enableSpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE);
+		loudspeakerStore.enableSpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE);
+	}
+	
+	/**
+	 * Copies the current state of the audio scene. Caller must hold the lock of
+	 * the scene.
+	 */
+	void capture(AudioScene audioScene) {
+		captureTime = System.nanoTime();
+		
+		// sound sources (numeric state is copied array by array)
+		EntityStore sceneStore = audioScene.getSoundSourceStore();
+		int oldNum = soundSourceStore.size();
+		int num = sceneStore.size();
+		soundSourceStore.copyValuesFrom(sceneStore);
+		if (soundSources.length < num) {
+			int capacity = Math.max(num, soundSources.length * 2);
+			SoundSource[] newSoundSources = new SoundSource[capacity];
+			System.arraycopy(soundSources, 0, newSoundSources, 0, soundSources.length);
+			for (int i = soundSources.length; i < capacity; i++)
+				newSoundSources[i] = new SoundSource(soundSourceStore, i);
+			soundSources = newSoundSources;
+			SoundSource[] newOriginalSoundSources = new SoundSource[capacity];
+			System.arraycopy(originalSoundSources, 0, newOriginalSoundSources, 0, oldNum);
+			originalSoundSources = newOriginalSoundSources;
+		}
+		for (int i = 0; i < num; i++) {
+			SoundSource s = (SoundSource) sceneStore.getOwner(i);
+			soundSources[i].copyAttributesFrom(s);
+			originalSoundSources[i] = s;
+		}
+		for (int i = num; i < oldNum; i++)
+			originalSoundSources[i] = null;	// don't keep removed sources alive
+		
+		// loudspeakers
+		sceneStore = audioScene.getLoudspeakerStore();
+		num = sceneStore.size();
+		loudspeakerStore.copyValuesFrom(sceneStore);
+		if (loudspeakers.length < num) {
+			int capacity = Math.max(num, loudspeakers.length * 2);
+			Loudspeaker[] newLoudspeakers = new Loudspeaker[capacity];
+			System.arraycopy(loudspeakers, 0, newLoudspeakers, 0, loudspeakers.length);
+			for (int i = loudspeakers.length; i < capacity; i++)
+				newLoudspeakers[i] = new Loudspeaker(loudspeakerStore, i);
+			loudspeakers = newLoudspeakers;
+		}
+		for (int i = 0; i < num; i++)
+			loudspeakers[i].setSpeakerModel(((Loudspeaker) sceneStore.getOwner(i)).getSpeakerModel());
+		
+		// reference and transformation
+		Reference r = audioScene.getReference();
+		hasReference = r != null;
+		if (hasReference)
+			reference.copyFrom(r);
+		drawSourcesFixedEnabled = audioScene.isDrawSourcesFixedEnabled();
+		audioScene.getReferenceTransformation(referenceTransformation, inverseReferenceTransformation);
+	}
+	
+	/**
+	 * @return Time this snapshot was taken in ns ({@link System#nanoTime()})
+	 */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+	
+	public int getNumSoundSources() {
+		return soundSourceStore.size();
+	}
+	
+	/**
+	 * Returns the copy of a sound source. Use {@link #getOriginalSoundSource(int)}
+	 * to get the source object of the audio scene.
+	 */
+	public SoundSource getSoundSource(int index) {
+		return soundSources[index];
+	}
+	
+	public SoundSource getOriginalSoundSource(int index) {
+		return originalSoundSources[index];
+	}
+	
+	public int getNumLoudspeakers() {
+		return loudspeakerStore.size();
+	}
+	
+	public Loudspeaker getLoudspeaker(int index) {
+		return loudspeakers[index];
+	}
+	
+	/**
+	 * @return Copy of the reference, null if the scene had none
+	 */
+	public Reference getReference() {
+		return hasReference ? reference : null;
+	}
+	
+	public boolean isDrawSourcesFixedEnabled() {
+		return drawSourcesFixedEnabled;
+	}
+	
+	/**
+	 * @return Transformation into the reference coordinate system, must not be changed
+	 */
+	public Transform2D getReferenceTransformation() {
+		return referenceTransformation;
+	}
+	
+	// position must be given in sound source coordinates, returns -1 if there is no source within maxDistance
+	public int getNearestSoundSourceIndex(float[] pos, float maxDistance) {
+		return soundSourceStore.getSpatialGrid().findNearest(pos[0], pos[1], maxDistance);
+	}
+	
+	// position must be given in sound source coordinates, returns number of sources found
+	public int findSoundSourcesWithin(float[] pos, float radius, int[] result) {
+		return soundSourceStore.getSpatialGrid().findWithin(pos[0], pos[1], radius, result);
+	}
+	
+	// position must be given in loudspeaker coordinates, returns -1 if there is no loudspeaker within maxDistance
+	public int getNearestLoudspeakerIndex(float[] pos, float maxDistance) {
+		return loudspeakerStore.getSpatialGrid().findNearest(pos[0], pos[1], maxDistance);
+	}
+	
+	// transform point into reference coordinate system
+	public void mapPoint(float[] p) {
+		referenceTransformation.mapPoints(p);
+	}
+	
+	// transform point out of reference coordinate system
+	public void inverseMapPoint(float[] p) {
+		inverseReferenceTransformation.mapPoints(p);
+	}
+}
@@ -0,0 +1,567 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+
+package de.tlabs.ssr.g1.client;
+
+import java.nio.ByteBuffer;
+
+import de.tub.tlabs.android.utils.StringHelper;
+
+import de.tlabs.ssr.g1.client.AudioScene.TransportState;
+
+/**
+ * Allocation-free scanner for scene update chunks. Understands the small fixed
+ * vocabulary of the SSR update messages (update, source, reference, loudspeaker,
+ * position, orientation, scene, state, volume and transport) and collects the
+ * changes in a {@link SceneMutationBatch}, to be applied to the {@link AudioScene}
+ * later. Like the SceneUpdateXMLHandler it ignores the volume and transport
+ * elements, which only the scene description uses. The scene itself is only
+ * read (source lookup), which is safe without holding its lock, because sources
+ * are only added and removed by the xml input thread.
+ * Everything else (unknown elements, comments, CDATA, entity references,
+ * non-ascii attribute values) makes {@link #scan(ByteBuffer)} return false, the
+ * chunk then has to be parsed by the SAX based SceneUpdateXMLHandler. All values
+ * are absolute, so parsing a chunk again after it was partly applied is harmless.
+ */
+public class SceneUpdateScanner {
+	private static final String TAG = "SceneUpdateScanner";
+	private static final int MAX_NUM_ATTRIBUTES = 16;
+
+	// element names
+	private static final byte[] UPDATE = ascii("update");
+	private static final byte[] SOURCE = ascii("source");
+	private static final byte[] REFERENCE = ascii("reference");
+	private static final byte[] LOUDSPEAKER = ascii("loudspeaker");
+	private static final byte[] POSITION = ascii("position");
+	private static final byte[] ORIENTATION = ascii("orientation");
+	private static final byte[] SCENE = ascii("scene");
+	private static final byte[] STATE = ascii("state");
+	private static final byte[] VOLUME = ascii("volume");
+	private static final byte[] TRANSPORT = ascii("transport");
+
+	// attribute names and values
+	private static final byte[] ID = ascii("id");
+	private static final byte[] NAME = ascii("name");
+	private static final byte[] MODEL = ascii("model");
+	private static final byte[] MUTE = ascii("mute");
+	private static final byte[] LEVEL = ascii("level");
+	private static final byte[] X = ascii("x");
+	private static final byte[] Y = ascii("y");
+	private static final byte[] FIXED = ascii("fixed");
+	private static final byte[] AZIMUTH = ascii("azimuth");
+	private static final byte[] START = ascii("start");
+	private static final byte[] STOP = ascii("stop");
+
+	// element ids
+	private static final int EL_UNKNOWN = 0;
+	private static final int EL_UPDATE = 1;
+	private static final int EL_SOURCE = 2;
+	private static final int EL_REFERENCE = 3;
+	private static final int EL_LOUDSPEAKER = 4;
+	private static final int EL_POSITION = 5;
+	private static final int EL_ORIENTATION = 6;
+	private static final int EL_SCENE = 7;
+	private static final int EL_STATE = 8;
+	private static final int EL_VOLUME = 9;
+	private static final int EL_TRANSPORT = 10;
+
+	private AudioScene audioScene;
+	private AttributeDecoder decoder;
+	private SceneMutationBatch batch;
+
+	// chunk data
+	private byte[] data;
+	private byte[] scratch = new byte[4 * 1024]; // copy of chunk if chunk is not array backed
+	private int pos;
+	private int end;
+
+	// attributes of current tag (start/end indices of names and values)
+	private int numAttributes;
+	private int[] attrNameStart = new int[MAX_NUM_ATTRIBUTES];
+	private int[] attrNameEnd = new int[MAX_NUM_ATTRIBUTES];
+	private int[] attrValueStart = new int[MAX_NUM_ATTRIBUTES];
+	private int[] attrValueEnd = new int[MAX_NUM_ATTRIBUTES];
+
+	// parsing state
+	private boolean inUpdateTag;
+	private boolean inSourceTag;
+	private boolean inReferenceTag;
+	private int ignoredDepth;	// > 0 while inside an element that is skipped
+	private SoundSource soundSource;
+
+	// statistics
+	private int numScannedChunks = 0;
+	private int numFallbackChunks = 0;
+
+	public SceneUpdateScanner(AudioScene audioScene, AttributeDecoder decoder, SceneMutationBatch batch) {
+		this.audioScene = audioScene;
+		this.decoder = decoder;
+		this.batch = batch;
+	}
+
+	public int getNumScannedChunks() {
+		return numScannedChunks;
+	}
+
+	public int getNumFallbackChunks() {
+		return numFallbackChunks;
+	}
+
+	/**
+	 * Scans one chunk and adds its changes to the mutation batch. Position and 
+	 * limit of the given buffer are not changed.
+	 *
+	 * @param chunk Buffer, position and limit mark the chunk
+	 * @return false if the chunk contains anything the scanner does not
+	 * understand, the chunk has to be parsed by the sax parser then
+	 */
+	public boolean scan(ByteBuffer chunk) {
+		int length = chunk.remaining();
+		if (chunk.hasArray()) {
+			data = chunk.array();
+			pos = chunk.arrayOffset() + chunk.position();
+		} else {
+			if (scratch.length < length)
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			chunk.duplicate().get(scratch, 0, length);
+			data = scratch;
+			pos = 0;
+		}
+		end = pos + length;
+
+		inUpdateTag = false;
+		inSourceTag = false;
+		inReferenceTag = false;
+		ignoredDepth = 0;
+		soundSource = null;
+
+		int batchSize = batch.size();
+		boolean success = scanContent();
+		soundSource = null;
+		data = null;
+
+		if (success) {
+			numScannedChunks++;
+		} else {
+			// drop changes of the partially scanned chunk, the parser will redo them
+			batch.truncate(batchSize);
+			numFallbackChunks++;
+		}
+		return success;
+	}
+
+	private boolean scanContent() {
+		while (true) {
+			// text content, ignored like the sax handler does
+			while (pos < end && data[pos] != '<')
+				pos++;
+			if (pos == end)
+				return true;
+
+			// markup
+			pos++;
+			if (pos == end)
+				return false;
+			byte c = data[pos];
+			if (c == '?') {
+				// processing instruction/xml declaration, skip
+				if (!skipPastProcessingInstruction())
+					return false;
+			} else if (c == '!') {
+				// comment, cdata, doctype
+				return false;
+			} else if (c == '/') {
+				pos++;
+				if (!scanEndTag())
+					return false;
+			} else {
+				if (!scanStartTag())
+					return false;
+			}
+		}
+	}
+
+	private boolean scanStartTag() {
+		// element name
+		int nameStart = pos;
+		while (pos < end && isNameChar(data[pos]))
+			pos++;
+		int nameEnd = pos;
+		if (nameStart == nameEnd)
+			return false;
+
+		// attributes
+		numAttributes = 0;
+		boolean emptyElement;
+		while (true) {
+			pos = skipWhitespace(pos, end);
+			if (pos == end)
+				return false;
+			byte c = data[pos];
+			if (c == '>') {
+				pos++;
+				emptyElement = false;
+				break;
+			} else if (c == '/') {
+				pos++;
+				if (pos == end || data[pos] != '>')
+					return false;
+				pos++;
+				emptyElement = true;
+				break;
+			} else if (!scanAttribute()) {
+				return false;
+			}
+		}
+
+		// inside an element we skip?
+		if (ignoredDepth > 0) {
+			if (!emptyElement)
+				ignoredDepth++;
+			return true;
+		}
+
+		int element = elementId(nameStart, nameEnd);
+		if (element == EL_UNKNOWN)
+			return false;
+		return handleStartElement(element, emptyElement);
+	}
+
+	private boolean scanAttribute() {
+		if (numAttributes == MAX_NUM_ATTRIBUTES)
+			return false;
+
+		// name
+		int nameStart = pos;
+		while (pos < end && isNameChar(data[pos]))
+			pos++;
+		int nameEnd = pos;
+		if (nameStart == nameEnd)
+			return false;
+
+		// '='
+		pos = skipWhitespace(pos, end);
+		if (pos == end || data[pos] != '=')
+			return false;
+		pos = skipWhitespace(pos + 1, end);
+		if (pos == end)
+			return false;
+
+		// quoted value
+		byte quote = data[pos];
+		if (quote != '\'' && quote != '"')
+			return false;
+		int valueStart = ++pos;
+		while (pos < end && data[pos] != quote) {
+			byte c = data[pos];
+			if (c == '&' || c == '<' || c < 0) // entities and non-ascii are left to the sax parser
+				return false;
+			pos++;
+		}
+		if (pos == end)
+			return false;
+		int valueEnd = pos++;
+
+		attrNameStart[numAttributes] = nameStart;
+		attrNameEnd[numAttributes] = nameEnd;
+		attrValueStart[numAttributes] = valueStart;
+		attrValueEnd[numAttributes] = valueEnd;
+		numAttributes++;
+		return true;
+	}
+
+	private boolean scanEndTag() {
+		int nameStart = pos;
+		while (pos < end && isNameChar(data[pos]))
+			pos++;
+		int nameEnd = pos;
+		pos = skipWhitespace(pos, end);
+		if (nameStart == nameEnd || pos == end || data[pos] != '>')
+			return false;
+		pos++;
+
+		if (ignoredDepth > 0) {
+			ignoredDepth--;
+			return true;
+		}
+
+		switch (elementId(nameStart, nameEnd)) {
+		case EL_UNKNOWN:
+			return false;
+		case EL_SOURCE:
+			inSourceTag = false;
+			soundSource = null;
+			break;
+		case EL_REFERENCE:
+			inReferenceTag = false;
+			break;
+		case EL_UPDATE:
+			inUpdateTag = false;
+			break;
+		}
+		return true;
+	}
+
+	private boolean handleStartElement(int element, boolean emptyElement) {
+		if (!inUpdateTag) {
+			if (element != EL_UPDATE) {
+				ignoreElement(emptyElement);
+				return true;
+			}
+			if (!emptyElement)
+				inUpdateTag = true;
+			return true;
+		}
+
+		if (inSourceTag || inReferenceTag) {
+			Entity entity = inSourceTag ? soundSource : audioScene.getReference();
+			if (element == EL_POSITION) {
+				if (entity != null)
+					setEntityPosition(entity);
+			} else if (element == EL_ORIENTATION) {
+				if (entity != null)
+					setEntityOrientation(entity);
+			} else {
+				ignoreElement(emptyElement);
+				return true;
+			}
+			if (!emptyElement)
+				ignoreElement(false); // position/orientation have no content we care about
+			return true;
+		}
+
+		switch (element) {
+		case EL_SOURCE:
+			soundSource = findSoundSource();
+			if (soundSource != null)
+				setSoundSourceAttributes(soundSource);
+			if (!emptyElement)
+				inSourceTag = true;
+			else
+				soundSource = null;
+			break;
+		case EL_REFERENCE:
+			if (!emptyElement)
+				inReferenceTag = true;
+			break;
+		case EL_SCENE:
+			if (findAttribute(VOLUME) 
+					&& decoder.decodeFloat(data, valueStartOfFound, valueEndOfFound) == AttributeDecoder.OK)
+				batch.setSceneVolume(decoder.floatValue);
+			ignoreElement(emptyElement);
+			break;
+		case EL_STATE:
+			if (findAttribute(TRANSPORT))
+				setTransportState(valueStartOfFound, valueEndOfFound);
+			ignoreElement(emptyElement);
+			break;
+		default:
+			// loudspeakers can't be updated, volume and transport elements only
+			// belong to the scene description, everything else is out of place here
+			ignoreElement(emptyElement);
+			break;
+		}
+		return true;
+	}
+
+	private void ignoreElement(boolean emptyElement) {
+		if (!emptyElement)
+			ignoredDepth++;
+	}
+
+	// result of findAttribute()
+	private int valueStartOfFound;
+	private int valueEndOfFound;
+
+	private boolean findAttribute(byte[] name) {
+		for (int i = 0; i < numAttributes; i++) {
+			if (matches(attrNameStart[i], attrNameEnd[i], name)) {
+				valueStartOfFound = attrValueStart[i];
+				valueEndOfFound = attrValueEnd[i];
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private SoundSource findSoundSource() {
+		if (!findAttribute(ID))
+			return null;
+		return audioScene.getSoundSource(data, valueStartOfFound, valueEndOfFound);
+	}
+
+	private void setSoundSourceAttributes(SoundSource soundSource) {
+		for (int i = 0; i < numAttributes; i++) {
+			int nameStart = attrNameStart[i];
+			int nameEnd = attrNameEnd[i];
+			int valueStart = attrValueStart[i];
+			int valueEnd = attrValueEnd[i];
+
+			if (matches(nameStart, nameEnd, LEVEL)) {
+				if (decoder.decodeFloat(data, valueStart, valueEnd) == AttributeDecoder.OK)
+					batch.setSourceLevel(soundSource, decoder.floatValue);
+			} else if (matches(nameStart, nameEnd, VOLUME)) {
+				if (decoder.decodeFloat(data, valueStart, valueEnd) == AttributeDecoder.OK)
+					batch.setSourceVolume(soundSource, decoder.floatValue);
+			} else if (matches(nameStart, nameEnd, MUTE)) {
+				if (decoder.decodeBoolean(data, valueStart, valueEnd) == AttributeDecoder.OK)
+					batch.setSourceMuted(soundSource, decoder.booleanValue);
+			} else if (matches(nameStart, nameEnd, MODEL)) {
+				if (decoder.decodeSourceModel(data, valueStart, valueEnd) == AttributeDecoder.OK)
+					batch.setSourceModel(soundSource, decoder.sourceModel);
+			} else if (matches(nameStart, nameEnd, NAME)) {
+				if (!matchesString(valueStart, valueEnd, soundSource.getName()))
+					batch.setSourceName(soundSource, StringHelper.asciiString(data, valueStart, valueEnd - valueStart));
+			}
+		}
+	}
+
+	private void setEntityPosition(Entity entity) {
+		boolean hasX = false;
+		boolean hasY = false;
+		float x = 0.0f;
+		float y = 0.0f;
+
+		for (int i = 0; i < numAttributes; i++) {
+			int nameStart = attrNameStart[i];
+			int nameEnd = attrNameEnd[i];
+			if (matches(nameStart, nameEnd, X)) {
+				hasX = decoder.decodeFloat(data, attrValueStart[i], attrValueEnd[i]) == AttributeDecoder.OK;
+				x = decoder.floatValue;
+			} else if (matches(nameStart, nameEnd, Y)) {
+				hasY = decoder.decodeFloat(data, attrValueStart[i], attrValueEnd[i]) == AttributeDecoder.OK;
+				y = decoder.floatValue;
+			} else if (matches(nameStart, nameEnd, FIXED)) {
+				if (decoder.decodeBoolean(data, attrValueStart[i], attrValueEnd[i]) == AttributeDecoder.OK)
+					batch.setEntityPositionFixed(entity, decoder.booleanValue);
+			}
+		}
+
+		if (hasX && hasY)
+			batch.setEntityPosition(entity, x, y);
+	}
+
+	private void setEntityOrientation(Entity entity) {
+		if (findAttribute(AZIMUTH) 
+				&& decoder.decodeFloat(data, valueStartOfFound, valueEndOfFound) == AttributeDecoder.OK)
+			batch.setEntityAzimuth(entity, decoder.floatValue);
+	}
+
+	private void setTransportState(int start, int end) {
+		if (matches(start, end, START)) {
+			batch.setTransportState(TransportState.PLAYING);
+		} else if (matches(start, end, STOP)) {
+			batch.setTransportState(TransportState.PAUSED);
+		}
+	}
+
+	private int elementId(int start, int end) {
+		switch (end - start) {
+		case 5:
+			if (matches(start, end, SCENE)) return EL_SCENE;
+			if (matches(start, end, STATE)) return EL_STATE;
+			break;
+		case 6:
+			if (matches(start, end, SOURCE)) return EL_SOURCE;
+			if (matches(start, end, UPDATE)) return EL_UPDATE;
+			if (matches(start, end, VOLUME)) return EL_VOLUME;
+			break;
+		case 8:
+			if (matches(start, end, POSITION)) return EL_POSITION;
+			break;
+		case 9:
+			if (matches(start, end, REFERENCE)) return EL_REFERENCE;
+			if (matches(start, end, TRANSPORT)) return EL_TRANSPORT;
+			break;
+		case 11:
+			if (matches(start, end, ORIENTATION)) return EL_ORIENTATION;
+			if (matches(start, end, LOUDSPEAKER)) return EL_LOUDSPEAKER;
+			break;
+		}
+		return EL_UNKNOWN;
+	}
+
+	private boolean skipPastProcessingInstruction() {
+		while (pos + 1 < end) {
+			if (data[pos] == '?' && data[pos + 1] == '>') {
+				pos += 2;
+				return true;
+			}
+			pos++;
+		}
+		return false;
+	}
+
+	private boolean matches(int start, int end, byte[] name) {
+		if (end - start != name.length)
+			return false;
+		for (int i = 0; i < name.length; i++) {
+			if (data[start + i] != name[i])
+				return false;
+		}
+		return true;
+	}
+
+	private boolean matchesString(int start, int end, String s) {
+		if (s == null || end - start != s.length())
+			return false;
+		for (int i = 0; i < s.length(); i++) {
+			if (data[start + i] != s.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private int skipWhitespace(int start, int end) {
+		while (start < end && isWhitespace(data[start]))
+			start++;
+		return start;
+	}
+
+	private static boolean isWhitespace(byte c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	private static boolean isNameChar(byte c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+			|| c == '_' || c == '-' || c == '.' || c == ':';
+	}
+
+	private static byte[] ascii(String s) {
+		byte[] bytes = new byte[s.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) s.charAt(i);
+		}
+		return bytes;
+	}
+}
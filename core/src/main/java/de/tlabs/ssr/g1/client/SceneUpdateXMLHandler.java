@@ -0,0 +1,146 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * XML handler to parse scene updates received from SSR server and save updates to {@link AudioScene}.
+ * 
+ * @author Peter Bartz
+ */
+public class SceneUpdateXMLHandler extends SceneXMLHandler {
+	
+	public SceneUpdateXMLHandler(AudioScene audioScene, AttributeDecoder decoder, SceneMutationBatch batch) {
+		super(audioScene, decoder, batch);
+	}
+	
+	@Override
+	public void startDocument() throws SAXException {
+		inUpdateTag = false;
+		inSourceTag = false;
+		inReferenceTag = false;
+		inVolumeTag = false;
+		soundSource = null;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String name,
+			Attributes attributes) throws SAXException {
+		if (inUpdateTag) {
+			if (inSourceTag) {
+				if (localName.equals(POSITION)) {
+					setEntityPosition(soundSource, attributes);
+					return;
+				} else if (localName.equals(ORIENTATION)) {
+					setEntityOrientation(soundSource, attributes);
+					return;
+				}
+			} else if (inReferenceTag) {
+				if (localName.equals(POSITION)) {
+					setEntityPosition(audioScene.getReference(), attributes);
+					return;
+				} else if (localName.equals(ORIENTATION)) {
+					setEntityOrientation(audioScene.getReference(), attributes);
+					return;
+				}
+			} else if (localName.equals(SOURCE)) {
+				inSourceTag = true;
+				// lookup without lock, sources are only added/removed by this thread
+				soundSource = audioScene.getSoundSource(attributes.getValue(ID));
+				if (soundSource != null)
+					setSoundSourceAttributes(soundSource, attributes);
+				return;
+			} else if (localName.equals(REFERENCE)) {
+				inReferenceTag = true;
+				// any direct reference attribs? 
+				return;
+			} else if (localName.equals(SCENE)) {
+				setSceneAttributes(attributes);
+				return;
+			} else if (localName.equals(STATE)) {
+				Log.d(TAG, "received STATE");
+				setStateAttributes(attributes);
+				return;
+			}
+		} else if (localName.equals(UPDATE)) {
+			inUpdateTag = true;
+			return;
+		} else if (localName.equals(ContinuousChunkInputStream.ROOT_ELEMENT)) {
+			// root element of streaming parse, nothing to do
+			return;
+		}
+		
+		Log.d(TAG, "start unhandled element: '" + localName + "'");
+	}
+	
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		// nothing
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String name)
+	throws SAXException {
+		if (localName.equals(SOURCE)) {
+			inSourceTag = false;
+			soundSource = null;
+			return;
+		} else if (localName.equals(UPDATE)) {
+			inUpdateTag = false;
+			return;
+		} else if (localName.equals(REFERENCE)) {
+			inReferenceTag = false;
+			return;
+		}
+	}
+	
+	@Override
+	public void error(SAXParseException e) throws SAXException {
+		Log.d(TAG, "error");
+	}
+	
+	@Override
+	public void fatalError(SAXParseException e) throws SAXException {
+		Log.d(TAG, "fatal error");
+	}
+	
+	@Override
+	public void warning(SAXParseException e) throws SAXException {
+		Log.d(TAG, "warning");
+	}
+}
@@ -0,0 +1,184 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import de.tlabs.ssr.g1.client.AudioScene.TransportState;
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * Base class for {@link SceneDescrXMLHandler} and {@link SceneUpdateXMLHandler}.
+ * 
+ * @author Peter Bartz
+ */
+public abstract class SceneXMLHandler extends DefaultHandler {
+	protected static final String TAG = "SceneXMLHandler";
+	
+	protected static final String ID = "id";
+	protected static final String NAME = "name";
+	protected static final String MODEL = "model";
+	protected static final String X = "x";
+	protected static final String Y = "y";
+	protected static final String POSITION = "position";
+	protected static final String SOURCE = "source";
+	protected static final String REFERENCE = "reference";
+	protected static final String LOUDSPEAKER = "loudspeaker";
+	protected static final String UPDATE = "update";
+	protected static final String MUTE = "mute";
+	protected static final String VOLUME = "volume";
+	protected static final String LEVEL = "level";
+	protected static final String STATE = "state";
+	protected static final String SCENE = "scene";
+	protected static final String TRANSPORT = "transport";
+	protected static final String START = "start";
+	protected static final String STOP = "stop";
+	protected static final String AZIMUTH = "azimuth";
+	protected static final String ORIENTATION = "orientation";
+	protected static final String TRUE = "true";
+	protected static final String FALSE = "false";
+	protected static final String FIXED = "fixed";
+	
+	protected AudioScene audioScene;
+	protected AttributeDecoder decoder;
+	protected SceneMutationBatch batch;
+	
+	protected SoundSource soundSource;
+	protected Loudspeaker loudspeaker;
+	protected boolean inUpdateTag;
+	protected boolean inSourceTag;
+	protected boolean inLoudspeakerTag;
+	protected boolean inReferenceTag;
+	protected boolean inVolumeTag;
+	protected boolean inTransportTag;
+	
+	/**
+	 * @param decoder Decoder for attribute values, shared by the handlers of a connection
+	 * @param batch Changes to the scene are collected in this batch, the handlers apply it only
+	 *        where the scene description requires it
+	 */
+	public SceneXMLHandler(AudioScene audioScene, AttributeDecoder decoder, SceneMutationBatch batch) {
+		this.audioScene = audioScene;
+		this.decoder = decoder;
+		this.batch = batch;
+	}
+	
+	protected void setSoundSourceAttributes(SoundSource soundSource, Attributes attributes) {
+		// get name
+		String sName = attributes.getValue(NAME);
+		
+		// set attributes in soundSource (absent or malformed values are skipped)
+		if (sName != null) batch.setSourceName(soundSource, sName);
+		if (decoder.decodeSourceModel(attributes.getValue(MODEL)) == AttributeDecoder.OK)
+			batch.setSourceModel(soundSource, decoder.sourceModel);
+		if (decoder.decodeBoolean(attributes.getValue(MUTE)) == AttributeDecoder.OK)
+			batch.setSourceMuted(soundSource, decoder.booleanValue);
+		if (decoder.decodeFloat(attributes.getValue(VOLUME)) == AttributeDecoder.OK)
+			batch.setSourceVolume(soundSource, decoder.floatValue);
+		if (decoder.decodeFloat(attributes.getValue(LEVEL)) == AttributeDecoder.OK)
+			batch.setSourceLevel(soundSource, decoder.floatValue);
+	}
+	
+	protected void setLoudspeakerAttributes(Loudspeaker loudspeaker, Attributes attributes) {
+		// set attributes in loudspeaker
+		if (decoder.decodeSpeakerModel(attributes.getValue(MODEL)) == AttributeDecoder.OK)
+			loudspeaker.setSpeakerModel(decoder.speakerModel);
+	}
+	
+	protected void setStateAttributes(Attributes attributes) {
+		// get attributes
+		String transport = attributes.getValue(TRANSPORT);
+		
+		// set state attributes
+		if (transport != null) {
+			setTransportState(transport);
+		}
+	}
+	
+	protected void setTransportState(String state) {
+		Log.d(TAG, "Setting Transport State = " + state);
+		if (state.equals(START)) {
+			batch.setTransportState(TransportState.PLAYING);
+		} else if (state.equals(STOP)) {
+			batch.setTransportState(TransportState.PAUSED);
+		} else {
+			Log.d(TAG, "Received unknown transport state: " + state);
+		}
+	}
+	
+	protected void setSceneAttributes(Attributes attributes) {
+		// get attributes
+		String volume = attributes.getValue(VOLUME);
+		
+		// set attributes audio scene
+		if (volume != null) {
+			setSceneVolume(volume);
+		}
+	}
+	
+	protected void setSceneVolume(String volume) {
+		if (decoder.decodeFloat(volume) == AttributeDecoder.OK)
+			batch.setSceneVolume(decoder.floatValue);
+	}
+	
+	protected void setSceneVolume(char[] ch, int start, int length) {
+		if (decoder.decodeFloat(ch, start, length) == AttributeDecoder.OK)
+			batch.setSceneVolume(decoder.floatValue);
+	}
+	
+	protected void setEntityPosition(Entity entity, Attributes attributes) {
+		// unknown entity (e.g. update for a source we don't know)?
+		if (entity == null) return;
+		
+		// set position of entity
+		if (decoder.decodeFloat(attributes.getValue(X)) == AttributeDecoder.OK) {
+			float x = decoder.floatValue;
+			if (decoder.decodeFloat(attributes.getValue(Y)) == AttributeDecoder.OK)
+				batch.setEntityPosition(entity, x, decoder.floatValue);
+		}
+		
+		// fixed position?
+		if (decoder.decodeBoolean(attributes.getValue(FIXED)) == AttributeDecoder.OK)
+			batch.setEntityPositionFixed(entity, decoder.booleanValue);
+	}
+	
+	protected void setEntityOrientation(Entity entity, Attributes attributes) {
+		// unknown entity?
+		if (entity == null) return;
+		
+		// set orientation of entity
+		if (decoder.decodeFloat(attributes.getValue(AZIMUTH)) == AttributeDecoder.OK)
+			batch.setEntityAzimuth(entity, decoder.floatValue);
+	}
+}
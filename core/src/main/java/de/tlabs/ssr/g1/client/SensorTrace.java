@@ -0,0 +1,127 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Recording of raw orientation sensor values, to replay head movements
+ * offline (see {@link PredictionEvaluator}). Stored as text, one
+ * measurement per line: "timestamp in ns,azimuth in degrees".
+ */
+public class SensorTrace {
+	private float[] azimuths;
+	private long[] timestamps;
+	private int length = 0;
+	
+	/**
+	 * @param capacity Maximum number of measurements, further ones are ignored
+	 */
+	public SensorTrace(int capacity) {
+		azimuths = new float[capacity];
+		timestamps = new long[capacity];
+	}
+	
+	public void add(float azimuth, long timestamp) {
+		if (length < azimuths.length) {
+			azimuths[length] = azimuth;
+			timestamps[length] = timestamp;
+			length++;
+		}
+	}
+	
+	public int getLength() {
+		return length;
+	}
+	
+	public float getAzimuth(int i) {
+		return azimuths[i];
+	}
+	
+	public long getTimestamp(int i) {
+		return timestamps[i];
+	}
+	
+	public void clear() {
+		length = 0;
+	}
+	
+	public void write(Writer writer) throws IOException {
+		for (int i = 0; i < length; i++) {
+			writer.write(Long.toString(timestamps[i]));
+			writer.write(',');
+			writer.write(Float.toString(azimuths[i]));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+	
+	/**
+	 * Reads a trace written by {@link #write(Writer)}. Empty lines and lines
+	 * starting with '#' are skipped.
+	 */
+	public static SensorTrace read(Reader reader) throws IOException {
+		BufferedReader bufferedReader = new BufferedReader(reader);
+		SensorTrace trace = new SensorTrace(1024);
+		String line;
+		while ((line = bufferedReader.readLine()) != null) {
+			line = line.trim();
+			if (line.length() == 0 || line.charAt(0) == '#')
+				continue;
+			int comma = line.indexOf(',');
+			if (comma < 0)
+				throw new IOException("malformed trace line: " + line);
+			try {
+				if (trace.length == trace.azimuths.length)
+					trace.grow();
+				trace.add(Float.parseFloat(line.substring(comma + 1).trim()), 
+						Long.parseLong(line.substring(0, comma).trim()));
+			} catch (NumberFormatException e) {
+				throw new IOException("malformed trace line: " + line);
+			}
+		}
+		return trace;
+	}
+	
+	private void grow() {
+		float[] newAzimuths = new float[azimuths.length * 2];
+		long[] newTimestamps = new long[timestamps.length * 2];
+		System.arraycopy(azimuths, 0, newAzimuths, 0, length);
+		System.arraycopy(timestamps, 0, newTimestamps, 0, length);
+		azimuths = newAzimuths;
+		timestamps = newTimestamps;
+	}
+}
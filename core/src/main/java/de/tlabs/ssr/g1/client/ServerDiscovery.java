@@ -0,0 +1,333 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * Thread that searches a list of addresses, usually all hosts of the local
+ * subnet, for SSR servers. Non-blocking connects to all candidates are
+ * multiplexed over one {@link Selector}. A candidate is confirmed as SSR
+ * server if the first chunk it sends is an &lt;update&gt; document, i.e. a
+ * scene description. The servers found are reported to a {@link ResultListener}
+ * when the search is finished.
+ */
+public class ServerDiscovery extends Thread {
+	private static final String TAG = "ServerDiscovery";
+	public static final long DEFAULT_TIMEOUT = 1500;	// for the whole search, in ms
+	public static final int MAX_CONCURRENT_CONNECTS = 256;
+	
+	/**
+	 * Is told about the result of a search, called by the search thread.
+	 */
+	public static interface ResultListener {
+		/**
+		 * @param discovery The finished search
+		 * @param servers Confirmed servers, as "host:port"
+		 */
+		public void searchFinished(ServerDiscovery discovery, List<String> servers);
+	}
+	
+	// results of checking the root element
+	static final int NEED_MORE_INPUT = 0;
+	static final int SCENE_DESCRIPTION = 1;
+	static final int NO_SCENE_DESCRIPTION = 2;
+	
+	private static final int READ_BUFFER_SIZE = 256;	// enough to see the root element
+	private static final byte[] UPDATE = { 'u', 'p', 'd', 'a', 't', 'e' };
+	
+	private List<InetSocketAddress> candidates;
+	private long timeout;
+	private ResultListener listener;
+	private ArrayList<String> servers = new ArrayList<String>();	// confirmed servers, as "host:port"
+	private volatile boolean abortFlag = false;
+	private volatile Selector selector = null;
+	
+	// statistics
+	private int numConnected = 0;
+	private int numRejected = 0;
+	private long searchTime = 0;
+	
+	/**
+	 * @param candidates Addresses to check
+	 * @param timeout Time after which the search is finished, in ms
+	 * @param listener Gets the result unless the search is aborted
+	 */
+	public ServerDiscovery(List<InetSocketAddress> candidates, long timeout, ResultListener listener) {
+		super(TAG);
+		this.candidates = new ArrayList<InetSocketAddress>(candidates);
+		this.timeout = timeout;
+		this.listener = listener;
+	}
+	
+	/**
+	 * Returns all hosts of the /24 subnet of the given address (without network
+	 * and broadcast address and the address itself).
+	 * 
+	 * @param address IPv4 address, in network byte order like returned by
+	 * WifiInfo.getIpAddress() on Android, i.e. first byte in the lowest bits
+	 */
+	public static List<InetSocketAddress> getSubnetCandidates(int address, int port) {
+		ArrayList<InetSocketAddress> candidates = new ArrayList<InetSocketAddress>(253);
+		byte[] bytes = { (byte) address, (byte) (address >> 8), (byte) (address >> 16), 0 };
+		int own = (address >> 24) & 0xFF;
+		for (int host = 1; host < 255; host++) {
+			if (host == own)
+				continue;
+			bytes[3] = (byte) host;
+			try {
+				candidates.add(new InetSocketAddress(InetAddress.getByAddress(bytes), port));
+			} catch (UnknownHostException e) {
+				// can not happen for 4 byte addresses
+			}
+		}
+		return candidates;
+	}
+	
+	/**
+	 * Stops searching, no results are sent.
+	 */
+	public void abort() {
+		abortFlag = true;
+		Selector s = selector;
+		if (s != null)
+			s.wakeup();
+	}
+	
+	/**
+	 * @return Confirmed servers, as "host:port", valid once the search is finished
+	 */
+	public List<String> getServers() {
+		return servers;
+	}
+	
+	/**
+	 * @return Number of candidates that answered with something else than a
+	 * scene description, valid after the thread has finished
+	 */
+	public int getNumRejected() {
+		return numRejected;
+	}
+	
+	/**
+	 * @return Duration of the search in ms, valid after the thread has finished
+	 */
+	public long getSearchTime() {
+		return searchTime;
+	}
+	
+	@Override
+	public void run() {
+		Log.d(TAG, "(" + this.getId() + ") HELLO");
+		
+		long startTime = System.nanoTime();
+		try {
+			selector = Selector.open();
+			try {
+				search(startTime + timeout * 1000000);
+			} finally {
+				for (SelectionKey key : selector.keys()) {
+					closeQuietly((SocketChannel) key.channel());
+				}
+				selector.close();
+			}
+		} catch (IOException e) {
+			Log.d(TAG, "(" + this.getId() + ") could not search: " + e.getMessage());
+		}
+		searchTime = (System.nanoTime() - startTime) / 1000000;
+		
+		if (!abortFlag)
+			listener.searchFinished(this, servers);
+		Log.d(TAG, "(" + this.getId() + ") " + toString());
+		Log.d(TAG, "(" + this.getId() + ") GOOD BYE");
+	}
+	
+	private void search(long deadline) throws IOException {
+		int next = 0;
+		int numPending = 0;
+		while (!abortFlag) {
+			// start connects, at most MAX_CONCURRENT_CONNECTS at once
+			while (next < candidates.size() && numPending < MAX_CONCURRENT_CONNECTS) {
+				if (startConnect(candidates.get(next++)))
+					numPending++;
+			}
+			if (numPending == 0)
+				break;
+			
+			long remaining = (deadline - System.nanoTime()) / 1000000;
+			if (remaining <= 0)
+				break;
+			selector.select(remaining);
+			
+			Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+			while (it.hasNext()) {
+				SelectionKey key = it.next();
+				it.remove();
+				if (!handle(key)) {
+					key.cancel();
+					closeQuietly((SocketChannel) key.channel());
+					numPending--;
+				}
+			}
+		}
+	}
+	
+	// returns true if the candidate is pending
+	private boolean startConnect(InetSocketAddress address) {
+		SocketChannel channel = null;
+		try {
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			if (channel.connect(address)) {
+				numConnected++;
+				channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(READ_BUFFER_SIZE));
+			} else {
+				channel.register(selector, SelectionKey.OP_CONNECT, ByteBuffer.allocate(READ_BUFFER_SIZE));
+			}
+			return true;
+		} catch (IOException e) {
+			if (channel != null)
+				closeQuietly(channel);
+			return false;
+		}
+	}
+	
+	// returns false if the candidate is done
+	private boolean handle(SelectionKey key) {
+		SocketChannel channel = (SocketChannel) key.channel();
+		ByteBuffer buffer = (ByteBuffer) key.attachment();
+		try {
+			if (key.isConnectable()) {
+				if (!channel.finishConnect())
+					return true;
+				numConnected++;
+				key.interestOps(SelectionKey.OP_READ);
+				return true;
+			}
+			
+			// read beginning of first chunk
+			int numBytes = channel.read(buffer);
+			int check = checkRootElement(buffer.array(), buffer.position());
+			if (check == NEED_MORE_INPUT && numBytes >= 0 && buffer.hasRemaining())
+				return true;
+			if (check == SCENE_DESCRIPTION) {
+				InetSocketAddress address = (InetSocketAddress) channel.socket().getRemoteSocketAddress();
+				servers.add(address.getAddress().getHostAddress() + ":" + address.getPort());
+			} else {
+				numRejected++;
+			}
+		} catch (IOException e) {
+			// not reachable or connection reset
+		}
+		return false;
+	}
+	
+	/**
+	 * Checks whether the first chunk of a connection is a scene description,
+	 * i.e. its root element is an update element (like {@link XmlInputThread}
+	 * expects). An xml declaration, processing instructions, comments and
+	 * whitespace before the root element are skipped.
+	 * 
+	 * @param data Beginning of the first chunk
+	 * @param length Number of valid bytes in data
+	 * @return NEED_MORE_INPUT, SCENE_DESCRIPTION or NO_SCENE_DESCRIPTION
+	 */
+	static int checkRootElement(byte[] data, int length) {
+		int pos = 0;
+		while (true) {
+			// skip whitespace
+			while (pos < length && (data[pos] == ' ' || data[pos] == '\t' || data[pos] == '\r' || data[pos] == '\n'))
+				pos++;
+			if (pos == length)
+				return NEED_MORE_INPUT;
+			if (data[pos] != '<')
+				return NO_SCENE_DESCRIPTION;	// not xml or end of chunk
+			if (pos + 1 == length)
+				return NEED_MORE_INPUT;
+			
+			// skip declaration, processing instructions and comments
+			byte first = data[pos + 1];
+			if (first == '?' || first == '!') {
+				while (pos < length && data[pos] != '>') {
+					if (data[pos] == '\0')
+						return NO_SCENE_DESCRIPTION;
+					pos++;
+				}
+				if (pos == length)
+					return NEED_MORE_INPUT;
+				pos++;
+				continue;
+			}
+			
+			// root element
+			pos++;
+			for (int i = 0; i < UPDATE.length; i++, pos++) {
+				if (pos == length)
+					return NEED_MORE_INPUT;
+				if (data[pos] != UPDATE[i])
+					return NO_SCENE_DESCRIPTION;
+			}
+			if (pos == length)
+				return NEED_MORE_INPUT;
+			byte after = data[pos];
+			return (after == '>' || after == '/' || after == ' ' || after == '\t' || after == '\r' || after == '\n') 
+					? SCENE_DESCRIPTION : NO_SCENE_DESCRIPTION;
+		}
+	}
+	
+	private static void closeQuietly(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			Log.d(TAG, "exception on socket channel close(): " + e.getMessage());
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "candidates: " + candidates.size() + ", connected: " + numConnected + ", rejected: " + numRejected 
+				+ ", servers: " + servers.toString() + ", search time: " + searchTime + " ms";
+	}
+}
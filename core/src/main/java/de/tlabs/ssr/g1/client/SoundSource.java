@@ -0,0 +1,160 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+/**
+ * Class representing a sound source in an audio scene.
+ * 
+ * @author Peter Bartz
+ */
+public class SoundSource extends Entity {
+	protected static final String TAG = "SoundSource";
+	
+	protected String id;
+	protected String name;
+	protected SourceModel sourceModel;
+	protected String audioFile;
+	// volume, level, normalized level ([-60dB, 12dB] -> [0.0, 1.0]) and mute state are kept in the entity store
+	
+	public static enum SourceModel {
+		POINT,
+		PLANE
+	}
+	
+	public SoundSource(String id) {
+		this(id, new EntityStore(1));
+	}
+	
+	// new source in a slot of the given store, e.g. a staging store
+	SoundSource(String id, EntityStore store) {
+		super(store);
+		setId(id);
+		setName("<unnamed>");
+		setSourceModel(SourceModel.POINT);
+		setAudioFile(null);
+		setVolume(0.0f);
+		setMuted(false);
+		setPositionFixed(false);
+	}
+
+	public SoundSource(float posX, float posY, String id, String name, SourceModel sourceModel, String audioFile, float volume, boolean muted) {
+		super(posX, posY);
+		setId(id);
+		setName(name);
+		setSourceModel(sourceModel);
+		setAudioFile(audioFile);
+		setVolume(volume);
+		setMuted(muted);
+		setPositionFixed(false);
+	}
+	
+	// view on an existing slot, e.g. of a snapshot
+	SoundSource(EntityStore store, int handle) {
+		super(store, handle);
+	}
+	
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public SourceModel getSourceModel() {
+		return sourceModel;
+	}
+
+	public void setSourceModel(SourceModel sourceModel) {
+		this.sourceModel = sourceModel;
+	}
+
+	public String getAudioFile() {
+		return audioFile;
+	}
+
+	public void setAudioFile(String audioFile) {
+		this.audioFile = audioFile;
+	}
+
+	public float getVolume() {
+		return store.volume[handle];
+	}
+
+	public void setVolume(float volume) {
+		store.volume[handle] = volume;
+	}
+
+	public float getLevel() {
+		return store.level[handle];
+	}
+
+	public void setLevel(float level) {
+		float normalizedLevel = (level + 60.0f) / 72.0f; // 12dB headroom
+		if (normalizedLevel < 0.0f) normalizedLevel = 0.0f;
+		else if (normalizedLevel > 1.0f) normalizedLevel = 1.0f;
+		store.level[handle] = level;
+		store.normalizedLevel[handle] = normalizedLevel;
+	}
+
+	public boolean isMuted() {
+		return (store.flags[handle] & EntityStore.MUTED) != 0;
+	}
+
+	public void setMuted(boolean muted) {
+		if (muted) {
+			store.flags[handle] |= EntityStore.MUTED;
+		} else {
+			store.flags[handle] &= ~EntityStore.MUTED;
+		}
+	}
+	
+	/**
+	 * Copies only the attributes not kept in the entity store (id, name, etc.).
+	 */
+	void copyAttributesFrom(SoundSource soundSource) {
+		id = soundSource.id;
+		name = soundSource.name;
+		sourceModel = soundSource.sourceModel;
+		audioFile = soundSource.audioFile;
+	}
+}
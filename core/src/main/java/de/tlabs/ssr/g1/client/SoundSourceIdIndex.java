@@ -0,0 +1,191 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+/**
+ * Hash index of sound sources by id (open addressing, linear probing). Ids
+ * can be looked up as String or straight from a byte range of ASCII
+ * characters, e.g. within a received xml chunk, without creating a String.
+ * The id of a source must not change while the source is in the index. If
+ * several sources share an id, the index holds the first one added.
+ */
+public class SoundSourceIdIndex {
+	private static final int INITIAL_CAPACITY = 64;	// must be a power of two
+	
+	private SoundSource[] table;
+	private int mask;
+	private int size = 0;
+	
+	public SoundSourceIdIndex() {
+		table = new SoundSource[INITIAL_CAPACITY];
+		mask = INITIAL_CAPACITY - 1;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Adds a source to the index.
+	 * 
+	 * @return false if source has no id or a source with the same id is already indexed
+	 */
+	public boolean add(SoundSource soundSource) {
+		String id = soundSource.getId();
+		if (id == null)
+			return false;
+		
+		// keep load factor below 0.5
+		if ((size + 1) * 2 > table.length)
+			resize(table.length * 2);
+		
+		int i = spread(id.hashCode()) & mask;
+		while (table[i] != null) {
+			if (table[i].getId().equals(id))
+				return false;
+			i = (i + 1) & mask;
+		}
+		table[i] = soundSource;
+		size++;
+		return true;
+	}
+	
+	/**
+	 * Removes a source from the index.
+	 * 
+	 * @return false if source was not indexed
+	 */
+	public boolean remove(SoundSource soundSource) {
+		String id = soundSource.getId();
+		if (id == null)
+			return false;
+		
+		int i = spread(id.hashCode()) & mask;
+		while (table[i] != soundSource) {
+			if (table[i] == null)
+				return false;
+			i = (i + 1) & mask;
+		}
+		
+		// remove and shift following entries of the probe sequence back into the gap
+		int gap = i;
+		table[gap] = null;
+		i = (i + 1) & mask;
+		while (table[i] != null) {
+			int home = spread(table[i].getId().hashCode()) & mask;
+			// can entry i be moved into the gap? (home not within (gap, i], cyclically)
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				table[gap] = table[i];
+				table[i] = null;
+				gap = i;
+			}
+			i = (i + 1) & mask;
+		}
+		size--;
+		return true;
+	}
+	
+	public void clear() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = null;
+		}
+		size = 0;
+	}
+	
+	public SoundSource get(String id) {
+		if (id == null)
+			return null;
+		
+		int i = spread(id.hashCode()) & mask;
+		SoundSource s;
+		while ((s = table[i]) != null) {
+			if (s.getId().equals(id))
+				return s;
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+	
+	/**
+	 * Looks up an id given as ASCII bytes.
+	 * 
+	 * @param data Array containing the id
+	 * @param start Index of first byte of id
+	 * @param end Index after last byte of id
+	 */
+	public SoundSource get(byte[] data, int start, int end) {
+		// same hash as String.hashCode() for ASCII characters
+		int hash = 0;
+		for (int j = start; j < end; j++) {
+			hash = 31 * hash + (data[j] & 0xFF);
+		}
+		
+		int length = end - start;
+		int i = spread(hash) & mask;
+		SoundSource s;
+		while ((s = table[i]) != null) {
+			String id = s.getId();
+			if (id.length() == length) {
+				int j = 0;
+				while (j < length && id.charAt(j) == (data[start + j] & 0xFF))
+					j++;
+				if (j == length)
+					return s;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+	
+	private void resize(int capacity) {
+		SoundSource[] oldTable = table;
+		table = new SoundSource[capacity];
+		mask = capacity - 1;
+		for (int j = 0; j < oldTable.length; j++) {
+			SoundSource s = oldTable[j];
+			if (s == null)
+				continue;
+			int i = spread(s.getId().hashCode()) & mask;
+			while (table[i] != null)
+				i = (i + 1) & mask;
+			table[i] = s;
+		}
+	}
+	
+	// mix high bits into low bits, short ids tend to differ in the last character only
+	private static int spread(int hash) {
+		hash ^= (hash >>> 16);
+		hash *= 0x85EBCA6B;
+		return hash ^ (hash >>> 13);
+	}
+}
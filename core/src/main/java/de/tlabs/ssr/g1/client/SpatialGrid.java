@@ -0,0 +1,299 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+/**
+ * Uniform grid over the positions of the entities of an {@link EntityStore},
+ * for nearest neighbour and radius queries (e.g. hit tests). The grid is
+ * unbounded, cells are hashed into a fixed number of buckets. Each bucket is a
+ * doubly linked list of entity handles kept in int arrays, so moving an entity
+ * costs constant time and the whole grid can be copied array by array.
+ * The grid is maintained by the store, which calls {@link #update(int)}
+ * whenever a position changes.
+ * Queries covering more cells than there are entities fall back to a linear
+ * scan, so they are never slower than without the grid.
+ */
+public class SpatialGrid {
+	public static final float DEFAULT_CELL_SIZE = 1.0f;	// in meters
+	
+	private static final int NONE = -1;
+	private static final int MIN_NUM_BUCKETS = 64;	// must be a power of two
+	
+	private EntityStore store;
+	private float cellSize;
+	private float inverseCellSize;
+	private int[] bucketHeads;
+	private int bucketMask;
+	// per handle
+	private int[] next;
+	private int[] prev;
+	private int[] bucketOf;
+	
+	public SpatialGrid(EntityStore store, float cellSize, int capacity) {
+		this.store = store;
+		this.cellSize = cellSize;
+		this.inverseCellSize = 1.0f / cellSize;
+		next = new int[capacity];
+		prev = new int[capacity];
+		bucketOf = new int[capacity];
+		setNumBuckets(numBucketsFor(capacity));
+	}
+	
+	public float getCellSize() {
+		return cellSize;
+	}
+	
+	/**
+	 * Finds the entity nearest to the given point, within the given distance.
+	 * 
+	 * @return Handle of nearest entity or -1 if there is none within maxDistance
+	 */
+	public int findNearest(float x, float y, float maxDistance) {
+		float[] xs = store.x;
+		float[] ys = store.y;
+		float bestDistance = maxDistance * maxDistance;
+		int best = NONE;
+		
+		int cx0 = cell(x - maxDistance);
+		int cx1 = cell(x + maxDistance);
+		int cy0 = cell(y - maxDistance);
+		int cy1 = cell(y + maxDistance);
+		if (maxDistance == Float.POSITIVE_INFINITY || isTooLarge(cx0, cx1, cy0, cy1)) {
+			// linear scan
+			int size = store.size();
+			for (int h = 0; h < size; h++) {
+				float dX = xs[h] - x;
+				float dY = ys[h] - y;
+				float distance = dX*dX + dY*dY;
+				if (distance <= bestDistance) {
+					bestDistance = distance;
+					best = h;
+				}
+			}
+			return best;
+		}
+		
+		for (int cx = cx0; cx <= cx1; cx++) {
+			for (int cy = cy0; cy <= cy1; cy++) {
+				for (int h = bucketHeads[bucket(cx, cy)]; h != NONE; h = next[h]) {
+					float dX = xs[h] - x;
+					float dY = ys[h] - y;
+					float distance = dX*dX + dY*dY;
+					if (distance <= bestDistance) {
+						bestDistance = distance;
+						best = h;
+					}
+				}
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Finds all entities within the given distance of a point.
+	 * 
+	 * @param result Array for the handles of the found entities, large enough for all entities
+	 * @return Number of found entities
+	 */
+	public int findWithin(float x, float y, float radius, int[] result) {
+		float[] xs = store.x;
+		float[] ys = store.y;
+		float radius2 = radius * radius;
+		int num = 0;
+		
+		int cx0 = cell(x - radius);
+		int cx1 = cell(x + radius);
+		int cy0 = cell(y - radius);
+		int cy1 = cell(y + radius);
+		if (radius == Float.POSITIVE_INFINITY || isTooLarge(cx0, cx1, cy0, cy1)) {
+			// linear scan
+			int size = store.size();
+			for (int h = 0; h < size; h++) {
+				float dX = xs[h] - x;
+				float dY = ys[h] - y;
+				if (dX*dX + dY*dY <= radius2)
+					result[num++] = h;
+			}
+			return num;
+		}
+		
+		for (int cx = cx0; cx <= cx1; cx++) {
+			for (int cy = cy0; cy <= cy1; cy++) {
+				for (int h = bucketHeads[bucket(cx, cy)]; h != NONE; h = next[h]) {
+					// several cells can share a bucket, count each entity only in its own cell
+					if (cell(xs[h]) != cx || cell(ys[h]) != cy)
+						continue;
+					float dX = xs[h] - x;
+					float dY = ys[h] - y;
+					if (dX*dX + dY*dY <= radius2)
+						result[num++] = h;
+				}
+			}
+		}
+		return num;
+	}
+	
+	/**
+	 * Inserts an entity that was just added to the store.
+	 */
+	void insert(int handle) {
+		link(handle, bucket(cell(store.x[handle]), cell(store.y[handle])));
+	}
+	
+	/**
+	 * Removes an entity, must be called before its slot is freed or reused.
+	 */
+	void remove(int handle) {
+		unlink(handle);
+	}
+	
+	/**
+	 * Moves an entity to the bucket matching its current position.
+	 */
+	void update(int handle) {
+		int b = bucket(cell(store.x[handle]), cell(store.y[handle]));
+		if (b != bucketOf[handle]) {
+			unlink(handle);
+			link(handle, b);
+		}
+	}
+	
+	void clear() {
+		for (int i = 0; i < bucketHeads.length; i++) {
+			bucketHeads[i] = NONE;
+		}
+	}
+	
+	/**
+	 * Adapts per entity arrays to a new capacity of the store. Keeps the
+	 * number of buckets proportional to the capacity.
+	 */
+	void setCapacity(int capacity, int size) {
+		int[] oldNext = next, oldPrev = prev, oldBucketOf = bucketOf;
+		next = new int[capacity];
+		prev = new int[capacity];
+		bucketOf = new int[capacity];
+		System.arraycopy(oldNext, 0, next, 0, size);
+		System.arraycopy(oldPrev, 0, prev, 0, size);
+		System.arraycopy(oldBucketOf, 0, bucketOf, 0, size);
+		
+		int numBuckets = numBucketsFor(capacity);
+		if (numBuckets != bucketHeads.length) {
+			setNumBuckets(numBuckets);
+			for (int h = 0; h < size; h++)
+				insert(h);
+		}
+	}
+	
+	/**
+	 * Makes this grid a copy of another one (with the same capacity as this).
+	 */
+	void copyFrom(SpatialGrid src, int size) {
+		if (bucketHeads.length != src.bucketHeads.length)
+			setNumBuckets(src.bucketHeads.length);
+		cellSize = src.cellSize;
+		inverseCellSize = src.inverseCellSize;
+		System.arraycopy(src.bucketHeads, 0, bucketHeads, 0, bucketHeads.length);
+		System.arraycopy(src.next, 0, next, 0, size);
+		System.arraycopy(src.prev, 0, prev, 0, size);
+		System.arraycopy(src.bucketOf, 0, bucketOf, 0, size);
+	}
+	
+	/**
+	 * Handle of an entity changed from oldHandle to newHandle (values were copied already).
+	 */
+	void move(int oldHandle, int newHandle) {
+		int b = bucketOf[oldHandle];
+		int p = prev[oldHandle];
+		int n = next[oldHandle];
+		bucketOf[newHandle] = b;
+		prev[newHandle] = p;
+		next[newHandle] = n;
+		if (p != NONE) {
+			next[p] = newHandle;
+		} else {
+			bucketHeads[b] = newHandle;
+		}
+		if (n != NONE)
+			prev[n] = newHandle;
+	}
+	
+	private void link(int handle, int b) {
+		int head = bucketHeads[b];
+		bucketOf[handle] = b;
+		prev[handle] = NONE;
+		next[handle] = head;
+		if (head != NONE)
+			prev[head] = handle;
+		bucketHeads[b] = handle;
+	}
+	
+	private void unlink(int handle) {
+		int p = prev[handle];
+		int n = next[handle];
+		if (p != NONE) {
+			next[p] = n;
+		} else {
+			bucketHeads[bucketOf[handle]] = n;
+		}
+		if (n != NONE)
+			prev[n] = p;
+	}
+	
+	private boolean isTooLarge(int cx0, int cx1, int cy0, int cy1) {
+		// also catches overflow for huge coordinates
+		long numCells = ((long) cx1 - cx0 + 1) * ((long) cy1 - cy0 + 1);
+		return numCells > store.size() || numCells > bucketHeads.length;
+	}
+	
+	private int cell(float coordinate) {
+		return (int) Math.floor(coordinate * inverseCellSize);
+	}
+	
+	private int bucket(int cx, int cy) {
+		return ((cx * 73856093) ^ (cy * 19349663)) & bucketMask;
+	}
+	
+	private void setNumBuckets(int numBuckets) {
+		bucketHeads = new int[numBuckets];
+		bucketMask = numBuckets - 1;
+		clear();
+	}
+	
+	private static int numBucketsFor(int capacity) {
+		int numBuckets = MIN_NUM_BUCKETS;
+		while (numBuckets < capacity * 2)
+			numBuckets *= 2;
+		return numBuckets;
+	}
+}
@@ -0,0 +1,340 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+import de.tub.tlabs.android.utils.Log;
+import de.tub.tlabs.android.utils.StringHelper;
+
+/**
+ * Class to split a continuous channel input into chunks, without copying.
+ * A split is done every time a '\0' character is encountered. The split
+ * character is dropped before passing the chunk.
+ * Data is read straight from the channel into one reusable buffer, the current
+ * chunk is handed out as a view on that buffer. Data is only moved to the front
+ * of the buffer when a chunk crosses the end of the buffer, the buffer only grows
+ * if a single chunk does not fit into it.
+ * Replaces {@link XMLChunkInputStream}, which copies every byte twice.
+ * Non-blocking channels are waited for with a {@link Selector}, reads can then
+ * time out and be aborted from another thread at any time.
+ */
+public class XMLChunkChannelInputStream extends InputStream {
+	private static final String TAG = "XMLChunkChannelInputStream";
+	private static final int DEFAULT_BUFFER_SIZE = 32 * 1024; // 32 kbytes
+	private static final int LOG_LINE_LENGTH = 100;
+
+	private ReadableByteChannel channel;
+	private boolean directBuffer;
+	private ByteBuffer buffer;	// channel input, valid content from index 0 to dataEnd
+	private byte[] bufferArray;	// backing array of buffer, null if buffer is direct
+	private ByteBuffer chunk;	// view on buffer, position/limit mark current chunk
+	private int nextChunkStart;	// start index of first unconsumed chunk
+	private int scanPos;		// first index not yet searched for a delimiter
+	private int dataEnd;		// first unused index
+	private volatile Selector selector = null;	// waits for input of non-blocking channel
+	private SelectionKey selectionKey = null;
+	private long readTimeout = 0;	// in ms, 0 waits forever
+	private volatile boolean aborted = false;
+
+	public boolean printToLog = false;
+
+	public XMLChunkChannelInputStream(ReadableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE, false);
+	}
+
+	/**
+	 * @param channel Channel to read from
+	 * @param bufferSize Initial buffer size, should be larger than the usual chunk
+	 * @param directBuffer Allocate a direct buffer? Faster channel reads, but slower
+	 * access through the {@link InputStream} methods.
+	 */
+	public XMLChunkChannelInputStream(ReadableByteChannel channel, int bufferSize, boolean directBuffer) {
+		this.channel = channel;
+		this.directBuffer = directBuffer;
+		allocateBuffer(bufferSize);
+		this.nextChunkStart = 0;
+		this.scanPos = 0;
+		this.dataEnd = 0;
+		this.chunk.limit(0);
+	}
+
+	/**
+	 * Continues on a new channel, e.g. after a reconnect. Buffered data of the old
+	 * channel is discarded, the buffer is kept.
+	 */
+	public void setChannel(ReadableByteChannel channel) {
+		this.channel = channel;
+		this.nextChunkStart = 0;
+		this.scanPos = 0;
+		this.dataEnd = 0;
+		this.chunk.clear();
+		this.chunk.limit(0);
+	}
+
+	/**
+	 * Continues on a new non-blocking channel. Reads wait for input with the given
+	 * selector, the channel is registered with it (and the old one deregistered).
+	 * 
+	 * @param readTimeout Time without any input after which reading fails with a
+	 * {@link SocketTimeoutException}, in ms, 0 waits forever
+	 */
+	public void setChannel(SelectableChannel channel, Selector selector, long readTimeout) throws IOException {
+		releaseChannel();
+		selectionKey = channel.register(selector, SelectionKey.OP_READ);
+		this.selector = selector;
+		this.readTimeout = readTimeout;
+		setChannel((ReadableByteChannel) channel);
+	}
+
+	/**
+	 * Deregisters the current channel from the selector, if any. Does not close the channel.
+	 */
+	public void releaseChannel() {
+		if (selectionKey != null) {
+			selectionKey.cancel();
+			selectionKey = null;
+		}
+	}
+
+	/**
+	 * Makes the current and all following reads from a non-blocking channel fail 
+	 * with an {@link InterruptedIOException}. Can be called from any thread.
+	 */
+	public void abort() {
+		aborted = true;
+		Selector s = selector;
+		if (s != null)
+			s.wakeup();
+	}
+
+	/**
+	 * Reads from the channel until the next complete chunk is available.
+	 *
+	 * @return false if end of stream was reached
+	 * @throws IOException
+	 */
+	public boolean bufferNextChunk() throws IOException {
+		int delimiterPos;
+
+		// read input data until delimiter is encountered
+		while ((delimiterPos = findDelimiter()) == -1) {
+			if (fillBuffer() == -1)
+				return false;
+		}
+
+		// set chunk view (skip '\0')
+		chunk.clear();
+		chunk.limit(delimiterPos);
+		chunk.position(nextChunkStart);
+		nextChunkStart = delimiterPos + 1;
+		scanPos = nextChunkStart;
+
+		// print to log
+		if (printToLog) {
+			logChunk();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks whether another complete chunk is already in the buffer, i.e. whether
+	 * the next call to {@link #bufferNextChunk()} will return without blocking.
+	 */
+	public boolean hasBufferedChunk() {
+		return findDelimiter() != -1;
+	}
+
+	/**
+	 * Returns the current chunk as a view on the internal buffer. Position and
+	 * limit of the view mark the chunk. The content is only valid until the next
+	 * call to {@link #bufferNextChunk()}.
+	 */
+	public ByteBuffer getChunk() {
+		return chunk;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!chunk.hasRemaining())
+			return -1;
+		return chunk.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int remaining = chunk.remaining();
+		if (remaining == 0)
+			return -1;
+		if (len > remaining)
+			len = remaining;
+		chunk.get(b, off, len);
+		return len;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		int skipped = (int) Math.min(n, chunk.remaining());
+		if (skipped <= 0)
+			return 0;
+		chunk.position(chunk.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return chunk.remaining();
+	}
+
+	// returns index of next delimiter or -1 if there is no complete chunk in the buffer
+	private int findDelimiter() {
+		if (bufferArray != null) {
+			byte[] array = bufferArray;
+			for (int i = scanPos; i < dataEnd; i++) {
+				if (array[i] == '\0')
+					return scanPos = i;
+			}
+		} else {
+			for (int i = scanPos; i < dataEnd; i++) {
+				if (buffer.get(i) == '\0')
+					return scanPos = i;
+			}
+		}
+
+		// remember how far we got
+		scanPos = dataEnd;
+		return -1;
+	}
+
+	private int fillBuffer() throws IOException {
+		if (nextChunkStart == dataEnd) {
+			// everything consumed, start at the beginning again (no copying needed)
+			nextChunkStart = 0;
+			scanPos = 0;
+			dataEnd = 0;
+		} else if (dataEnd == buffer.capacity()) {
+			// incomplete chunk crosses the end of the buffer
+			if (nextChunkStart > 0) {
+				compactBuffer();
+			} else {
+				// chunk does not fit into buffer at all
+				growBuffer();
+			}
+		}
+
+		buffer.limit(buffer.capacity());
+		buffer.position(dataEnd);
+		int numBytes = channel.read(buffer);
+		if (selector != null) {
+			// non-blocking channel, wait until there is input
+			while (numBytes == 0) {
+				waitForInput();
+				numBytes = channel.read(buffer);
+			}
+		}
+		if (numBytes > 0)
+			dataEnd += numBytes;
+
+		return numBytes;
+	}
+
+	private void waitForInput() throws IOException {
+		long startTime = System.nanoTime();
+		while (true) {
+			if (aborted)
+				throw new InterruptedIOException("aborted");
+			long remaining = 0;
+			if (readTimeout > 0) {
+				remaining = readTimeout - (System.nanoTime() - startTime) / 1000000;
+				if (remaining <= 0)
+					throw new SocketTimeoutException("no input for " + readTimeout + " ms");
+			}
+			int numSelected = selector.select(remaining);
+			selector.selectedKeys().clear();
+			if (numSelected > 0)
+				return;
+		}
+	}
+
+	// move incomplete chunk to the front of the buffer
+	private void compactBuffer() {
+		buffer.limit(dataEnd);
+		buffer.position(nextChunkStart);
+		buffer.compact();
+
+		scanPos -= nextChunkStart;
+		dataEnd -= nextChunkStart;
+		nextChunkStart = 0;
+	}
+
+	private void growBuffer() {
+		ByteBuffer oldBuffer = buffer;
+
+		Log.d(TAG, "chunk larger than " + oldBuffer.capacity() + " bytes, growing buffer");
+		allocateBuffer(oldBuffer.capacity() * 2);
+		oldBuffer.limit(dataEnd);
+		oldBuffer.position(0);
+		buffer.put(oldBuffer);
+	}
+
+	private void allocateBuffer(int size) {
+		if (directBuffer) {
+			buffer = ByteBuffer.allocateDirect(size);
+			bufferArray = null;
+		} else {
+			buffer = ByteBuffer.allocate(size);
+			bufferArray = buffer.array();
+		}
+		chunk = buffer.duplicate();
+	}
+
+	private void logChunk() {
+		byte[] line = new byte[LOG_LINE_LENGTH];
+		ByteBuffer logView = chunk.duplicate();
+		while (logView.hasRemaining()) {
+			int length = Math.min(LOG_LINE_LENGTH, logView.remaining());
+			logView.get(line, 0, length);
+			Log.d(TAG, StringHelper.asciiString(line, 0, length));
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * A thread constantly reading and parsing a socket xml input stream.
+ * 
+ * @author Peter Bartz
+ */
+public class XmlInputThread extends Thread {
+	private static final String TAG = "XmlInputThread";
+	
+	private volatile boolean abortFlag = false;
+	public boolean streamingParseEnabled = true;	// parse all updates of the connection with one parse() call?
+	private ConnectionManager connectionManager;
+	// reads straight from the channel, no copying (the channel is set per session)
+	private XMLChunkChannelInputStream xmlChunkInputStream = new XMLChunkChannelInputStream(null);
+	private AttributeDecoder attributeDecoder = new AttributeDecoder();
+	private SceneUpdateScanner sceneUpdateScanner = null;
+	private SceneMutationBatch sceneMutationBatch = null;
+	private int numSessions = 0;
+	private AudioScene audioScene;
+	private ConnectionListener listener;
+
+	public XmlInputThread(ConnectionManager connectionManager) {
+		super(TAG);
+		this.connectionManager = connectionManager;
+		this.audioScene = connectionManager.getAudioScene();
+		this.listener = connectionManager.getListener();
+	}
+	
+	/**
+	 * Stops the thread as soon as possible, also while it waits for input. Can be
+	 * called from any thread. Does not close the connection.
+	 */
+	public void abort() {
+		abortFlag = true;
+		xmlChunkInputStream.abort();
+	}
+
+	/**
+	 * Parses input of the connection until aborted. If the connection is lost, the
+	 * input can not be parsed or there was no input for the read timeout, the 
+	 * connection manager reconnects and parsing continues with the same parser and
+	 * buffers on the new connection. Each connection is a session: its channel is
+	 * registered with the selector of this thread while the session lasts and 
+	 * deregistered when it ends (the connection manager closes it).
+	 */
+	@Override
+	public void run() {
+		Log.d(TAG, "(" + this.getId() + ") HELLO");
+
+		try {
+			// create sax parser
+			SAXParserFactory spf = SAXParserFactory.newInstance(); 
+			spf.setNamespaceAware(true);	// the handlers need local names (Android reports them anyway)
+			SAXParser sp = spf.newSAXParser(); 
+
+			// get an xml reader 
+			XMLReader xr = sp.getXMLReader();
+
+			// set up xml input source
+			InputSource inputSource = new InputSource(xmlChunkInputStream);
+			
+			// scene changes are collected and applied in batches, to hold the scene lock only briefly
+			sceneMutationBatch = new SceneMutationBatch(audioScene);
+			
+			// create handlers for scene description and updates
+			SceneDescrXMLHandler sceneDescrXMLHandler = new SceneDescrXMLHandler(audioScene, 
+					attributeDecoder, sceneMutationBatch); 
+			SceneUpdateXMLHandler sceneUpdateXMLHandler = new SceneUpdateXMLHandler(audioScene, 
+					attributeDecoder, sceneMutationBatch); 
+			
+			// create scanner for the common scene updates
+			sceneUpdateScanner = new SceneUpdateScanner(audioScene, attributeDecoder, sceneMutationBatch);
+			ContinuousChunkInputStream updateStream = new ContinuousChunkInputStream(xmlChunkInputStream, 
+					sceneUpdateScanner, sceneMutationBatch) {
+				@Override
+				protected boolean isAborted() {
+					return XmlInputThread.this.isAborted();
+				}
+			};
+			
+			// input of all sessions is waited for with one selector, which abort() wakes up
+			Selector selector = Selector.open();
+			try {
+				SocketChannel socketChannel = connectionManager.getSocketChannel();
+				while (socketChannel != null && !isAborted()) {
+					// session
+					String error;
+					try {
+						xmlChunkInputStream.setChannel(socketChannel, selector, connectionManager.getReadTimeout());
+						updateStream.reset();
+						parseSession(xr, xmlChunkInputStream, inputSource, sceneDescrXMLHandler, 
+								sceneUpdateXMLHandler, updateStream);
+						error = "connection closed by server";
+					} catch (Exception e) {
+						Log.d(TAG, "(" + this.getId() + ") Exception " + e.toString() + ": " + e.getMessage());
+						error = e.getMessage();
+					} finally {
+						xmlChunkInputStream.releaseChannel();
+					}
+					
+					// check if this thread was aborted
+					if (isAborted()) {
+						Log.d(TAG, "(" + this.getId() + ") aborted");
+						break;
+					}
+					
+					// keep showing the last known scene while reconnecting
+					sceneMutationBatch.apply();
+					listener.connectionLost(error);
+					Log.d(TAG, "(" + this.getId() + ") connection lost, reconnecting");
+					socketChannel = connectionManager.reconnect();	// null if closed meanwhile
+				}
+			} finally {
+				selector.close();
+			}
+		} catch (Exception e) {
+			// parser or selector could not be set up
+			Log.d(TAG, "(" + this.getId() + ") Exception " + e.toString() + ": " + e.getMessage());
+			listener.inputFailed(e.getMessage());
+		}
+
+		if (sceneMutationBatch != null) {
+			sceneMutationBatch.apply();
+			Log.d(TAG, "(" + this.getId() + ") " + sceneMutationBatch.toString());
+		}
+		if (sceneUpdateScanner != null) {
+			Log.d(TAG, "(" + this.getId() + ") scanned chunks: " + sceneUpdateScanner.getNumScannedChunks()
+					+ ", sax fallbacks: " + sceneUpdateScanner.getNumFallbackChunks());
+		}
+		Log.d(TAG, "(" + this.getId() + ") malformed attribute values: " + attributeDecoder.getNumMalformed()
+				+ ", sessions: " + numSessions);
+		Log.d(TAG, "(" + this.getId() + ") GOOD BYE");
+	}
+	
+	/**
+	 * Parses the scene description and the following updates of one connection.
+	 * Returns when the end of the stream was reached or the thread was aborted.
+	 */
+	private void parseSession(XMLReader xr, XMLChunkChannelInputStream xmlChunkInputStream, InputSource inputSource,
+			SceneDescrXMLHandler sceneDescrXMLHandler, SceneUpdateXMLHandler sceneUpdateXMLHandler, 
+			ContinuousChunkInputStream updateStream) throws IOException, SAXException {
+		// parse scene description (replaces the scene once complete)
+		//Log.d(TAG, "(" + this.getId() + ") parsing description...");
+		//xmlChunkInputStream.printToLog = true;
+		xr.setContentHandler(sceneDescrXMLHandler);
+		sceneDescrXMLHandler.reset();
+		while (!sceneDescrXMLHandler.receivedSceneDescr()) {
+			if (!xmlChunkInputStream.bufferNextChunk())
+				return;
+			// parse and process xml input
+			xr.parse(inputSource);
+		}
+		sceneMutationBatch.apply();
+		//xmlChunkInputStream.printToLog = false;
+		connectionManager.sceneReceived();
+		
+		// signal that scene description was parsed
+		listener.sceneReceived(numSessions++ > 0);
+		
+		// parse scene updates
+		xr.setContentHandler(sceneUpdateXMLHandler);
+		if (streamingParseEnabled) {
+			// parse whole connection as one document, parser is set up only once
+			Log.d(TAG, "(" + this.getId() + ") starting streaming xml input...");
+			xr.parse(new InputSource(updateStream));
+		} else {
+			// parse every chunk as a separate document
+			Log.d(TAG, "(" + this.getId() + ") starting xml input loop...");
+			while (!isAborted()) {
+				// apply collected changes before waiting for more input
+				if (!xmlChunkInputStream.hasBufferedChunk())
+					sceneMutationBatch.apply();
+				if (!xmlChunkInputStream.bufferNextChunk())
+					break;
+				
+				// process xml input, use sax parser only if scanner does not understand the chunk
+				if (!sceneUpdateScanner.scan(xmlChunkInputStream.getChunk())) {
+					xr.parse(inputSource);
+				}
+			}
+		}
+	}
+	
+	private boolean isAborted() {
+		return abortFlag;
+	}
+}
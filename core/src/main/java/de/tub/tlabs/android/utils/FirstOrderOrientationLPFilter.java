@@ -47,11 +47,12 @@ public class FirstOrderOrientationLPFilter extends FirstOrderLPFilter {
 	}
 
 	/**
-	 * Init filter output with given value
+	 * Init filter output with given value, forgets turns across 0/360 made so far
 	 * @param value
 	 */
 	@Override
 	public void init(float value) {
+		orientationAngleCorrectionFactor = 0;
 		lastRawOrientationAngle = value;
 		super.init(value);
 	}
@@ -0,0 +1,125 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Histogram with buckets of fixed width, e.g. for latencies. Values beyond
+ * the last bucket are counted in the last bucket, the exact maximum is kept
+ * separately. Adding a value never allocates memory.
+ */
+public class Histogram {
+	private float bucketWidth;
+	private int[] counts;
+	private long count = 0;
+	private double sum = 0.0;
+	private float max = 0.0f;
+	
+	/**
+	 * @param bucketWidth Width of one bucket
+	 * @param numBuckets Number of buckets, the range covered is [0 .. bucketWidth * numBuckets)
+	 */
+	public Histogram(float bucketWidth, int numBuckets) {
+		this.bucketWidth = bucketWidth;
+		counts = new int[numBuckets];
+	}
+	
+	public synchronized void add(float value) {
+		int bucket = (int) (value / bucketWidth);
+		if (bucket < 0)
+			bucket = 0;
+		else if (bucket >= counts.length)
+			bucket = counts.length - 1;
+		counts[bucket]++;
+		if (count == 0 || value > max)
+			max = value;
+		count++;
+		sum += value;
+	}
+	
+	public synchronized long getCount() {
+		return count;
+	}
+	
+	public synchronized float getMean() {
+		return count == 0 ? 0.0f : (float) (sum / count);
+	}
+	
+	public synchronized float getMax() {
+		return max;
+	}
+	
+	/**
+	 * @param percentile [0.0 .. 100.0]
+	 * @return Upper bound of the bucket containing the given percentile, 0 if empty
+	 */
+	public synchronized float getPercentile(float percentile) {
+		if (count == 0)
+			return 0.0f;
+		long rank = (long) Math.ceil(percentile / 100.0f * count);
+		long cumulated = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulated += counts[i];
+			if (cumulated >= rank && counts[i] > 0)
+				return Math.min((i + 1) * bucketWidth, max);
+		}
+		return max;
+	}
+	
+	public synchronized void reset() {
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = 0;
+		count = 0;
+		sum = 0.0;
+		max = 0.0f;
+	}
+	
+	/**
+	 * Writes all non-empty buckets, one per line: "prefix,lower bound,upper bound,count".
+	 */
+	public synchronized void write(Writer writer, String prefix) throws IOException {
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == 0)
+				continue;
+			writer.write(prefix + "," + (i * bucketWidth) + "," + ((i + 1) * bucketWidth) + "," + counts[i] + "\n");
+		}
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "n=" + count + " p50=" + getPercentile(50.0f) + " p95=" + getPercentile(95.0f) 
+				+ " p99=" + getPercentile(99.0f) + " max=" + max;
+	}
+}
@@ -0,0 +1,60 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+/**
+ * Debug logging for code that has to run on plain Java as well as on Android,
+ * used like <code>android.util.Log</code>. Messages go to the {@link Logger}
+ * set with {@link #setLogger(Logger)} and are dropped if there is none, so
+ * benchmarks are not slowed down by logging.
+ */
+public final class Log {
+	private static volatile Logger logger = null;
+	
+	private Log() {
+	}
+	
+	public static Logger getLogger() {
+		return logger;
+	}
+	
+	public static void setLogger(Logger logger) {
+		Log.logger = logger;
+	}
+	
+	public static void d(String tag, String msg) {
+		Logger l = logger;
+		if (l != null)
+			l.d(tag, msg);
+	}
+}
@@ -0,0 +1,129 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+/**
+ * Extrapolates orientations (in degrees) into the future, based on the
+ * recent angular velocity. Used to compensate for latency between a
+ * measurement and the moment it takes effect.
+ * Orientations are unwrapped like in {@link FirstOrderOrientationLPFilter},
+ * so there are no jumps at 359/0 degrees, the returned values are unwrapped too.
+ */
+public class OrientationPredictor {
+	// velocity is reset if measurements are further apart (in s)
+	private static final float MAX_MEASUREMENT_INTERVAL = 0.5f;
+	
+	private FirstOrderLPFilter velocityFilter;
+	private float latency;	// in s
+	private float maxExtrapolation;	// in degrees
+	private float velocity = 0.0f;	// in degrees/s
+	private int orientationAngleCorrectionFactor = 0;
+	private float lastOrientationAngle;
+	private long lastTimestamp;
+	
+	/**
+	 * @param latency Time to extrapolate into the future (in s)
+	 * @param velocitySmoothing Filter strength for the angular velocity [0.0 .. 1.0], higher value filters more
+	 * @param maxExtrapolation Maximum difference between measured and predicted orientation (in degrees)
+	 */
+	public OrientationPredictor(float latency, float velocitySmoothing, float maxExtrapolation) {
+		this.latency = latency;
+		this.maxExtrapolation = maxExtrapolation;
+		velocityFilter = new FirstOrderLPFilter(velocitySmoothing);
+	}
+	
+	public void setLatency(float latency) {
+		this.latency = latency;
+	}
+	
+	public float getLatency() {
+		return latency;
+	}
+	
+	/**
+	 * @return Current estimate of angular velocity in degrees/s
+	 */
+	public float getVelocity() {
+		return velocity;
+	}
+	
+	/**
+	 * Init predictor with given orientation, velocity is reset.
+	 * 
+	 * @param orientationAngle in degrees
+	 * @param timestamp in ns
+	 */
+	public void init(float orientationAngle, long timestamp) {
+		orientationAngleCorrectionFactor = 0;
+		lastOrientationAngle = orientationAngle;
+		lastTimestamp = timestamp;
+		velocity = 0.0f;
+		velocityFilter.init(0.0f);
+	}
+	
+	/**
+	 * @param orientationAngle Measured orientation in degrees
+	 * @param timestamp Time of measurement in ns
+	 * @return Predicted (unwrapped) orientation at timestamp + latency
+	 */
+	public float predict(float orientationAngle, long timestamp) {
+		// compensate orientation angle so we have no jumps at 359/0 degrees
+		float newOrientationAngle = orientationAngle + ((float) orientationAngleCorrectionFactor * 360.0f);
+		if (lastOrientationAngle - newOrientationAngle < -180.0f) {
+			orientationAngleCorrectionFactor--;
+			newOrientationAngle -= 360.0f;
+		} else if (lastOrientationAngle - newOrientationAngle > 180.0f) {
+			orientationAngleCorrectionFactor++;
+			newOrientationAngle += 360.0f;
+		}
+		
+		// estimate angular velocity
+		float dt = (timestamp - lastTimestamp) / 1000000000.0f;
+		if (dt > MAX_MEASUREMENT_INTERVAL) {
+			velocityFilter.init(0.0f);
+			velocity = 0.0f;
+		} else if (dt > 0.0f) {
+			velocity = velocityFilter.filter((newOrientationAngle - lastOrientationAngle) / dt);
+		}
+		lastOrientationAngle = newOrientationAngle;
+		lastTimestamp = timestamp;
+		
+		// extrapolate
+		float extrapolation = velocity * latency;
+		if (extrapolation > maxExtrapolation)
+			extrapolation = maxExtrapolation;
+		else if (extrapolation < -maxExtrapolation)
+			extrapolation = -maxExtrapolation;
+		return newOrientationAngle + extrapolation;
+	}
+}
@@ -0,0 +1,112 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent values of a measurement (e.g. frame times) and
+ * calculates percentiles over them. Adding a value is cheap and never
+ * allocates memory, the values are only sorted when a percentile is asked for.
+ */
+public class PercentileRecorder {
+	private float[] values;
+	private float[] sortedValues;
+	private int next = 0;
+	private int numValues = 0;	// in window
+	private long numTotal = 0;	// since last reset
+	private float max;
+	private boolean sorted = false;
+
+	/**
+	 * @param capacity Number of most recent values to keep
+	 */
+	public PercentileRecorder(int capacity) {
+		values = new float[capacity];
+		sortedValues = new float[capacity];
+	}
+	
+	public synchronized void add(float value) {
+		values[next++] = value;
+		if (next == values.length)
+			next = 0;
+		if (numValues < values.length)
+			numValues++;
+		if (numTotal == 0 || value > max)
+			max = value;
+		numTotal++;
+		sorted = false;
+	}
+	
+	/**
+	 * @param percentile [0.0 .. 100.0]
+	 * @return Value below which the given percentage of the kept values lies (nearest rank), 0 if empty
+	 */
+	public synchronized float getPercentile(float percentile) {
+		if (numValues == 0)
+			return 0.0f;
+		if (!sorted) {
+			System.arraycopy(values, 0, sortedValues, 0, numValues);
+			Arrays.sort(sortedValues, 0, numValues);
+			sorted = true;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0f * numValues);
+		return sortedValues[Math.max(0, Math.min(numValues - 1, rank - 1))];
+	}
+	
+	/**
+	 * @return Maximum of all values since last reset
+	 */
+	public synchronized float getMax() {
+		return numTotal == 0 ? 0.0f : max;
+	}
+	
+	/**
+	 * @return Number of values added since last reset
+	 */
+	public synchronized long getNumTotal() {
+		return numTotal;
+	}
+	
+	public synchronized void reset() {
+		next = numValues = 0;
+		numTotal = 0;
+		sorted = false;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "n=" + numTotal + " p50=" + getPercentile(50.0f) + " p90=" + getPercentile(90.0f)
+				+ " p99=" + getPercentile(99.0f) + " max=" + getMax();
+	}
+}
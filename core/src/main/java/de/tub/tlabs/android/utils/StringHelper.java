@@ -32,11 +32,13 @@
 
 package de.tub.tlabs.android.utils;
 
-import android.util.Log;
+import java.nio.ByteBuffer;
 
 /**
  * Static methods to construct strings containing numbers avoiding
  * all the object creations java normally does when converting and appending using '+'.
+ * The ByteBuffer variants write ASCII bytes and never allocate, the buffer
+ * must have enough room left.
  * 
  * @author Peter Bartz
  */
@@ -45,6 +47,8 @@ public class StringHelper {
 
 	private static final int DEFAULT_NUM_DEC_PLACES = 5;
 	private static final char DEFAULT_PADDING_CHAR = '0';
+	private static final long[] POWERS_OF_TEN = new long[] { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L,
+			10000000L, 100000000L, 1000000000L };
 
 	// Convert integer value to string and concatenate to given StringBuilder.
 	public static void append(StringBuilder sb, int val, int padding, char paddingChar, int base) {
@@ -132,4 +136,97 @@ public class StringHelper {
 	public static void append(StringBuilder sb, float val, int decimalPlaces, int padding) {
 		append(sb, val, decimalPlaces, padding, DEFAULT_PADDING_CHAR);
 	}
+
+	// Write ASCII characters of given string to given ByteBuffer. Non-ASCII characters are written as '?'.
+	public static void append(ByteBuffer bb, CharSequence s) {
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			bb.put(c < 128 ? (byte) c : (byte) '?');
+		}
+	}
+
+	// Convert long value to ASCII and write to given ByteBuffer.
+	public static void append(ByteBuffer bb, long val, int padding, char paddingChar, int base) {
+		// Minus sign, count digits on the negative side to handle Long.MIN_VALUE
+		if (val < 0) {
+			bb.put((byte) '-');
+		} else {
+			val = -val;
+		}
+		
+		// Calculate length of string
+		int length = 0;
+		long lengthVal = val;
+		do {
+			lengthVal /= base;
+			length++;
+		} while (lengthVal < 0);
+
+		// Output padding
+		for (int i = length; i < padding; i++) {
+			bb.put((byte) paddingChar);
+		}
+
+		// We're writing backwards, one byte at a time
+		int end = bb.position() + length;
+		for (int i = end - 1; length > 0; i--, length--) {
+			bb.put(i, (byte) DIGITS[(int) -(val % base)]);
+			val /= base;
+		}
+		bb.position(end);
+	}
+
+	// Convert long value to ASCII and write to given ByteBuffer. Base 10 and no padding.
+	public static void append(ByteBuffer bb, long val) {
+		append(bb, val, 0, DEFAULT_PADDING_CHAR, 10);
+	}
+
+	// Convert float value to ASCII and write to given ByteBuffer. Values are rounded to the
+	// given number of decimal places (at most 9), trailing zeros are omitted.
+	public static void append(ByteBuffer bb, float val, int decimalPlaces) {
+		if (val != val) {
+			append(bb, "nan");
+			return;
+		} else if (Float.isInfinite(val)) {
+			append(bb, val < 0.0f ? "-inf" : "inf");
+			return;
+		}
+		
+		// Round once on the scaled value, so carries propagate into the integer part
+		long scale = POWERS_OF_TEN[decimalPlaces];
+		long scaled = Math.round(Math.abs((double) val) * scale);
+		long intPart = scaled / scale;
+		long fraction = scaled % scale;
+		
+		// Integer part with sign, values between -1 and 0 keep their sign
+		if (val < 0.0f && scaled != 0)
+			bb.put((byte) '-');
+		append(bb, intPart);
+		
+		// Fraction without trailing zeros
+		if (fraction != 0) {
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				decimalPlaces--;
+			}
+			bb.put((byte) '.');
+			append(bb, fraction, decimalPlaces, '0', 10);
+		}
+	}
+
+	// Convert float value to ASCII and write to given ByteBuffer. 5 decimal places.
+	public static void append(ByteBuffer bb, float val) {
+		append(bb, val, DEFAULT_NUM_DEC_PLACES);
+	}
+
+	// Decode ASCII bytes data[offset] to data[offset + length - 1], other bytes become '?'.
+	public static String asciiString(byte[] data, int offset, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			byte b = data[offset + i];
+			chars[i] = b >= 0 ? (char) b : '?';
+		}
+		return new String(chars);
+	}
 }
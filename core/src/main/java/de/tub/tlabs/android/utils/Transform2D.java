@@ -0,0 +1,141 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+/**
+ * Affine 2D transformation, the subset of <code>android.graphics.Matrix</code>
+ * needed to map points between coordinate systems. Values are laid out like
+ * in Matrix, see {@link #getValues(float[])}, so a transformation can be
+ * handed to a Canvas with <code>Matrix.setValues()</code>.
+ */
+public class Transform2D {
+	// first two rows of the matrix (the third is always 0 0 1)
+	private float scaleX, skewX, transX;
+	private float skewY, scaleY, transY;
+	
+	public Transform2D() {
+		reset();
+	}
+	
+	/**
+	 * Sets this transformation to identity.
+	 */
+	public void reset() {
+		scaleX = 1.0f; skewX = 0.0f; transX = 0.0f;
+		skewY = 0.0f; scaleY = 1.0f; transY = 0.0f;
+	}
+	
+	public void set(Transform2D t) {
+		scaleX = t.scaleX; skewX = t.skewX; transX = t.transX;
+		skewY = t.skewY; scaleY = t.scaleY; transY = t.transY;
+	}
+	
+	/**
+	 * Concatenates a rotation: this = this * R(degrees).
+	 */
+	public void preRotate(float degrees) {
+		double radians = Math.toRadians(degrees);
+		float sin = (float) Math.sin(radians);
+		float cos = (float) Math.cos(radians);
+		float newScaleX = scaleX * cos + skewX * sin;
+		float newSkewX = -scaleX * sin + skewX * cos;
+		float newSkewY = skewY * cos + scaleY * sin;
+		float newScaleY = -skewY * sin + scaleY * cos;
+		scaleX = newScaleX; skewX = newSkewX;
+		skewY = newSkewY; scaleY = newScaleY;
+	}
+	
+	/**
+	 * Concatenates a translation: this = this * T(dx, dy).
+	 */
+	public void preTranslate(float dx, float dy) {
+		transX += scaleX * dx + skewX * dy;
+		transY += skewY * dx + scaleY * dy;
+	}
+	
+	/**
+	 * Concatenates a scaling: this = this * S(sx, sy).
+	 */
+	public void preScale(float sx, float sy) {
+		scaleX *= sx; skewY *= sx;
+		skewX *= sy; scaleY *= sy;
+	}
+	
+	/**
+	 * Stores the inverse of this transformation in inverse (may be this).
+	 * 
+	 * @return false if this transformation can not be inverted, inverse is unchanged then
+	 */
+	public boolean invert(Transform2D inverse) {
+		float det = scaleX * scaleY - skewX * skewY;
+		if (det == 0.0f)
+			return false;
+		float invDet = 1.0f / det;
+		float newScaleX = scaleY * invDet;
+		float newSkewX = -skewX * invDet;
+		float newSkewY = -skewY * invDet;
+		float newScaleY = scaleX * invDet;
+		float newTransX = -(newScaleX * transX + newSkewX * transY);
+		float newTransY = -(newSkewY * transX + newScaleY * transY);
+		inverse.scaleX = newScaleX; inverse.skewX = newSkewX; inverse.transX = newTransX;
+		inverse.skewY = newSkewY; inverse.scaleY = newScaleY; inverse.transY = newTransY;
+		return true;
+	}
+	
+	/**
+	 * Maps x/y pairs in place, like <code>Matrix.mapPoints(float[])</code>.
+	 */
+	public void mapPoints(float[] pts) {
+		for (int i = 0; i + 1 < pts.length; i += 2) {
+			float x = pts[i];
+			float y = pts[i + 1];
+			pts[i] = scaleX * x + skewX * y + transX;
+			pts[i + 1] = skewY * x + scaleY * y + transY;
+		}
+	}
+	
+	/**
+	 * Copies the 9 values of the 3x3 matrix in row major order, as returned by
+	 * <code>Matrix.getValues()</code>.
+	 */
+	public void getValues(float[] values) {
+		values[0] = scaleX; values[1] = skewX; values[2] = transX;
+		values[3] = skewY; values[4] = scaleY; values[5] = transY;
+		values[6] = 0.0f; values[7] = 0.0f; values[8] = 1.0f;
+	}
+	
+	@Override
+	public String toString() {
+		return "[" + scaleX + ", " + skewX + ", " + transX + "][" + skewY + ", " + scaleY + ", " + transY + "]";
+	}
+}
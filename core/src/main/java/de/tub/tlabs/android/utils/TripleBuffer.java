@@ -0,0 +1,100 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.tub.tlabs.android.utils.ObjectPool.ObjectFactory;
+
+/**
+ * Lock-free triple buffer to hand data from one producer thread to one
+ * consumer thread. The producer fills the back buffer and publishes it with
+ * a single atomic swap, the consumer always gets the most recently published
+ * buffer. Neither side ever blocks or allocates memory, buffers that were
+ * published but never consumed are simply overwritten.
+ *
+ * @param <T> Type of buffered objects
+ */
+public class TripleBuffer<T> {
+	private static final int INDEX_MASK = 3;
+	private static final int FRESH_BIT = 4;	// set if middle buffer has not been consumed yet
+	
+	private Object[] buffers = new Object[3];
+	private AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0;	// owned by producer
+	private int front = 2;	// owned by consumer
+	
+	/**
+	 * @param factory Factory to be used for creating the three buffers
+	 */
+	public TripleBuffer(ObjectFactory<T> factory) {
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = factory.newObject();
+		}
+	}
+	
+	/**
+	 * Returns the buffer to be filled by the producer. Content is undefined,
+	 * it may be any previously published buffer.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T) buffers[back];
+	}
+	
+	/**
+	 * Publishes the back buffer. Must only be called by the producer.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH_BIT) & INDEX_MASK;
+	}
+	
+	/**
+	 * Returns the most recently published buffer. Must only be called by the
+	 * consumer, the buffer stays valid until the next call.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getFront() {
+		if ((middle.get() & FRESH_BIT) != 0) {
+			front = middle.getAndSet(front) & INDEX_MASK;
+		}
+		return (T) buffers[front];
+	}
+	
+	/**
+	 * @return true if a buffer was published since the last call to {@link #getFront()}
+	 */
+	public boolean hasFresh() {
+		return (middle.get() & FRESH_BIT) != 0;
+	}
+}
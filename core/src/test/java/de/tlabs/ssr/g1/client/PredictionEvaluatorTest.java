@@ -0,0 +1,126 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Replays a head turn across north (sensor azimuth 359/0) through
+ * {@link PredictionEvaluator} and {@link HeadTracker}.
+ */
+public class PredictionEvaluatorTest {
+	private static final long INTERVAL = 20000000L;	// 50 Hz, in ns
+	private static final float START_AZIMUTH = 300.0f;	// in degrees
+	private static final float VELOCITY = 60.0f;	// in degrees/s
+	private static final float NOISE = 0.3f;	// in degrees
+	private static final int NUM_SAMPLES = 200;	// crosses north after 1 s of 4 s
+	private static final float LATENCY = 100.0f;	// in ms
+
+	private SensorTrace trace;
+
+	@Before
+	public void setUp() throws Exception {
+		SensorTrace recorded = new SensorTrace(NUM_SAMPLES);
+		Random random = new Random(1);
+		for (int i = 0; i < NUM_SAMPLES; i++) {
+			float azimuth = START_AZIMUTH + VELOCITY * i * INTERVAL / 1.0e9f 
+					+ (2.0f * random.nextFloat() - 1.0f) * NOISE;
+			recorded.add(azimuth % 360.0f, 1000000000L + i * INTERVAL);
+		}
+		
+		// evaluate what would have been saved by the app
+		StringWriter writer = new StringWriter();
+		recorded.write(writer);
+		trace = SensorTrace.read(new StringReader("# head turn across north\n" + writer.toString()));
+	}
+
+	@Test
+	public void traceSurvivesWriteAndRead() {
+		assertEquals(NUM_SAMPLES, trace.getLength());
+		assertTrue(trace.getAzimuth(0) > 299.0f);
+		assertTrue(trace.getAzimuth(NUM_SAMPLES - 1) < 181.0f);
+		assertEquals(1000000000L + (NUM_SAMPLES - 1) * INTERVAL, trace.getTimestamp(NUM_SAMPLES - 1));
+	}
+
+	@Test
+	public void predictionBeatsFilteringAcrossNorth() {
+		PredictionEvaluator.Result result = PredictionEvaluator.evaluate(trace, HeadTracker.DEFAULT_FILTER_STRENGTH, 
+				LATENCY, HeadTracker.DEFAULT_VELOCITY_SMOOTHING);
+		
+		assertTrue(result.toString(), result.numSamples > NUM_SAMPLES - 10);
+		// an unwrapping error would show up as an error of about 360 degrees
+		assertTrue(result.toString(), result.maxErrorRaw < 10.0f);
+		assertTrue(result.toString(), result.maxErrorFiltered < 10.0f);
+		assertTrue(result.toString(), result.maxErrorPredicted < 10.0f);
+		// filtered values lag by latency plus filter delay, prediction takes back the latency
+		assertTrue(result.toString(), result.meanErrorFiltered > VELOCITY * LATENCY / 1000.0f);
+		assertTrue(result.toString(), result.meanErrorPredicted < result.meanErrorFiltered / 2.0f);
+		assertTrue(result.toString(), result.rmsErrorPredicted < result.rmsErrorFiltered / 2.0f);
+	}
+
+	@Test
+	public void headTrackerReportsNoJumpAcrossNorth() {
+		HeadTracker headTracker = new HeadTracker();
+		headTracker.setPredictionLatency(LATENCY);
+		headTracker.setMaxSendRate(50);
+		
+		float turned = 0.0f;
+		float lastAzimuth = Float.NaN;
+		for (int i = 0; i < trace.getLength(); i++) {
+			if (!headTracker.update(trace.getAzimuth(i), trace.getTimestamp(i)))
+				continue;
+			float azimuth = headTracker.getAzimuth();
+			assertTrue(azimuth >= 0.0f && azimuth < 360.0f);
+			if (!Float.isNaN(lastAzimuth)) {
+				float diff = azimuth - lastAzimuth;
+				diff -= 360.0f * Math.round(diff / 360.0f);
+				assertTrue("jump of " + diff + " deg at sample " + i, Math.abs(diff) < 10.0f);
+				turned += diff;
+			}
+			lastAzimuth = azimuth;
+		}
+		
+		// clockwise turn of the head is a counterclockwise turn in scene coordinates, plus extrapolation
+		float expected = -VELOCITY * (NUM_SAMPLES - 1) * INTERVAL / 1.0e9f - VELOCITY * LATENCY / 1000.0f;
+		assertEquals(expected, turned, 5.0f);
+		assertTrue(headTracker.toString(), headTracker.getNumSent() > NUM_SAMPLES / 2);
+	}
+}
@@ -0,0 +1,108 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tub.tlabs.android.utils.AllocationCounter;
+import de.tub.tlabs.android.utils.StringHelper;
+
+public class RequestEncoderTest {
+	private static final int NUM_SOURCES = 100;
+	private static final int NUM_REQUESTS = 100;
+	private static final long MAX_ALLOCATED_BYTES = 64;	// less than a few objects for all requests
+
+	private RequestEncoder encoder;
+
+	@Before
+	public void setUp() {
+		encoder = new RequestEncoder(16);
+	}
+
+	private static String asString(ByteBuffer buffer) {
+		return StringHelper.asciiString(buffer.array(), buffer.position(), buffer.remaining());
+	}
+
+	@Test
+	public void encodesRequest() {
+		encoder.beginRequest();
+		encoder.referenceOrientation(90.0f);
+		encoder.beginSource("1");
+		encoder.sourceMute(true);
+		encoder.endSource();
+		encoder.beginSource("2");
+		encoder.sourcePosition(1.5f, -0.25f);
+		encoder.sourceOrientation(-45.0f);
+		encoder.endSource();
+		encoder.endRequest();
+		
+		assertEquals("<request><reference><orientation azimuth='90'/></reference>"
+				+ "<source id='1' mute='true'/>"
+				+ "<source id='2'><position x='1.5' y='-0.25'/><orientation azimuth='-45'/></source>"
+				+ "</request>\0", asString(encoder.getBuffer()));
+	}
+
+	// a drag of all selected sources sends one request with all their positions per tick
+	private void encodeDrag(String[] ids, int tick) {
+		encoder.beginRequest();
+		for (int i = 0; i < ids.length; i++) {
+			encoder.beginSource(ids[i]);
+			encoder.sourcePosition(0.01f * tick + i, -0.01f * tick - i);
+			encoder.endSource();
+		}
+		encoder.endRequest();
+	}
+
+	@Test
+	public void draggingSelectedSourcesCreatesNoGarbage() {
+		String[] ids = new String[NUM_SOURCES];
+		for (int i = 0; i < NUM_SOURCES; i++)
+			ids[i] = Integer.toString(i + 1);
+		AllocationCounter counter = new AllocationCounter();
+		// let the buffer grow to its final size and load everything used
+		for (int tick = 0; tick < NUM_REQUESTS; tick++)
+			encodeDrag(ids, tick);
+		
+		counter.start();
+		for (int tick = 1; tick <= NUM_REQUESTS; tick++)
+			encodeDrag(ids, tick);
+		long bytes = counter.stop();
+		assertTrue(bytes + " bytes allocated", bytes < MAX_ALLOCATED_BYTES);
+	}
+}
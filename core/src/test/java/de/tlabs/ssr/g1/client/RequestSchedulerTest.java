@@ -0,0 +1,161 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import de.tub.tlabs.android.utils.StringHelper;
+
+/**
+ * Drives the scheduler tick by tick (the thread is not started), with
+ * simulated head tracking and group drag traffic.
+ */
+public class RequestSchedulerTest {
+	private static final int DURATION = 10000;			// in ms
+	private static final int TICK_PERIOD = 10;			// in ms (100 Hz)
+	private static final int SENSOR_PERIOD = 5;			// in ms (200 Hz)
+	private static final int TOUCH_PERIOD = 16;			// in ms (about 60 Hz)
+	private static final int NUM_DRAGGED_SOURCES = 50;
+
+	/**
+	 * Counts the requests (one write each) and their bytes, keeps the last one.
+	 */
+	private static class CountingSink implements RequestSink {
+		int numWrites = 0;
+		long numBytes = 0;
+		String lastRequest = null;
+		boolean accept = true;
+
+		public boolean send(ByteBuffer request) {
+			if (!accept)
+				return false;
+			numWrites++;
+			numBytes += request.remaining();
+			lastRequest = StringHelper.asciiString(request.array(), request.position(), request.remaining());
+			return true;
+		}
+	}
+
+	private static String[] ids(int n) {
+		String[] ids = new String[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = Integer.toString(i + 1);
+		return ids;
+	}
+
+	@Test
+	public void mergesHeadTrackingAndGroupDrag() {
+		String[] ids = ids(NUM_DRAGGED_SOURCES);
+		CountingSink sink = new CountingSink();
+		RequestScheduler scheduler = new RequestScheduler(sink);
+		// the old path: every event written as a request of its own
+		CountingSink perEventSink = new CountingSink();
+		RequestEncoder encoder = new RequestEncoder(1024);
+		int numEvents = 0;
+		
+		for (int t = 0; t < DURATION; t++) {
+			if (t % SENSOR_PERIOD == 0) {
+				float azimuth = t * 0.01f;
+				scheduler.setReferenceOrientation(azimuth);
+				encoder.beginRequest();
+				encoder.referenceOrientation(azimuth);
+				encoder.endRequest();
+				perEventSink.send(encoder.getBuffer());
+				numEvents++;
+			}
+			if (t % TOUCH_PERIOD == 0) {
+				for (int i = 0; i < ids.length; i++) {
+					float x = i + t * 0.001f;
+					scheduler.setSourcePosition(ids[i], x, -x);
+					encoder.beginRequest();
+					encoder.beginSource(ids[i]);
+					encoder.sourcePosition(x, -x);
+					encoder.endSource();
+					encoder.endRequest();
+					perEventSink.send(encoder.getBuffer());
+					numEvents++;
+				}
+			}
+			if (t % TICK_PERIOD == 0)
+				assertTrue(scheduler.tick());
+		}
+		// send what is left of the last touch event (split over several ticks)
+		int numRequests;
+		do {
+			numRequests = scheduler.getNumRequests();
+			scheduler.tick();
+		} while (scheduler.getNumRequests() > numRequests);
+		
+		int numTicks = DURATION / TICK_PERIOD;
+		assertEquals(numEvents, scheduler.getNumUpdates());
+		assertEquals(numEvents, perEventSink.numWrites);
+		assertEquals(scheduler.getNumRequests(), sink.numWrites);
+		assertTrue(sink.numWrites + " writes", sink.numWrites <= numTicks + 1);
+		// the latest values went out
+		assertTrue(sink.lastRequest, sink.lastRequest.contains("<source id='50'><position x='58.984' y='-58.984'/>"));
+		assertTrue(sink.numWrites + " writes instead of " + numEvents, sink.numWrites * 25 < numEvents);
+		// drag positions are not coalesced at 100 Hz, but share the request framing
+		assertTrue(sink.numBytes + " bytes instead of " + perEventSink.numBytes, 
+				sink.numBytes < perEventSink.numBytes);
+	}
+
+	@Test
+	public void keepsValuesOfDroppedRequest() {
+		CountingSink sink = new CountingSink();
+		RequestScheduler scheduler = new RequestScheduler(sink);
+		scheduler.setSourcePosition("1", 1.0f, 2.0f);
+		scheduler.setSourceMuted("2", true);
+		scheduler.queueTransportCommand("stop");
+		
+		sink.accept = false;
+		assertFalse(scheduler.tick());
+		assertEquals(1, scheduler.getNumDropped());
+		
+		// newer position replaces the dropped one, nothing else is lost
+		scheduler.setSourcePosition("1", 3.0f, 4.0f);
+		sink.accept = true;
+		assertTrue(scheduler.tick());
+		assertEquals("<request><state transport='stop'/><source id='1'><position x='3' y='4'/></source>"
+				+ "<source id='2' mute='true'/></request>\0", sink.lastRequest);
+		
+		// all sent, nothing left
+		assertTrue(scheduler.tick());
+		assertEquals(1, sink.numWrites);
+	}
+}
@@ -0,0 +1,113 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Scene with the parsers of XmlInputThread, for tests. All parsers share one
+ * decoder and one mutation batch, like in the application.
+ */
+class SceneFixture {
+	static final String DESCRIPTION = "<update>"
+			+ "<source id='1' name='a' model='plane' volume='-3' mute='false'>"
+			+ "<position x='1' y='2'/><orientation azimuth='90'/></source>"
+			+ "<source id='2' name='b'><position x='-1' y='0'/></source>"
+			+ "<loudspeaker model='subwoofer'><position x='0' y='3'/></loudspeaker>"
+			+ "<reference><position x='0.5' y='0'/><orientation azimuth='45'/></reference>"
+			+ "<volume>-1.5</volume><transport>start</transport>"
+			+ "</update>";
+
+	final AudioScene audioScene = new AudioScene();
+	final AttributeDecoder decoder = new AttributeDecoder();
+	final SceneMutationBatch batch = new SceneMutationBatch(audioScene);
+	final SceneDescrXMLHandler descrHandler = new SceneDescrXMLHandler(audioScene, decoder, batch);
+	final SceneUpdateXMLHandler updateHandler = new SceneUpdateXMLHandler(audioScene, decoder, batch);
+	final SceneUpdateScanner scanner = new SceneUpdateScanner(audioScene, decoder, batch);
+	final XMLReader xmlReader;
+
+	SceneFixture() throws SAXException, ParserConfigurationException {
+		xmlReader = newXMLReader();
+	}
+
+	/**
+	 * The SAX parser of Android reports local names by default, the one of the
+	 * JDK has to be asked to.
+	 */
+	static XMLReader newXMLReader() throws SAXException, ParserConfigurationException {
+		SAXParserFactory spf = SAXParserFactory.newInstance();
+		spf.setNamespaceAware(true);
+		return spf.newSAXParser().getXMLReader();
+	}
+
+	static byte[] ascii(String s) {
+		byte[] bytes = new byte[s.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) s.charAt(i);
+		}
+		return bytes;
+	}
+
+	void loadDescription(String description) throws IOException, SAXException {
+		descrHandler.reset();
+		xmlReader.setContentHandler(descrHandler);
+		xmlReader.parse(new InputSource(new ByteArrayInputStream(ascii(description))));
+		batch.apply();
+	}
+
+	/**
+	 * Parses one update with the SAX parser, the batch is not applied.
+	 */
+	void parseUpdate(String update) throws IOException, SAXException {
+		xmlReader.setContentHandler(updateHandler);
+		xmlReader.parse(new InputSource(new ByteArrayInputStream(ascii(update))));
+	}
+
+	/**
+	 * Scans one update with the scanner, the batch is not applied.
+	 * 
+	 * @return false if the scanner did not understand the update
+	 */
+	boolean scanUpdate(String update) {
+		return scanner.scan(ByteBuffer.wrap(ascii(update)));
+	}
+}
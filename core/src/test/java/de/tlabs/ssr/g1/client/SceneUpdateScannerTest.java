@@ -0,0 +1,160 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * The scanner has to leave the scene in the same state as the SAX handler,
+ * with chunks it does not understand going to the SAX handler like in
+ * XmlInputThread.
+ */
+public class SceneUpdateScannerTest {
+	// understood by the scanner
+	private static final String[] SCANNED = {
+		"<update><source id='1'><position x='4' y='-5.25'/></source></update>",
+		"<update><source id='2' level='-10' mute='true' volume='2'/><source id='1'><orientation azimuth='-30'/></source></update>",
+		"<update><source id='1' name='c' model='point'><position x='1' y='1' fixed='true'/></source></update>",
+		"<update><reference><position x='3' y='4'/><orientation azimuth='180'/></reference></update>",
+		"<update><scene volume='-6'/><state transport='stop'/></update>",
+		// volume and transport elements only belong to the description
+		"<update><volume> -12 </volume><transport>start</transport></update>",
+		"<?xml version='1.0'?>\n<update>\n  <source id=\"2\">\n    <position x=\"0.5\" y=\"0.5\"/>\n  </source>\n</update>",
+		// unknown sources and loudspeakers are ignored by both
+		"<update><source id='99'><position x='1' y='1'/></source><loudspeaker><position x='7' y='7'/></loudspeaker></update>",
+		"<update><source id='1'><position x='nonsense' y='2'/></source><source id='2' mute='maybe'/></update>",
+	};
+
+	// left to the SAX handler, after the scanner already collected some changes
+	private static final String[] FALLBACK = {
+		"<update><source id='1'><position x='7' y='7'/></source><!-- comment --><source id='2' mute='true'/></update>",
+		"<update><source id='2' level='-3'/><volume><![CDATA[-20]]></volume></update>",
+		"<update><source id='1' name='a&amp;b'><position x='-2' y='-2'/></source></update>",
+		"<update><source id='2'><position x='9' y='9'/></source><unknown/></update>",
+		"<?xml version='1.0' encoding='ISO-8859-1'?><update><source id='1' name='ä'/></update>",
+	};
+
+	private SceneFixture parsed;	// SAX handler only
+	private SceneFixture scanned;	// scanner with SAX fallback
+
+	@Before
+	public void setUp() throws Exception {
+		parsed = new SceneFixture();
+		parsed.loadDescription(SceneFixture.DESCRIPTION);
+		scanned = new SceneFixture();
+		scanned.loadDescription(SceneFixture.DESCRIPTION);
+	}
+
+	private static String state(AudioScene audioScene) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < audioScene.getNumSoundSources(); i++) {
+			SoundSource s = audioScene.getSoundSource(i);
+			sb.append("source ").append(s.getId()).append(" name=").append(s.getName())
+				.append(" model=").append(s.getSourceModel()).append(" volume=").append(s.getVolume())
+				.append(" level=").append(s.getLevel()).append(" muted=").append(s.isMuted())
+				.append(" x=").append(s.getX()).append(" y=").append(s.getY())
+				.append(" fixed=").append(s.isPositionFixed()).append(" azimuth=").append(s.getAzimuth()).append('\n');
+		}
+		Reference r = audioScene.getReference();
+		sb.append("reference x=").append(r.getX()).append(" y=").append(r.getY())
+			.append(" azimuth=").append(r.getAzimuth()).append('\n');
+		sb.append("volume=").append(audioScene.getVolume())
+			.append(" transport=").append(audioScene.getTransportState());
+		return sb.toString();
+	}
+
+	private void applyBoth(String update) throws Exception {
+		parsed.parseUpdate(update);
+		parsed.batch.apply();
+		if (!scanned.scanUpdate(update))
+			scanned.parseUpdate(update);
+		scanned.batch.apply();
+	}
+
+	@Test
+	public void scannedUpdatesMatchParser() throws Exception {
+		for (String update : SCANNED) {
+			applyBoth(update);
+			assertEquals(update, state(parsed.audioScene), state(scanned.audioScene));
+		}
+		assertEquals(SCANNED.length, scanned.scanner.getNumScannedChunks());
+		assertEquals(0, scanned.scanner.getNumFallbackChunks());
+	}
+
+	@Test
+	public void fallbackUpdatesMatchParser() throws Exception {
+		for (String update : FALLBACK) {
+			applyBoth(update);
+			assertEquals(update, state(parsed.audioScene), state(scanned.audioScene));
+		}
+		assertEquals(0, scanned.scanner.getNumScannedChunks());
+		assertEquals(FALLBACK.length, scanned.scanner.getNumFallbackChunks());
+	}
+
+	@Test
+	public void fallbackDropsPartialChanges() {
+		// changes collected before the comment must not stay in the batch
+		assertFalse(scanned.scanUpdate(FALLBACK[0]));
+		assertEquals(0, scanned.batch.size());
+		
+		// changes of earlier chunks stay
+		assertTrue(scanned.scanUpdate(SCANNED[0]));
+		int size = scanned.batch.size();
+		assertTrue(size > 0);
+		assertFalse(scanned.scanUpdate(FALLBACK[3]));
+		assertEquals(size, scanned.batch.size());
+		scanned.batch.apply();
+		assertEquals(4.0f, scanned.audioScene.getSoundSource("1").getX(), 0.0f);
+		assertEquals(-1.0f, scanned.audioScene.getSoundSource("2").getX(), 0.0f);
+	}
+
+	@Test
+	public void truncatedChunkFallsBack() throws Exception {
+		String update = "<update><source id='1'><position x='3' y='3'/></source><source id='2'><posit";
+		assertFalse(scanned.scanUpdate(update));
+		assertEquals(0, scanned.batch.size());
+		assertEquals(1, scanned.scanner.getNumFallbackChunks());
+		try {
+			scanned.parseUpdate(update);
+			assertTrue("parser accepted truncated chunk", false);
+		} catch (SAXException e) {
+			// expected, like the scanner the parser must not reject it silently
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import de.tlabs.ssr.g1.client.AudioScene.TransportState;
+
+public class SceneXMLHandlerTest {
+	private static final float EPSILON = 1e-5f;
+	
+	private SceneFixture fixture;
+	private AudioScene audioScene;
+
+	@Before
+	public void setUp() throws Exception {
+		fixture = new SceneFixture();
+		audioScene = fixture.audioScene;
+	}
+
+	@Test
+	public void parsesDescription() throws Exception {
+		fixture.loadDescription(SceneFixture.DESCRIPTION);
+
+		assertTrue(fixture.descrHandler.receivedSceneDescr());
+		assertEquals(2, audioScene.getNumSoundSources());
+		assertEquals(1, audioScene.getNumLoudspeakers());
+		SoundSource source = audioScene.getSoundSource("1");
+		assertEquals("a", source.getName());
+		assertEquals(SoundSource.SourceModel.PLANE, source.getSourceModel());
+		assertEquals(-3.0f, source.getVolume(), 0.0f);
+		assertFalse(source.isMuted());
+		assertEquals(1.0f, source.getX(), 0.0f);
+		assertEquals(2.0f, source.getY(), 0.0f);
+		assertEquals(90.0f, source.getAzimuth(), 0.0f);
+		assertEquals(-1.5f, audioScene.getVolume(), 0.0f);
+		assertEquals(TransportState.PLAYING, audioScene.getTransportState());
+	}
+
+	@Test
+	public void descriptionIsPublishedOnce() throws Exception {
+		long numSnapshots = audioScene.getNumPublishedSnapshots();
+		fixture.loadDescription(SceneFixture.DESCRIPTION);
+
+		assertEquals(numSnapshots + 1, audioScene.getNumPublishedSnapshots());
+		assertEquals(0, fixture.batch.getNumBatches());
+		SceneSnapshot snapshot = audioScene.getSnapshot();
+		assertEquals(2, snapshot.getNumSoundSources());
+		assertEquals(1, snapshot.getNumLoudspeakers());
+		assertNotNull(snapshot.getReference());
+	}
+
+	@Test
+	public void replacedSourcesKeepTheirState() throws Exception {
+		fixture.loadDescription(SceneFixture.DESCRIPTION);
+		SoundSource oldSource = audioScene.getSoundSource("1");
+		SoundSource otherOldSource = audioScene.getSoundSource("2");
+		fixture.loadDescription(SceneFixture.DESCRIPTION);
+
+		SoundSource source = audioScene.getSoundSource("1");
+		assertNotSame(oldSource, source);
+		assertSame(audioScene.getSoundSourceStore(), source.getStore());
+		// replaced sources are detached together, into one store
+		assertNotSame(audioScene.getSoundSourceStore(), oldSource.getStore());
+		assertSame(oldSource.getStore(), otherOldSource.getStore());
+		assertEquals(1.0f, oldSource.getX(), 0.0f);
+		assertEquals(2.0f, oldSource.getY(), 0.0f);
+		assertEquals(-3.0f, oldSource.getVolume(), 0.0f);
+	}
+
+	@Test
+	public void incompleteDescriptionKeepsScene() throws Exception {
+		fixture.loadDescription(SceneFixture.DESCRIPTION);
+		fixture.loadDescription("<notanupdate><source id='7'/></notanupdate>");
+
+		assertFalse(fixture.descrHandler.receivedSceneDescr());
+		assertEquals(2, audioScene.getNumSoundSources());
+		assertNull(audioScene.getSoundSource("7"));
+	}
+
+	@Test
+	public void appliesUpdateChunks() throws Exception {
+		// framing and parsing as in XmlInputThread (description first, then updates)
+		String input = SceneFixture.DESCRIPTION + "\0"
+				+ "<update><source id='1'><position x='4' y='5'/></source><scene volume='-6'/></update>\0"
+				+ "<update><state transport='stop'/><source id='2' level='-10' mute='true'/></update>\0";
+		XMLChunkInputStream chunks = new XMLChunkInputStream(16, new ByteArrayInputStream(SceneFixture.ascii(input)));
+		fixture.xmlReader.setContentHandler(fixture.descrHandler);
+		while (!fixture.descrHandler.receivedSceneDescr()) {
+			assertTrue(chunks.bufferNextChunk());
+			fixture.xmlReader.parse(new InputSource(chunks));
+		}
+		fixture.xmlReader.setContentHandler(fixture.updateHandler);
+		while (chunks.bufferNextChunk()) {
+			fixture.xmlReader.parse(new InputSource(chunks));
+		}
+		fixture.batch.apply();
+
+		SoundSource source1 = audioScene.getSoundSource("1");
+		assertEquals(4.0f, source1.getX(), 0.0f);
+		assertEquals(5.0f, source1.getY(), 0.0f);
+		SoundSource source2 = audioScene.getSoundSource("2");
+		assertEquals(-10.0f, source2.getLevel(), 0.0f);
+		assertTrue(source2.isMuted());
+		assertEquals(-6.0f, audioScene.getVolume(), 0.0f);
+		assertEquals(TransportState.PAUSED, audioScene.getTransportState());
+	}
+
+	@Test
+	public void updatesOfUnknownSourcesAreIgnored() throws Exception {
+		fixture.loadDescription(SceneFixture.DESCRIPTION);
+		fixture.parseUpdate("<update><source id='99'><position x='4' y='5'/></source></update>");
+
+		assertEquals(0, fixture.batch.size());
+	}
+
+	@Test
+	public void referenceTransformation() throws Exception {
+		fixture.loadDescription(SceneFixture.DESCRIPTION);
+		SceneSnapshot snapshot = audioScene.getSnapshot();
+
+		// the reference (0.5/0, azimuth 45) is the origin, its view direction the x axis
+		float[] point = {0.5f, 0.0f};
+		snapshot.mapPoint(point);
+		assertEquals(0.0f, point[0], EPSILON);
+		assertEquals(0.0f, point[1], EPSILON);
+
+		float diagonal = (float) Math.sqrt(0.5);
+		point = new float[] {0.5f + diagonal, diagonal};
+		snapshot.mapPoint(point);
+		assertEquals(1.0f, point[0], EPSILON);
+		assertEquals(0.0f, point[1], EPSILON);
+
+		snapshot.inverseMapPoint(point);
+		assertEquals(0.5f + diagonal, point[0], EPSILON);
+		assertEquals(diagonal, point[1], EPSILON);
+	}
+}
@@ -0,0 +1,116 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A parser thread changes the scene and publishes snapshots as fast as it
+ * can while the UI thread reads them. Every change moves all sources and the
+ * reference to the same coordinates, so a snapshot captured halfway through
+ * a change shows up as differing positions.
+ */
+public class SnapshotStressTest {
+	private static final int NUM_SOURCES = 64;
+	private static final int NUM_CHANGES = 50000;
+
+	@Test
+	public void snapshotsAreConsistentAndInOrder() throws InterruptedException {
+		final AudioScene audioScene = new AudioScene();
+		for (int i = 0; i < NUM_SOURCES; i++)
+			audioScene.addSoundSource(new SoundSource(Integer.toString(i + 1)));
+		audioScene.setReference(new Reference());
+		audioScene.publishSnapshot();
+		final String[] error = new String[1];
+		final long[] numChecked = new long[1];
+		
+		Thread parser = new Thread("parser") {
+			@Override
+			public void run() {
+				for (int n = 1; n <= NUM_CHANGES; n++) {
+					synchronized (audioScene) {
+						for (int i = 0; i < NUM_SOURCES; i++)
+							audioScene.getSoundSource(i).setXY(n, -n);
+						audioScene.getReference().setXY(n, 0.0f);
+						audioScene.publishSnapshot();
+					}
+				}
+			}
+		};
+		Thread ui = new Thread("ui") {
+			@Override
+			public void run() {
+				float last = 0.0f;
+				long lastCaptureTime = 0;
+				long n = 0;
+				while (last < NUM_CHANGES) {
+					SceneSnapshot snapshot = audioScene.getSnapshot();
+					float x = snapshot.getReference().getX();
+					if (snapshot.getNumSoundSources() != NUM_SOURCES) {
+						error[0] = snapshot.getNumSoundSources() + " sources";
+						return;
+					}
+					for (int i = 0; i < NUM_SOURCES; i++) {
+						SoundSource s = snapshot.getSoundSource(i);
+						if (s.getX() != x || s.getY() != -x) {
+							error[0] = "torn snapshot: source at " + s.getX() + "/" + s.getY() + ", reference at " + x;
+							return;
+						}
+					}
+					if (x < last || snapshot.getCaptureTime() < lastCaptureTime) {
+						error[0] = "snapshot " + x + " after " + last;
+						return;
+					}
+					if (x > last)
+						n++;
+					last = x;
+					lastCaptureTime = snapshot.getCaptureTime();
+				}
+				numChecked[0] = n;
+			}
+		};
+		ui.start();
+		parser.start();
+		parser.join(30000);
+		ui.join(30000);
+		
+		assertNull(error[0], error[0]);
+		assertTrue("ui thread did not finish", !ui.isAlive());
+		assertTrue(numChecked[0] > 1);
+		assertEquals(NUM_CHANGES + 1, audioScene.getNumPublishedSnapshots());
+	}
+}
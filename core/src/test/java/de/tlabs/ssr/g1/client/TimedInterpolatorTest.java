@@ -0,0 +1,89 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tub.tlabs.android.utils.Clock;
+
+public class TimedInterpolatorTest {
+	private long now = 1000000000000L;	// far from 0, to catch precision loss
+	private TimedInterpolator interpolator;
+
+	@Before
+	public void setUp() {
+		interpolator = new TimedInterpolator(new Clock() {
+			public long uptimeMillis() {
+				return now;
+			}
+		});
+		interpolator.setDuration(200.0f);
+	}
+
+	@Test
+	public void deceleratesTowardsEndValue() {
+		interpolator.setStartEndValues(0.0f, 100.0f);
+		interpolator.startInterpolating();
+		assertEquals(0.0f, interpolator.getCurrentValue(), 0.0f);
+
+		now += 100;
+		assertEquals(75.0f, interpolator.getCurrentValue(), 0.0f);
+		assertTrue(interpolator.isActive());
+
+		now += 100;
+		assertEquals(100.0f, interpolator.getCurrentValue(), 0.0f);
+		assertTrue(interpolator.isActive());
+
+		now += 1;
+		assertEquals(100.0f, interpolator.getCurrentValue(), 0.0f);
+		assertFalse(interpolator.isActive());
+	}
+
+	@Test
+	public void interpolatesDownwards() {
+		interpolator.setStartEndValues(10.0f, -10.0f);
+		interpolator.startInterpolating();
+
+		now += 100;
+		assertEquals(-5.0f, interpolator.getCurrentValue(), 0.0f);
+
+		now += 1000;
+		assertEquals(-10.0f, interpolator.getCurrentValue(), 0.0f);
+		assertFalse(interpolator.isActive());
+	}
+}
@@ -0,0 +1,76 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+
+/**
+ * Counts the bytes allocated by the current thread, for tests checking that
+ * code runs without creating garbage. Tests using it are skipped on VMs
+ * without per-thread allocation counters.
+ */
+public class AllocationCounter {
+	private final com.sun.management.ThreadMXBean threadBean;
+	private final long threadId = Thread.currentThread().getId();
+	private final long overhead;	// allocated by a start()/stop() pair itself
+	private long startBytes = 0;
+
+	public AllocationCounter() {
+		Object bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threadBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < 10; i++) {
+			start();
+			min = Math.min(min, threadBean.getThreadAllocatedBytes(threadId) - startBytes);
+		}
+		overhead = min;
+	}
+
+	public void start() {
+		startBytes = threadBean.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 * @return Bytes allocated by the current thread since {@link #start()}
+	 */
+	public long stop() {
+		long bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+		return Math.max(0, bytes - overhead);
+	}
+}
@@ -0,0 +1,141 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StringHelperTest {
+	private static final int NUM_APPENDS = 1000;
+	private static final long MAX_ALLOCATED_BYTES = 64;	// less than a few objects for all calls
+
+	private ByteBuffer buffer;
+
+	@Before
+	public void setUp() {
+		buffer = ByteBuffer.allocate(64);
+	}
+
+	private String format(float val, int decimalPlaces) {
+		buffer.clear();
+		StringHelper.append(buffer, val, decimalPlaces);
+		return StringHelper.asciiString(buffer.array(), 0, buffer.position());
+	}
+
+	private String format(long val, int padding, int base) {
+		buffer.clear();
+		StringHelper.append(buffer, val, padding, '0', base);
+		return StringHelper.asciiString(buffer.array(), 0, buffer.position());
+	}
+
+	@Test
+	public void asciiStringReplacesNonAsciiBytes() {
+		byte[] data = {'x', 'a', (byte) 0xe4, 'b', 'y'};
+		assertEquals("a?b", StringHelper.asciiString(data, 1, 3));
+	}
+
+	@Test
+	public void appendFloatRounds() {
+		assertEquals("123.46", format(123.456f, 2));
+		assertEquals("3", format(2.5f, 0));
+		assertEquals("0.0001", format(0.00006f, 4));
+	}
+
+	@Test
+	public void appendFloatCarriesIntoIntegerPart() {
+		assertEquals("1", format(0.99999f, 4));
+		assertEquals("10", format(9.99996f, 4));
+		assertEquals("-2", format(-1.99999f, 4));
+		assertEquals("100", format(99.96f, 1));
+	}
+
+	@Test
+	public void appendFloatKeepsSignBetweenMinusOneAndZero() {
+		assertEquals("-0.5", format(-0.5f, 4));
+		assertEquals("-0.0001", format(-0.00006f, 4));
+		assertEquals("-0.25", format(-0.25f, 2));
+		// rounded to zero, no sign
+		assertEquals("0", format(-0.00004f, 4));
+		assertEquals("0", format(-0.0f, 4));
+	}
+
+	@Test
+	public void appendFloatOmitsTrailingZeros() {
+		assertEquals("2", format(2.0f, 4));
+		assertEquals("1.5", format(1.5f, 4));
+		// a float has about 7 significant digits, more places show its rounding error
+		assertEquals("0.1", format(0.1f, 7));
+		assertEquals("-10.05", format(-10.05f, 5));
+		assertEquals("0.0102", format(0.0102f, 4));
+	}
+
+	@Test
+	public void appendFloatWritesNanAndInfinity() {
+		assertEquals("nan", format(Float.NaN, 4));
+		assertEquals("inf", format(Float.POSITIVE_INFINITY, 4));
+		assertEquals("-inf", format(Float.NEGATIVE_INFINITY, 4));
+	}
+
+	@Test
+	public void appendLong() {
+		assertEquals("0", format(0L, 0, 10));
+		assertEquals("-42", format(-42L, 0, 10));
+		assertEquals("007", format(7L, 3, 10));
+		assertEquals("FF", format(255L, 0, 16));
+		assertEquals("-9223372036854775808", format(Long.MIN_VALUE, 0, 10));
+	}
+
+	private void appendAll(int n) {
+		for (int i = 0; i < n; i++) {
+			buffer.clear();
+			StringHelper.append(buffer, "<position x='");
+			StringHelper.append(buffer, i * -0.37f, 4);
+			StringHelper.append(buffer, i * 1000003L);
+		}
+	}
+
+	@Test
+	public void byteBufferVariantsCreateNoGarbage() {
+		AllocationCounter counter = new AllocationCounter();
+		appendAll(NUM_APPENDS);	// first calls resolve classes and constants
+		counter.start();
+		appendAll(NUM_APPENDS);
+		long bytes = counter.stop();
+		assertTrue(bytes + " bytes allocated", bytes < MAX_ALLOCATED_BYTES);
+	}
+}
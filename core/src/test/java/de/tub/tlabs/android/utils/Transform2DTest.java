@@ -0,0 +1,126 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.AffineTransform;
+
+import org.junit.Test;
+
+public class Transform2DTest {
+	private static final float EPSILON = 1e-4f;
+
+	// the same concatenation as with java.awt.geom.AffineTransform, which also post-multiplies
+	private static Transform2D newTransform(AffineTransform reference) {
+		Transform2D t = new Transform2D();
+		t.preTranslate(3.0f, 4.0f);
+		reference.translate(3.0, 4.0);
+		t.preRotate(30.0f);
+		reference.rotate(Math.toRadians(30.0));
+		t.preScale(2.0f, -2.0f);
+		reference.scale(2.0, -2.0);
+		t.preTranslate(-1.0f, 7.0f);
+		reference.translate(-1.0, 7.0);
+		return t;
+	}
+
+	@Test
+	public void concatenatesLikeAffineTransform() {
+		AffineTransform reference = new AffineTransform();
+		Transform2D t = newTransform(reference);
+
+		float[] values = new float[9];
+		t.getValues(values);
+		double[] matrix = new double[6];
+		reference.getMatrix(matrix);	// column major: m00 m10 m01 m11 m02 m12
+		assertEquals(matrix[0], values[0], EPSILON);
+		assertEquals(matrix[2], values[1], EPSILON);
+		assertEquals(matrix[4], values[2], EPSILON);
+		assertEquals(matrix[1], values[3], EPSILON);
+		assertEquals(matrix[3], values[4], EPSILON);
+		assertEquals(matrix[5], values[5], EPSILON);
+		assertEquals(0.0f, values[6], 0.0f);
+		assertEquals(0.0f, values[7], 0.0f);
+		assertEquals(1.0f, values[8], 0.0f);
+	}
+
+	@Test
+	public void mapsPoints() {
+		AffineTransform reference = new AffineTransform();
+		Transform2D t = newTransform(reference);
+
+		float[] points = {0.0f, 0.0f, 1.5f, -2.5f};
+		t.mapPoints(points);
+		float[] expected = new float[4];
+		reference.transform(new float[] {0.0f, 0.0f, 1.5f, -2.5f}, 0, expected, 0, 2);
+		for (int i = 0; i < points.length; i++) {
+			assertEquals(expected[i], points[i], EPSILON);
+		}
+	}
+
+	@Test
+	public void inverseMapsBack() {
+		Transform2D t = newTransform(new AffineTransform());
+		Transform2D inverse = new Transform2D();
+		assertTrue(t.invert(inverse));
+
+		float[] points = {0.0f, 0.0f, 1.5f, -2.5f, -100.0f, 42.0f};
+		float[] mapped = points.clone();
+		t.mapPoints(mapped);
+		inverse.mapPoints(mapped);
+		for (int i = 0; i < points.length; i++) {
+			assertEquals(points[i], mapped[i], EPSILON);
+		}
+
+		// in place
+		Transform2D copy = new Transform2D();
+		copy.set(t);
+		assertTrue(copy.invert(copy));
+		assertEquals(inverse.toString(), copy.toString());
+	}
+
+	@Test
+	public void singularTransformIsNotInverted() {
+		Transform2D t = new Transform2D();
+		t.preScale(0.0f, 1.0f);
+		Transform2D inverse = new Transform2D();
+		inverse.preTranslate(1.0f, 2.0f);
+		String before = inverse.toString();
+
+		assertFalse(t.invert(inverse));
+		assertEquals(before, inverse.toString());
+	}
+}
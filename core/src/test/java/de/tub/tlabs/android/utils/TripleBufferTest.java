@@ -0,0 +1,120 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.tub.tlabs.android.utils.ObjectPool.ObjectFactory;
+
+/**
+ * Producer and consumer hammer the buffer as fast as they can. Every buffer
+ * is filled with a sequence number, so a torn buffer shows up as differing
+ * entries and a stale one as a sequence number going backwards.
+ */
+public class TripleBufferTest {
+	private static final int BUFFER_SIZE = 256;
+	private static final long NUM_PUBLISHED = 200000;
+
+	private static final ObjectFactory<long[]> FACTORY = new ObjectFactory<long[]>() {
+		@Override
+		public long[] newObject() {
+			return new long[BUFFER_SIZE];
+		}
+	};
+
+	@Test
+	public void consumerNeverSeesTornOrOldBuffers() throws InterruptedException {
+		final TripleBuffer<long[]> buffer = new TripleBuffer<long[]>(FACTORY);
+		final String[] error = new String[1];
+		final long[] numConsumed = new long[1];
+
+		Thread producer = new Thread("producer") {
+			@Override
+			public void run() {
+				for (long seq = 1; seq <= NUM_PUBLISHED; seq++) {
+					long[] back = buffer.getBack();
+					for (int i = 0; i < BUFFER_SIZE; i++)
+						back[i] = seq;
+					buffer.publish();
+				}
+			}
+		};
+		Thread consumer = new Thread("consumer") {
+			@Override
+			public void run() {
+				long last = 0;
+				long n = 0;
+				while (last < NUM_PUBLISHED) {
+					long[] front = buffer.getFront();
+					long seq = front[0];
+					for (int i = 1; i < BUFFER_SIZE; i++) {
+						if (front[i] != seq) {
+							error[0] = "torn buffer: " + seq + " and " + front[i];
+							return;
+						}
+					}
+					if (seq < last) {
+						error[0] = "buffer " + seq + " after " + last;
+						return;
+					}
+					if (seq > last)
+						n++;
+					last = seq;
+				}
+				numConsumed[0] = n;
+			}
+		};
+		consumer.start();
+		producer.start();
+		producer.join(30000);
+		consumer.join(30000);
+
+		assertNull(error[0], error[0]);
+		assertTrue("consumer did not finish", !consumer.isAlive());
+		assertTrue(numConsumed[0] > 1);
+	}
+
+	@Test
+	public void hasFreshUntilConsumed() {
+		TripleBuffer<long[]> buffer = new TripleBuffer<long[]>(FACTORY);
+		assertTrue(!buffer.hasFresh());
+		buffer.getBack()[0] = 1;
+		buffer.publish();
+		assertTrue(buffer.hasFresh());
+		assertTrue(buffer.getFront()[0] == 1);
+		assertTrue(!buffer.hasFresh());
+	}
+}
@@ -0,0 +1,240 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.mock;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+
+/**
+ * Local stand-in for the SSR, to put a configurable load on the client. Every
+ * client that connects gets its own {@link MockSession} with the same
+ * configuration. Started from the command line, see {@link #usage()}.
+ */
+public class MockServer extends Thread {
+	public static final int DEFAULT_PORT = 4711;
+	
+	/**
+	 * Configuration of the server and its sessions.
+	 */
+	public static class Config {
+		public int port = DEFAULT_PORT;
+		public int numSources = 16;
+		public int numLoudspeakers = 8;
+		public float rate = 50.0f;			// updates per second, 0 sends the description only
+		public int burst = 1;				// updates sent back to back
+		public int sourcesPerUpdate = 1;	// source elements per update
+		public float[] mix = SceneGenerator.parseMix("mixed");
+		public float duration = 0.0f;		// of each session in s, 0 for no limit
+		public long seed = 1;
+		public boolean echo = false;		// send requests back as updates?
+		public boolean logRequests = true;
+		public String logFile = null;		// null for standard output
+		
+		/**
+		 * Sets the options given on the command line.
+		 * 
+		 * @throws IllegalArgumentException if an option is unknown or its value invalid
+		 */
+		public void parse(String[] args) {
+			for (int i = 0; i < args.length; i++) {
+				String option = args[i];
+				if (option.equals("--echo")) {
+					echo = true;
+					continue;
+				} else if (option.equals("--no-request-log")) {
+					logRequests = false;
+					continue;
+				}
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value of " + option);
+				String value = args[++i];
+				try {
+					if (option.equals("--port")) {
+						port = Integer.parseInt(value);
+					} else if (option.equals("--sources")) {
+						numSources = Integer.parseInt(value);
+					} else if (option.equals("--loudspeakers")) {
+						numLoudspeakers = Integer.parseInt(value);
+					} else if (option.equals("--rate")) {
+						rate = Float.parseFloat(value);
+					} else if (option.equals("--burst")) {
+						burst = Integer.parseInt(value);
+					} else if (option.equals("--per-update")) {
+						sourcesPerUpdate = Integer.parseInt(value);
+					} else if (option.equals("--mix")) {
+						mix = SceneGenerator.parseMix(value);
+					} else if (option.equals("--duration")) {
+						duration = Float.parseFloat(value);
+					} else if (option.equals("--seed")) {
+						seed = Long.parseLong(value);
+					} else if (option.equals("--log")) {
+						logFile = value;
+					} else {
+						throw new IllegalArgumentException("unknown option " + option);
+					}
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("invalid value of " + option + ": " + value);
+				}
+			}
+			if (numSources < 0 || numLoudspeakers < 0 || burst < 1 || sourcesPerUpdate < 1)
+				throw new IllegalArgumentException("counts must not be negative, burst and per-update at least 1");
+		}
+		
+		@Override
+		public String toString() {
+			return "port " + port + ", " + numSources + " sources, " + numLoudspeakers + " loudspeakers, " 
+					+ rate + " updates/s in bursts of " + burst + ", " + sourcesPerUpdate + " sources per update, mix " 
+					+ SceneGenerator.mixToString(mix) + (duration > 0.0f ? ", " + duration + " s per session" : "")
+					+ (echo ? ", echoing requests" : "");
+		}
+	}
+	
+	private final Config config;
+	private final PrintStream requestLog;
+	private ServerSocketChannel serverChannel;
+	private final ArrayList<MockSession> sessions = new ArrayList<MockSession>();
+	private volatile boolean abortFlag = false;
+	
+	public MockServer(Config config, PrintStream requestLog) throws IOException {
+		super("MockServer");
+		this.config = config;
+		this.requestLog = requestLog;
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.socket().setReuseAddress(true);
+		serverChannel.socket().bind(new InetSocketAddress(config.port));
+	}
+	
+	/**
+	 * @return Port the server listens on, useful if it was started on port 0
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+	
+	@Override
+	public void run() {
+		int numSessions = 0;
+		try {
+			while (!abortFlag) {
+				SocketChannel channel = serverChannel.accept();
+				channel.socket().setTcpNoDelay(true);
+				MockSession session = new MockSession(++numSessions, channel, config, requestLog);
+				synchronized (sessions) {
+					sessions.add(session);
+				}
+				session.start();
+			}
+		} catch (IOException e) {
+			if (!abortFlag)
+				requestLog.println("accept failed: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Stops accepting connections, closes all sessions and waits for them to end.
+	 */
+	public void close() throws InterruptedException {
+		abortFlag = true;
+		closeQuietly(serverChannel);
+		join();
+		synchronized (sessions) {
+			for (int i = 0; i < sessions.size(); i++)
+				sessions.get(i).abort();
+			for (int i = 0; i < sessions.size(); i++)
+				sessions.get(i).join();
+		}
+	}
+	
+	static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+	}
+	
+	public static String usage() {
+		return "usage: MockServer [--help] [options]\n"
+				+ "  --port N            port to listen on (" + DEFAULT_PORT + ")\n"
+				+ "  --sources N         sources in the scene (16)\n"
+				+ "  --loudspeakers N    loudspeakers in the scene (8)\n"
+				+ "  --rate R            updates per second, 0 sends the scene description only (50)\n"
+				+ "  --burst N           updates sent back to back, the mean rate stays the same (1)\n"
+				+ "  --per-update N      source elements per update (1)\n"
+				+ "  --mix M             position, orientation, level, volume, transport, mixed\n"
+				+ "                      or weights like position=4,level=2,transport=0.01 (mixed)\n"
+				+ "  --duration S        end each session after S seconds, 0 for no limit (0)\n"
+				+ "  --seed N            seed of the generated changes (1)\n"
+				+ "  --echo              send requests back as updates, like the SSR confirms them\n"
+				+ "  --log FILE          write the request log to FILE instead of standard output\n"
+				+ "  --no-request-log    only log connections and session statistics\n";
+	}
+	
+	public static void main(String[] args) throws Exception {
+		Config config = new Config();
+		if (args.length > 0 && args[0].equals("--help")) {
+			System.out.print(usage());
+			return;
+		}
+		try {
+			config.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.print(usage());
+			System.exit(1);
+		}
+		
+		PrintStream requestLog = config.logFile == null ? System.out 
+				: new PrintStream(new FileOutputStream(config.logFile), true);
+		final MockServer server = new MockServer(config, requestLog);
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try {
+					server.close();
+				} catch (InterruptedException e) {
+					// exiting anyway
+				}
+			}
+		});
+		System.err.println("mock SSR listening: " + config);
+		server.start();
+		server.join();
+	}
+}
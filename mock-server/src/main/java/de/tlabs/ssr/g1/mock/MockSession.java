@@ -0,0 +1,262 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.mock;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.LockSupport;
+
+import de.tub.tlabs.android.utils.StringHelper;
+
+/**
+ * One client connection of the {@link MockServer}. Sends the scene description,
+ * then streams updates at the configured rate in bursts. Requests of the client
+ * are read by a second thread, logged with their arrival time and optionally
+ * echoed back as updates, like the SSR confirms changes.
+ */
+public class MockSession extends Thread {
+	private static final long NS_PER_S = 1000000000L;
+	private static final String REQUEST_START = "<request>";
+	private static final String REQUEST_END = "</request>";
+	
+	private final int number;
+	private final SocketChannel channel;
+	private final MockServer.Config config;
+	private final PrintStream requestLog;
+	private final SceneGenerator generator;
+	private final Object writeLock = new Object();
+	private volatile boolean abortFlag = false;
+	private long startTime;
+	
+	// statistics
+	private long numChunks = 0;
+	private long numBytes = 0;
+	private long maxLag = 0;	// how late a burst was sent, in ns
+	private long numRequests = 0;
+	private long numRequestBytes = 0;
+	private long minRequestInterval = Long.MAX_VALUE;	// in ns
+	private long maxRequestInterval = 0;
+	private long endTime;
+	
+	public MockSession(int number, SocketChannel channel, MockServer.Config config, PrintStream requestLog) {
+		super("MockSession-" + number);
+		this.number = number;
+		this.channel = channel;
+		this.config = config;
+		this.requestLog = requestLog;
+		generator = new SceneGenerator(config.numSources, config.numLoudspeakers, config.seed + number);
+		generator.setMix(config.mix);
+	}
+	
+	public void abort() {
+		abortFlag = true;
+		interrupt();
+	}
+	
+	@Override
+	public void run() {
+		log("connected " + channel.socket().getRemoteSocketAddress());
+		startTime = System.nanoTime();
+		RequestReader reader = new RequestReader();
+		reader.start();
+		try {
+			write(generator.describeScene());
+			streamUpdates();
+		} catch (IOException e) {
+			if (!abortFlag)
+				log("connection lost: " + e.getMessage());
+		} finally {
+			endTime = System.nanoTime();
+			MockServer.closeQuietly(channel);
+			try {
+				reader.join();
+			} catch (InterruptedException e) {
+				// report anyway
+			}
+			log(toString());
+		}
+	}
+	
+	private void streamUpdates() throws IOException {
+		if (config.rate <= 0.0f) {
+			// description only, wait for requests until the client disconnects
+			while (!abortFlag && channel.isOpen() && !isDurationOver(System.nanoTime()))
+				LockSupport.parkNanos(NS_PER_S / 10);
+			return;
+		}
+		
+		// a burst of updates is sent back to back every interval, so the mean rate is kept
+		long interval = (long) (config.burst * NS_PER_S / config.rate);
+		long nextTime = System.nanoTime();
+		while (!abortFlag) {
+			long now = System.nanoTime();
+			if (isDurationOver(now))
+				break;
+			if (now < nextTime) {
+				LockSupport.parkNanos(nextTime - now);
+				continue;
+			}
+			maxLag = Math.max(maxLag, now - nextTime);
+			for (int i = 0; i < config.burst; i++)
+				write(generator.nextUpdate(config.sourcesPerUpdate));
+			nextTime += interval;
+		}
+	}
+	
+	private boolean isDurationOver(long now) {
+		return config.duration > 0.0f && now - startTime >= (long) (config.duration * NS_PER_S);
+	}
+	
+	private void write(ByteBuffer chunk) throws IOException {
+		synchronized (writeLock) {
+			numBytes += chunk.remaining();
+			while (chunk.hasRemaining())
+				channel.write(chunk);
+			numChunks++;
+		}
+	}
+	
+	private void log(String msg) {
+		synchronized (requestLog) {
+			requestLog.println("(" + number + ") " + msg);
+		}
+	}
+	
+	/**
+	 * Logs one request: session, time since the session started, time since the
+	 * previous request (both in ms), size and content.
+	 */
+	private void logRequest(byte[] data, int length, long time, long interval) {
+		StringBuilder sb = new StringBuilder(length + 64);
+		sb.append('(').append(number).append(") request t=");
+		StringHelper.append(sb, (time - startTime) / 1000000.0f, 3);
+		sb.append(" dt=");
+		if (interval >= 0)
+			StringHelper.append(sb, interval / 1000000.0f, 3);
+		else
+			sb.append('-');
+		sb.append(" bytes=").append(length).append(' ');
+		for (int i = 0; i < length; i++)
+			sb.append((char) data[i]);
+		synchronized (requestLog) {
+			requestLog.println(sb);
+		}
+	}
+	
+	/**
+	 * Echoes a request as update, by renaming its root element.
+	 */
+	private void echo(byte[] data, int length) throws IOException {
+		String request = StringHelper.asciiString(data, 0, length).trim();
+		if (!request.startsWith(REQUEST_START) || !request.endsWith(REQUEST_END))
+			return;
+		String update = "<update>" + request.substring(REQUEST_START.length(), request.length() - REQUEST_END.length()) 
+				+ "</update>\0";
+		write(ByteBuffer.wrap(update.getBytes("US-ASCII")));
+	}
+	
+	@Override
+	public String toString() {
+		long duration = (endTime > 0 ? endTime : System.nanoTime()) - startTime;
+		double seconds = duration / (double) NS_PER_S;
+		StringBuilder sb = new StringBuilder();
+		sb.append("session ").append(number).append(": ").append(String.format("%.1f", seconds)).append(" s, ");
+		sb.append(numChunks).append(" chunks (").append(String.format("%.1f", numChunks / seconds)).append("/s), ");
+		sb.append(numBytes).append(" bytes, max lag ").append(String.format("%.2f", maxLag / 1000000.0)).append(" ms, messages");
+		for (int i = 0; i < SceneGenerator.KIND_NAMES.length; i++)
+			sb.append(' ').append(SceneGenerator.KIND_NAMES[i]).append('=').append(generator.getNumMessages(i));
+		sb.append(", ").append(numRequests).append(" requests (").append(numRequestBytes).append(" bytes)");
+		if (numRequests > 1) {
+			sb.append(", request interval min ").append(String.format("%.2f", minRequestInterval / 1000000.0));
+			sb.append(" ms, max ").append(String.format("%.2f", maxRequestInterval / 1000000.0)).append(" ms");
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Reads '\0' terminated requests until the connection is closed.
+	 */
+	private class RequestReader extends Thread {
+		public RequestReader() {
+			super("MockSession-" + number + "-requests");
+		}
+		
+		@Override
+		public void run() {
+			ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+			byte[] request = new byte[4096];
+			int requestLength = 0;
+			long lastTime = -1;
+			try {
+				while (channel.read(readBuffer) >= 0) {
+					long now = System.nanoTime();
+					readBuffer.flip();
+					while (readBuffer.hasRemaining()) {
+						byte b = readBuffer.get();
+						if (b != 0) {
+							if (requestLength == request.length) {
+								byte[] newRequest = new byte[request.length * 2];
+								System.arraycopy(request, 0, newRequest, 0, requestLength);
+								request = newRequest;
+							}
+							request[requestLength++] = b;
+							continue;
+						}
+						
+						// complete request
+						long interval = lastTime >= 0 ? now - lastTime : -1;
+						if (interval >= 0) {
+							minRequestInterval = Math.min(minRequestInterval, interval);
+							maxRequestInterval = Math.max(maxRequestInterval, interval);
+						}
+						lastTime = now;
+						numRequests++;
+						numRequestBytes += requestLength + 1;
+						if (config.logRequests)
+							logRequest(request, requestLength, now, interval);
+						if (config.echo)
+							echo(request, requestLength);
+						requestLength = 0;
+					}
+					readBuffer.clear();
+				}
+			} catch (IOException e) {
+				// connection closed, the session reports it
+			}
+			// stop streaming updates to a client that is gone
+			abortFlag = true;
+		}
+	}
+}
@@ -0,0 +1,329 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.mock;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import de.tub.tlabs.android.utils.StringHelper;
+
+/**
+ * Generates the scene description and the scene updates a SSR server sends,
+ * in exactly the dialect the client parses (see SceneDescrXMLHandler,
+ * SceneUpdateXMLHandler and SceneUpdateScanner). Chunks are written into a
+ * reusable buffer and are terminated by '\0'.
+ * Sources move on circles around the reference, orientations and levels
+ * change by random walks. Which kind of message an update contains is
+ * chosen randomly, weighted by the message mix.
+ */
+public class SceneGenerator {
+	// message kinds
+	public static final int POSITION = 0;
+	public static final int ORIENTATION = 1;
+	public static final int LEVEL = 2;
+	public static final int VOLUME = 3;		// scene (master) volume
+	public static final int TRANSPORT = 4;
+	public static final String[] KIND_NAMES = {"position", "orientation", "level", "volume", "transport"};
+	
+	public static final int DECIMAL_PLACES = 5;
+	private static final float SOURCE_RADIUS = 3.0f;		// in m
+	private static final float LOUDSPEAKER_RADIUS = 1.5f;	// in m
+	private static final float ANGLE_STEP = 0.002f;			// in rad, per position update
+	private static final int ELEMENT_SIZE = 128;			// enough room for one element
+	
+	private int numSources;
+	private int numLoudspeakers;
+	private Random random;
+	private float[] mix = parseMix("mixed");
+	private float mixSum;
+	private ByteBuffer buffer = ByteBuffer.allocate(4096);
+	
+	// current state of the scene
+	private float[] angle;
+	private float[] radius;
+	private float[] azimuth;
+	private float[] level;
+	private float volume = 0.0f;
+	private boolean playing = false;
+	private int nextSource = 0;	// sources are updated round robin
+	private long[] numMessages = new long[KIND_NAMES.length];
+	
+	public SceneGenerator(int numSources, int numLoudspeakers, long seed) {
+		this.numSources = numSources;
+		this.numLoudspeakers = numLoudspeakers;
+		random = new Random(seed);
+		angle = new float[numSources];
+		radius = new float[numSources];
+		azimuth = new float[numSources];
+		level = new float[numSources];
+		for (int i = 0; i < numSources; i++) {
+			angle[i] = (float) (2.0 * Math.PI * i / numSources);
+			radius[i] = SOURCE_RADIUS * (0.5f + random.nextFloat());
+			azimuth[i] = random.nextFloat() * 360.0f;
+			level[i] = -60.0f + random.nextFloat() * 60.0f;
+		}
+		setMix(mix);
+	}
+	
+	/**
+	 * Parses a message mix: one of the presets "position", "orientation",
+	 * "level", "volume", "transport" and "mixed", or weights like
+	 * "position=4,level=2,transport=0.01".
+	 * 
+	 * @return Weight of each message kind
+	 * @throws IllegalArgumentException if the mix can not be parsed
+	 */
+	public static float[] parseMix(String s) {
+		float[] weights = new float[KIND_NAMES.length];
+		if (s.equals("mixed")) {
+			weights[POSITION] = 1.0f;
+			weights[ORIENTATION] = 1.0f;
+			weights[LEVEL] = 1.0f;
+			weights[VOLUME] = 0.02f;
+			weights[TRANSPORT] = 0.005f;
+			return weights;
+		}
+		String[] parts = s.split(",");
+		for (int i = 0; i < parts.length; i++) {
+			String[] nameValue = parts[i].split("=");
+			int kind = kindOf(nameValue[0].trim());
+			if (kind < 0 || nameValue.length > 2)
+				throw new IllegalArgumentException("unknown message mix: " + s);
+			weights[kind] = nameValue.length == 2 ? Float.parseFloat(nameValue[1].trim()) : 1.0f;
+			if (weights[kind] < 0.0f)
+				throw new IllegalArgumentException("negative weight in message mix: " + s);
+		}
+		return weights;
+	}
+	
+	public static String mixToString(float[] weights) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < weights.length; i++) {
+			if (weights[i] == 0.0f)
+				continue;
+			if (sb.length() > 0)
+				sb.append(',');
+			sb.append(KIND_NAMES[i]).append('=').append(weights[i]);
+		}
+		return sb.toString();
+	}
+	
+	private static int kindOf(String name) {
+		for (int i = 0; i < KIND_NAMES.length; i++) {
+			if (KIND_NAMES[i].equals(name))
+				return i;
+		}
+		return -1;
+	}
+	
+	public void setMix(float[] weights) {
+		float sum = 0.0f;
+		for (int i = 0; i < weights.length; i++)
+			sum += weights[i];
+		if (sum <= 0.0f)
+			throw new IllegalArgumentException("message mix is empty");
+		mix = weights.clone();
+		mixSum = sum;
+	}
+	
+	public int getNumSources() {
+		return numSources;
+	}
+	
+	/**
+	 * @return Number of messages generated so far, by kind
+	 */
+	public long getNumMessages(int kind) {
+		return numMessages[kind];
+	}
+	
+	/**
+	 * Writes the description of the whole scene: reference, loudspeakers on a
+	 * circle facing the reference, all sources, volume and transport state.
+	 * 
+	 * @return The chunk including the terminating '\0', valid until the next call
+	 */
+	public ByteBuffer describeScene() {
+		buffer.clear();
+		putAscii("<update>");
+		putAscii("<reference><position x='0' y='0'/><orientation azimuth='90'/></reference>");
+		for (int i = 0; i < numLoudspeakers; i++) {
+			double a = 2.0 * Math.PI * i / numLoudspeakers;
+			putAscii("<loudspeaker model='normal'><position x='");
+			putFloat((float) (LOUDSPEAKER_RADIUS * Math.cos(a)));
+			putAscii("' y='");
+			putFloat((float) (LOUDSPEAKER_RADIUS * Math.sin(a)));
+			putAscii("'/><orientation azimuth='");
+			putFloat((float) Math.toDegrees(a) + 180.0f);
+			putAscii("'/></loudspeaker>");
+		}
+		for (int i = 0; i < numSources; i++) {
+			putAscii("<source id='");
+			putInt(i + 1);
+			putAscii("' name='Source ");
+			putInt(i + 1);
+			// every 8th source is a plane wave, to have both models drawn
+			putAscii(i % 8 == 7 ? "' model='plane'" : "' model='point'");
+			putAscii(" mute='false' volume='0' level='");
+			putFloat(level[i]);
+			putAscii("'><position x='");
+			putFloat(getX(i));
+			putAscii("' y='");
+			putFloat(getY(i));
+			putAscii("' fixed='false'/><orientation azimuth='");
+			putFloat(azimuth[i]);
+			putAscii("'/></source>");
+		}
+		putAscii("<volume>");
+		putFloat(volume);
+		putAscii(playing ? "</volume><transport>start</transport>" : "</volume><transport>stop</transport>");
+		putAscii("</update>\0");
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Writes the next update. Each of the sourcesPerUpdate source elements
+	 * gets a message kind chosen by the mix, scene wide kinds (volume and
+	 * transport) are written at most once per update.
+	 * 
+	 * @return The chunk including the terminating '\0', valid until the next call
+	 */
+	public ByteBuffer nextUpdate(int sourcesPerUpdate) {
+		boolean volumeWritten = false;
+		boolean transportWritten = false;
+		
+		buffer.clear();
+		putAscii("<update>");
+		for (int n = 0; n < sourcesPerUpdate; n++) {
+			int kind = nextKind();
+			numMessages[kind]++;
+			if (kind == VOLUME) {
+				if (!volumeWritten) {
+					volume = Math.max(-40.0f, Math.min(6.0f, volume + (random.nextFloat() - 0.5f) * 2.0f));
+					putAscii("<scene volume='");
+					putFloat(volume);
+					putAscii("'/>");
+					volumeWritten = true;
+				}
+				continue;
+			} else if (kind == TRANSPORT) {
+				if (!transportWritten) {
+					playing = !playing;
+					putAscii(playing ? "<state transport='start'/>" : "<state transport='stop'/>");
+					transportWritten = true;
+				}
+				continue;
+			}
+			if (numSources == 0)
+				continue;
+			
+			int i = nextSource;
+			nextSource = (nextSource + 1) % numSources;
+			putAscii("<source id='");
+			putInt(i + 1);
+			switch (kind) {
+			case POSITION:
+				angle[i] += ANGLE_STEP;
+				putAscii("'><position x='");
+				putFloat(getX(i));
+				putAscii("' y='");
+				putFloat(getY(i));
+				putAscii("'/></source>");
+				break;
+			case ORIENTATION:
+				azimuth[i] = (azimuth[i] + (random.nextFloat() - 0.5f) * 10.0f + 360.0f) % 360.0f;
+				putAscii("'><orientation azimuth='");
+				putFloat(azimuth[i]);
+				putAscii("'/></source>");
+				break;
+			case LEVEL:
+				level[i] = Math.max(-60.0f, Math.min(12.0f, level[i] + (random.nextFloat() - 0.5f) * 6.0f));
+				putAscii("' level='");
+				putFloat(level[i]);
+				putAscii("'/>");
+				break;
+			}
+		}
+		putAscii("</update>\0");
+		buffer.flip();
+		return buffer;
+	}
+	
+	private int nextKind() {
+		float r = random.nextFloat() * mixSum;
+		for (int i = 0; i < mix.length; i++) {
+			r -= mix[i];
+			if (r < 0.0f && mix[i] > 0.0f)
+				return i;
+		}
+		// rounding, take the last kind with a weight
+		for (int i = mix.length - 1; i > 0; i--) {
+			if (mix[i] > 0.0f)
+				return i;
+		}
+		return 0;
+	}
+	
+	private float getX(int i) {
+		return radius[i] * (float) Math.cos(angle[i]);
+	}
+	
+	private float getY(int i) {
+		return radius[i] * (float) Math.sin(angle[i]);
+	}
+	
+	private void putAscii(String s) {
+		ensureRemaining(s.length());
+		StringHelper.append(buffer, s);
+	}
+	
+	private void putInt(int value) {
+		ensureRemaining(ELEMENT_SIZE);
+		StringHelper.append(buffer, value);
+	}
+	
+	private void putFloat(float value) {
+		ensureRemaining(ELEMENT_SIZE);
+		StringHelper.append(buffer, value, DECIMAL_PLACES);
+	}
+	
+	private void ensureRemaining(int size) {
+		if (buffer.remaining() < size) {
+			ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+	}
+}
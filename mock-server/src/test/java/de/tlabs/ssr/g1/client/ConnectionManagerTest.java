@@ -0,0 +1,179 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.tlabs.ssr.g1.mock.MockServer;
+
+/**
+ * Connects to a {@link MockServer} streaming updates and shuts down again,
+ * checking that no threads are left behind and that close() returns quickly.
+ */
+public class ConnectionManagerTest {
+	private static final int NUM_CYCLES = 100;
+	// close() waits up to ConnectionManager.SHUTDOWN_TIMEOUT, a working shutdown takes a few ms
+	private static final long MAX_SHUTDOWN_TIME = 250;	// in ms
+	private static final long MAX_MEAN_SHUTDOWN_TIME = 20;	// in ms
+	private static final long TIMEOUT = 5;	// in s
+
+	private MockServer server;
+
+	@After
+	public void tearDown() throws InterruptedException {
+		if (server != null)
+			server.close();
+	}
+
+	@Test
+	public void connectAndCloseRepeatedly() throws Exception {
+		startServer(500.0f);
+		
+		// first cycle loads the classes
+		runCycle();
+		int numThreads = countClientThreads();
+		
+		long maxShutdownTime = 0;
+		long totalShutdownTime = 0;
+		for (int i = 0; i < NUM_CYCLES; i++) {
+			long shutdownTime = runCycle();
+			maxShutdownTime = Math.max(maxShutdownTime, shutdownTime);
+			totalShutdownTime += shutdownTime;
+			assertEquals("input threads alive after cycle " + i, 0, countInputThreads());
+		}
+		
+		assertEquals(numThreads, countClientThreads());
+		assertTrue("max shutdown time " + maxShutdownTime + " ms", maxShutdownTime <= MAX_SHUTDOWN_TIME);
+		assertTrue("mean shutdown time " + (float) totalShutdownTime / NUM_CYCLES + " ms",
+				totalShutdownTime <= MAX_MEAN_SHUTDOWN_TIME * NUM_CYCLES);
+	}
+
+	@Test
+	public void reconnectsAfterReadTimeout() throws Exception {
+		// the server sends the scene description only, then stays silent
+		startServer(0.0f);
+		Listener listener = new Listener();
+		ConnectionManager connectionManager = new ConnectionManager("127.0.0.1", server.getPort(), 
+				new AudioScene(), listener);
+		connectionManager.setReadTimeout(300);
+		connectionManager.connect();
+		connectionManager.start();
+		try {
+			assertTrue("no scene received", listener.sceneReceived.await(TIMEOUT, TimeUnit.SECONDS));
+			assertTrue("not reconnected", listener.reconnected.await(TIMEOUT, TimeUnit.SECONDS));
+			assertNotNull(listener.lostError);
+			assertNotNull(listener.channel);
+			assertEquals(ConnectionManager.State.CONNECTED, connectionManager.getState());
+		} finally {
+			connectionManager.close();
+		}
+		assertEquals(0, countInputThreads());
+	}
+
+	private void startServer(float rate) throws Exception {
+		MockServer.Config config = new MockServer.Config();
+		config.port = 0;
+		config.rate = rate;
+		config.logRequests = false;
+		server = new MockServer(config, new PrintStream(new ByteArrayOutputStream()));
+		server.start();
+	}
+
+	// connects, waits for the scene and closes, returns the shutdown time in ms
+	private long runCycle() throws Exception {
+		Listener listener = new Listener();
+		ConnectionManager connectionManager = new ConnectionManager("127.0.0.1", server.getPort(), 
+				new AudioScene(), listener);
+		connectionManager.connect();
+		connectionManager.start();
+		assertTrue("no scene received", listener.sceneReceived.await(TIMEOUT, TimeUnit.SECONDS));
+		connectionManager.close();
+		assertEquals(ConnectionManager.State.CLOSED, connectionManager.getState());
+		return connectionManager.getShutdownTime();
+	}
+
+	private static int countInputThreads() {
+		int n = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread instanceof XmlInputThread && thread.isAlive())
+				n++;
+		}
+		return n;
+	}
+
+	// all threads but the ones of the mock server, whose sessions end on their own time
+	private static int countClientThreads() {
+		int n = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && !thread.getName().startsWith("MockSession"))
+				n++;
+		}
+		return n;
+	}
+
+	private static class Listener implements ConnectionListener {
+		final CountDownLatch sceneReceived = new CountDownLatch(1);
+		final CountDownLatch reconnected = new CountDownLatch(1);
+		volatile String lostError = null;
+		volatile SocketChannel channel = null;
+
+		public void sceneReceived(boolean reconnected) {
+			if (reconnected)
+				this.reconnected.countDown();
+			else
+				sceneReceived.countDown();
+		}
+
+		public void connectionLost(String error) {
+			lostError = error;
+		}
+
+		public void channelChanged(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		public void inputFailed(String error) {
+		}
+	}
+}
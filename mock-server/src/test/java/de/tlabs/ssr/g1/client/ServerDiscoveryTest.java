@@ -0,0 +1,199 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.tlabs.ssr.g1.mock.MockServer;
+
+/**
+ * Searches loopback ports with a {@link MockServer} and stand-ins that are
+ * no SSR servers.
+ */
+public class ServerDiscoveryTest {
+	private static final long TIMEOUT = 1000;	// in ms
+	private static final long MAX_OVERRUN = 500;	// in ms
+
+	private MockServer server;
+	private ArrayList<StandIn> standIns = new ArrayList<StandIn>();
+
+	/**
+	 * Accepts connections and sends them the given greeting, then stays silent.
+	 */
+	private static class StandIn extends Thread {
+		final ServerSocket serverSocket;
+		final byte[] greeting;
+		final ArrayList<Socket> sockets = new ArrayList<Socket>();
+
+		StandIn(String greeting) throws IOException {
+			super("StandIn");
+			serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+			this.greeting = greeting.getBytes("ISO-8859-1");
+			start();
+		}
+
+		InetSocketAddress getAddress() {
+			return new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort());
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					Socket socket = serverSocket.accept();
+					synchronized (sockets) {
+						sockets.add(socket);
+					}
+					socket.getOutputStream().write(greeting);
+					socket.getOutputStream().flush();
+				}
+			} catch (IOException e) {
+				// closed
+			}
+		}
+
+		void close() throws IOException, InterruptedException {
+			serverSocket.close();
+			synchronized (sockets) {
+				for (Socket socket : sockets)
+					socket.close();
+			}
+			join();
+		}
+	}
+
+	/**
+	 * Collects the result of a search.
+	 */
+	private static class Listener implements ServerDiscovery.ResultListener {
+		final CountDownLatch finished = new CountDownLatch(1);
+		volatile List<String> servers = null;
+
+		public void searchFinished(ServerDiscovery discovery, List<String> servers) {
+			this.servers = servers;
+			finished.countDown();
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (server != null)
+			server.close();
+		for (StandIn standIn : standIns)
+			standIn.close();
+	}
+
+	private StandIn startStandIn(String greeting) throws IOException {
+		StandIn standIn = new StandIn(greeting);
+		standIns.add(standIn);
+		return standIn;
+	}
+
+	private InetSocketAddress startMockServer() throws Exception {
+		MockServer.Config config = new MockServer.Config();
+		config.port = 0;
+		config.rate = 0.0f;
+		config.logRequests = false;
+		server = new MockServer(config, new PrintStream(new ByteArrayOutputStream()));
+		server.start();
+		return new InetSocketAddress("127.0.0.1", server.getPort());
+	}
+
+	private ServerDiscovery search(List<InetSocketAddress> candidates, Listener listener) throws InterruptedException {
+		ServerDiscovery discovery = new ServerDiscovery(candidates, TIMEOUT, listener);
+		discovery.start();
+		assertTrue("search not finished", listener.finished.await(TIMEOUT + MAX_OVERRUN, TimeUnit.MILLISECONDS));
+		discovery.join();
+		return discovery;
+	}
+
+	@Test
+	public void findsMockServerAndRejectsOthers() throws Exception {
+		InetSocketAddress mockServer = startMockServer();
+		List<InetSocketAddress> candidates = Arrays.asList(
+				startStandIn("HTTP/1.0 400 Bad Request\r\n\r\n").getAddress(),
+				startStandIn("<updates><source id='1'/></updates>\0").getAddress(),
+				startStandIn("<?xml version='1.0'?><!-- no update --><updatex/>\0").getAddress(),
+				mockServer);
+		Listener listener = new Listener();
+		ServerDiscovery discovery = search(candidates, listener);
+		
+		assertEquals(Arrays.asList("127.0.0.1:" + mockServer.getPort()), listener.servers);
+		assertEquals(3, discovery.getNumRejected());
+		// everybody answered, no need to wait for the deadline
+		assertTrue(discovery.getSearchTime() + " ms", discovery.getSearchTime() < TIMEOUT);
+	}
+
+	@Test
+	public void silentServerIsCutOffAtDeadline() throws Exception {
+		InetSocketAddress mockServer = startMockServer();
+		List<InetSocketAddress> candidates = Arrays.asList(startStandIn("").getAddress(), mockServer);
+		Listener listener = new Listener();
+		ServerDiscovery discovery = search(candidates, listener);
+		
+		assertEquals(Arrays.asList("127.0.0.1:" + mockServer.getPort()), listener.servers);
+		assertEquals(0, discovery.getNumRejected());
+		assertTrue(discovery.getSearchTime() + " ms", discovery.getSearchTime() >= TIMEOUT - 10);
+		assertTrue(discovery.getSearchTime() + " ms", discovery.getSearchTime() < TIMEOUT + MAX_OVERRUN);
+	}
+
+	@Test
+	public void abortedSearchReportsNothing() throws Exception {
+		List<InetSocketAddress> candidates = Arrays.asList(startStandIn("").getAddress());
+		Listener listener = new Listener();
+		ServerDiscovery discovery = new ServerDiscovery(candidates, TIMEOUT, listener);
+		discovery.start();
+		discovery.abort();
+		discovery.join(TIMEOUT + MAX_OVERRUN);
+		
+		assertTrue(!discovery.isAlive());
+		assertEquals(1, listener.finished.getCount());
+	}
+}
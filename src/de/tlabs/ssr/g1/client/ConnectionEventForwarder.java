@@ -0,0 +1,62 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.nio.channels.SocketChannel;
+
+/**
+ * Forwards the events of the connection to the {@link SourcesMover} activity
+ * and hands new channels to the {@link OutboundWriter}.
+ */
+public class ConnectionEventForwarder implements ConnectionListener {
+	public void sceneReceived(boolean reconnected) {
+		sendMessage(reconnected ? SourcesMover.RECONNECTED_MSG : SourcesMover.SCENEPARSED_OK_MSG, null);
+	}
+	
+	public void connectionLost(String error) {
+		sendMessage(SourcesMover.CONNECTION_LOST_MSG, error);
+	}
+	
+	public void channelChanged(SocketChannel channel) {
+		if (GlobalData.outboundWriter != null)
+			GlobalData.outboundWriter.setSocketChannel(channel);
+	}
+	
+	public void inputFailed(String error) {
+		sendMessage(SourcesMover.XMLINPUT_ERR_MSG, error);
+	}
+	
+	private static void sendMessage(int what, String text) {
+		GlobalData.sourcesMoverMsgHandler.sendMessage(GlobalData.sourcesMoverMsgHandler.obtainMessage(what, text));
+	}
+}
@@ -1,407 +1,570 @@
-/******************************************************************************
- * Copyright (c) 2006-2012 Quality & Usability Lab                            *
- *                         Deutsche Telekom Laboratories, TU Berlin           *
- *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
- *                                                                            *
- * This file is part of the SoundScape Renderer (SSR).                        *
- *                                                                            *
- * The SSR is free software:  you can redistribute it and/or modify it  under *
- * the terms of the  GNU  General  Public  License  as published by the  Free *
- * Software Foundation, either version 3 of the License,  or (at your option) *
- * any later version.                                                         *
- *                                                                            *
- * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
- * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
- * FOR A PARTICULAR PURPOSE.                                                  *
- * See the GNU General Public License for more details.                       *
- *                                                                            *
- * You should  have received a copy  of the GNU General Public License  along *
- * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
- *                                                                            *
- * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
- * variety of rendering algorithms.                                           *
- *                                                                            *
- * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
- ******************************************************************************/
-
-/* 
- * $LastChangedDate$
- * $LastChangedRevision$
- * $LastChangedBy$
- */
-
-package de.tlabs.ssr.g1.client;
-
-import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.channels.SocketChannel;
-import java.util.LinkedList;
-
-import android.app.Activity;
-import android.app.AlertDialog;
-import android.content.Intent;
-import android.content.SharedPreferences;
-import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
-import android.util.Log;
-import android.view.KeyEvent;
-import android.view.LayoutInflater;
-import android.view.MotionEvent;
-import android.view.View;
-import android.view.ViewGroup;
-import android.view.View.MeasureSpec;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
-import android.widget.Button;
-import android.widget.EditText;
-import android.widget.ListAdapter;
-import android.widget.ListView;
-import android.widget.RadioButton;
-import android.widget.ScrollView;
-import android.widget.TextView;
-import android.widget.Toast;
-
-/**
- * Activity class that contains GUI to init a connection to an SSR server.
- * Receives status messages from {@link ConnectThread} class.
- * 
- * @author Peter Bartz
- */
-public class Connector extends Activity {
-	protected static final String TAG = "Connector";
-	public static final int CONNECT_OK_MSG = 1;
-	public static final int CONNECT_ERR_MSG = 2;
-	private static final int REQUEST_MOVE = 0;
-	
-	private static final String PREFS_LAST_USED_SERVER_NAME = "lastUsedServerName";
-	private static final int MAX_NUM_LAST_USED_SERVER_NAMES = 6;
-	
-	private EditText hostPortEdit;
-	private RadioButton fixedListenerTrackingModeRadioBtn;
-	private RadioButton fixedSourcesModeRadioBtn;
-	private Button okButton;
-	private Button cancelButton;
-	private Button helpButton;
-	private ListView predefinedServersListView;
-	private ScrollView connectorScrollView;
-	
-	private SharedPreferences prefs;
-	LinkedList<String> serverList = new LinkedList<String>();
-
-	// message handler to receive messages from other threads
-    private Handler msgHandler = new Handler() {
-        @Override
-        public void handleMessage(Message msg) {
-			switch (msg.what) {
-			case CONNECT_OK_MSG: // connecting was successful
-				Log.d(TAG, "connect ok handler");
-				
-				// save this server to preferences
-				String serverName = hostPortEdit.getText().toString();
-				if (serverList.contains(serverName))
-					serverList.remove(serverName);
-				serverList.add(0, serverName);
-				SharedPreferences.Editor prefsEditor = prefs.edit();
-				for (int i = 0; i < Math.min(MAX_NUM_LAST_USED_SERVER_NAMES, serverList.size()); i++) {
-					prefsEditor.putString(PREFS_LAST_USED_SERVER_NAME + i, serverList.get(i));
-					Log.d(TAG, "wrote server name: " + serverList.get(i));
-				}
-				prefsEditor.commit();
-
-
-				enableOkButton();
-				synchronized (GlobalData.audioScene) {
-					GlobalData.audioScene.setDrawSourcesFixedEnabled(fixedSourcesModeRadioBtn.isChecked());
-				}
-				GlobalData.orientationTrackingEnabled = fixedListenerTrackingModeRadioBtn.isChecked();
-				
-				// start mover activity, which will start an xml input thread
-				startActivityForResult(new Intent(Connector.this, SourcesMover.class), REQUEST_MOVE);
-				
-				break;
-			case CONNECT_ERR_MSG: // connecting failed
-				Log.d(TAG, "connect err handler");
-				
-				enableOkButton();
-				GlobalData.socketChannel = null;
-				
-				// show error message
-				Toast.makeText(Connector.this, "Sorry, could not connect (" + (String) msg.obj + ").", Toast.LENGTH_LONG).show(); 
-				
-				break;
-				
-			default:
-				super.handleMessage(msg);
-        	}
-        }
-    };
-    
-	@Override
-	protected void onCreate(Bundle savedInstanceState) {
-		super.onCreate(savedInstanceState);
-		Log.d(TAG, "onCreate");
-
-		// set content view
-		setContentView(R.layout.connector);
-		
-		// publish message handler
-		GlobalData.connectorMsgHandler = msgHandler;
-
-		// get component references
-		hostPortEdit = (EditText) findViewById(R.id.host_port_edit);
-		fixedListenerTrackingModeRadioBtn = (RadioButton) findViewById(R.id.listenerfixedtracking_radiobtn);
-		fixedSourcesModeRadioBtn = (RadioButton) findViewById(R.id.sourcesfixed_radiobtn);
-		okButton = (Button) findViewById(R.id.ok_button);
-		cancelButton = (Button) findViewById(R.id.cancel_button);
-		helpButton = (Button) findViewById(R.id.connector_help_button);
-		predefinedServersListView = (ListView) findViewById(R.id.predefinedservers_listview);
-		connectorScrollView = (ScrollView) findViewById(R.id.connector_scrollview);
-		
-		// get preferences
-		prefs = getPreferences(MODE_PRIVATE);
-		
-		// ok button click handler
-		okButton.setOnClickListener(new View.OnClickListener() {
-			public void onClick(View view) {
-				URL url;
-				
-				// parse url
-				try {
-					// construct url with dummy protocol
-					url = new URL("http://" + hostPortEdit.getText().toString());
-				} catch (MalformedURLException mue) {
-					// show message box
-					Toast.makeText(Connector.this, "Please enter a valid address (" + mue.getMessage() + ").", Toast.LENGTH_LONG).show();
-					return;
-				}
-
-				disableOkButton();
-				
-				// start thread to connect to server
-				new ConnectThread(url.getHost(), url.getPort()).start();
-			}
-		});
-		
-		// cancel button click handler
-		cancelButton.setOnClickListener(new View.OnClickListener() {
-			public void onClick(View view) {
-				try {
-					synchronized (GlobalData.socketChannel) {
-						GlobalData.socketChannel.close();
-					}
-				} catch (IOException e) {
-					Log.d(TAG, "exception while closing: " + e.getMessage());
-				}
-				enableOkButton();
-			}
-		});
-		
-		// help button click handler
-		helpButton.setOnClickListener(new View.OnClickListener() {
-			public void onClick(View view) {
-//				DialogHelper.showOneButtonDialog(Connector.this, "Title", "Message", "Done");
-				
-//				Dialog dialog = new Dialog(Connector.this);
-//				dialog.setContentView(R.layout.connector_help_dialog);
-//				dialog.setTitle("Help");
-//				dialog.show();
-				
-				// inflate help dialog view
-				LayoutInflater inflater = (LayoutInflater) Connector.this.getSystemService(LAYOUT_INFLATER_SERVICE);
-				View dialogView = inflater.inflate(R.layout.connector_help_dialog, (ViewGroup) findViewById(R.id.connector_help_dialog_layout));
-				
-				// create alert dialog and set view
-				AlertDialog.Builder builder = new AlertDialog.Builder(Connector.this);
-				builder.setTitle("Help").setPositiveButton("Ok", null);
-				builder.setView(dialogView);
-				
-				// show dialog
-				builder.show();
-			}
-		});
-		
-		// predefined servers list view click handler
-		predefinedServersListView.setOnItemClickListener(new ListView.OnItemClickListener() {
-			@Override
-			public void onItemClick(AdapterView<?> parent, View view, int pos, long id) {
-				hostPortEdit.setText(((TextView)view).getText());
-				connectorScrollView.scrollTo(0, 0);
-			}
-		});
-		
-		// little hack to get a scrollview inside a listview
-		connectorScrollView.setOnTouchListener(new ScrollView.OnTouchListener() {
-			private boolean resizedListView = false;
-			
-			@Override
-			public boolean onTouch(View v, MotionEvent event) {
-				if (!resizedListView) {
-					// resize list to vertically wrap content (to overcome android listview-inside-scrollview bug).
-					// this can not be done in onResume(), because the measuring does not work there yet.
-					// this is a bit hacky. an alternative would be: use a linear layout instead of list view and
-					// add custom items to layout ourselves.
-					ListAdapter adapter = predefinedServersListView.getAdapter();
-			        if (adapter == null) return false;
-			        int desiredWidth = MeasureSpec.makeMeasureSpec(predefinedServersListView.getWidth(), MeasureSpec.AT_MOST);
-			        int totalHeight = 0;
-			        for (int i = 0; i < adapter.getCount(); i++) {
-			            View listItem = adapter.getView(i, null, predefinedServersListView);
-			            listItem.measure(desiredWidth, MeasureSpec.UNSPECIFIED);
-			            totalHeight += listItem.getMeasuredHeight();
-			        }
-
-			        ViewGroup.LayoutParams params = predefinedServersListView.getLayoutParams();
-			        params.height = totalHeight + (predefinedServersListView.getDividerHeight() * (predefinedServersListView.getCount() - 1));
-			        predefinedServersListView.setLayoutParams(params);
-			        predefinedServersListView.requestLayout();
-			        
-					resizedListView = true;
-				}
-				return false;
-			}
-		});
-		
-		// host/port edit key down listener
-		hostPortEdit.setOnKeyListener(new EditText.OnKeyListener() {
-			@Override
-			public boolean onKey(View v, int keyCode, KeyEvent event) {
-				// pressing <ENTER> is like clicking connect button
-				if (keyCode == KeyEvent.KEYCODE_ENTER) {
-					okButton.performClick();
-					return true;
-				}
-				return false;
-			}
-		});
-	}
-	
-	private void enableOkButton() {
-		// enable ok button
-		okButton.setEnabled(true);
-		
-		// disable cancel button
-		cancelButton.setEnabled(false);
-	}
-
-	private void disableOkButton() {
-		// disable ok button and set text
-		okButton.setEnabled(false);
-		
-		// enable cancel button
-		cancelButton.setEnabled(true);
-	}
-
-	@Override
-	protected void onActivityResult(int requestCode, int resultCode, Intent data) {
-		super.onActivityResult(requestCode, resultCode, data);
-		Log.d(TAG, "onActivityResult, result code: " + resultCode);
-    	
-		// user hit back-button from SourcesMover activity
-    	if (requestCode == REQUEST_MOVE && resultCode == RESULT_CANCELED) {
-    		// stop xml input thread
-    		synchronized (GlobalData.xmlInputThread.abortFlag) {
-    			GlobalData.xmlInputThread.abortFlag = true;
-    		}
-    		GlobalData.xmlInputThread.interrupt();
-    		GlobalData.xmlInputThread = null;
-    		
-    		// close socket channel
-    		try {
-    			synchronized (GlobalData.socketChannel) {
-    				GlobalData.socketChannel.close();
-    				GlobalData.socketChannel = null;
-    			}
-				
-				// workaround: dummy create channel, else GlobalData.socketChannel is not closed
-				SocketChannel.open();	
-			} catch (IOException e) {
-				Log.d(TAG, "io exception on socket channel close()");
-			} catch (Exception e) {
-				Log.d(TAG, "exception on socket channel close()");
-			}
-			
-			// reset audio scene
-			synchronized (GlobalData.audioScene) {
-				GlobalData.audioScene.reset();
-			}
-    	} else 
-    		Log.d(TAG, "onActivityResult was called with unknown request/result code");
-	}
-
-	@Override
-	protected void onDestroy() {
-		super.onDestroy();
-		Log.d(TAG, "onDestroy");
-	}
-
-	@Override
-	protected void onPause() {
-		super.onPause();
-		Log.d(TAG, "onPause");
-	}
-
-	@Override
-	protected void onRestart() {
-		super.onRestart();
-		Log.d(TAG, "onRestart");
-	}
-
-	@Override
-	protected void onResume() {
-		Log.d(TAG, "onResume");
-		super.onResume();
-		
-		// populate predefined servers list
-		String serverName;
-		serverList.clear();
-		for (int i = 0; i < MAX_NUM_LAST_USED_SERVER_NAMES; i++) {
-			serverName = prefs.getString(PREFS_LAST_USED_SERVER_NAME + i, null);
-			if (serverName != null) {
-				Log.d(TAG, "found server name: " + serverName);
-				if (!serverList.contains(serverName))	
-					serverList.add(serverName);
-			}
-		}
-		String[] hardServerList = getResources().getStringArray(R.array.predefinedservers_list);
-		for (String s : hardServerList) {
-			if (!serverList.contains(s))
-				serverList.add(s);
-		}
-		ArrayAdapter<String> adapter = new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1);
-		for (int i = 0; i < Math.min(MAX_NUM_LAST_USED_SERVER_NAMES, serverList.size()); i++) {
-			adapter.add(serverList.get(i));
-		}
-		predefinedServersListView.setAdapter(adapter);
-		
-		// set default server
-		if (serverList.size() > 0)
-			hostPortEdit.setText(serverList.getFirst());
-
-	}
-
-	@Override
-	protected void onStart() {
-		super.onStart();
-		Log.d(TAG, "onStart");
-	}
-
-	@Override
-	protected void onStop() {
-		super.onStop();
-		Log.d(TAG, "onStop");
-	}
-
-	@Override
-	protected void onRestoreInstanceState(Bundle savedInstanceState) {
-		super.onRestoreInstanceState(savedInstanceState);
-		Log.d(TAG, "onRestoreInstanceState");
-	}
-
-	@Override
-	protected void onSaveInstanceState(Bundle outState) {
-		super.onSaveInstanceState(outState);
-		Log.d(TAG, "onSaveInstanceState");
-	}
-}
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Message;
+import android.util.Log;
+import android.view.KeyEvent;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.View.MeasureSpec;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.EditText;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+import android.widget.RadioButton;
+import android.widget.ScrollView;
+import android.widget.Toast;
+
+/**
+ * Activity class that contains GUI to init a connection to an SSR server.
+ * Receives status messages from {@link ConnectThread} class.
+ * 
+ * @author Peter Bartz
+ */
+public class Connector extends Activity {
+	protected static final String TAG = "Connector";
+	public static final int CONNECT_OK_MSG = 1;
+	public static final int CONNECT_ERR_MSG = 2;
+	public static final int PROBE_RESULT_MSG = 3;
+	public static final int DISCOVERY_RESULT_MSG = 4;
+	private static final int REQUEST_MOVE = 0;
+	
+	private static final String PREFS_LAST_USED_SERVER_NAME = "lastUsedServerName";
+	private static final String PREFS_AUTO_CONNECT = "autoConnect";
+	private static final String PREFS_LATENCY_TRACING = "latencyTracing";
+	private static final String PREFS_LATENCY_OVERLAY = "latencyOverlay";
+	private static final int MAX_NUM_LAST_USED_SERVER_NAMES = 6;
+	private static final int DEFAULT_PORT = 4711;
+	
+	private EditText hostPortEdit;
+	private RadioButton fixedListenerTrackingModeRadioBtn;
+	private RadioButton fixedSourcesModeRadioBtn;
+	private CheckBox autoConnectCheckBox;
+	private CheckBox latencyTracingCheckBox;
+	private CheckBox latencyOverlayCheckBox;
+	private Button okButton;
+	private Button cancelButton;
+	private Button helpButton;
+	private Button discoverButton;
+	private ListView predefinedServersListView;
+	private ScrollView connectorScrollView;
+	
+	private SharedPreferences prefs;
+	LinkedList<String> serverList = new LinkedList<String>();
+	private ArrayList<String> listedServers = new ArrayList<String>();	// servers in order of list view
+	private ServerProber serverProber = null;
+	private ServerDiscovery serverDiscovery = null;
+	private ServerDiscovery.ResultListener discoveryListener = new ServerDiscovery.ResultListener() {
+		public void searchFinished(ServerDiscovery discovery, List<String> servers) {
+			msgHandler.sendMessage(msgHandler.obtainMessage(DISCOVERY_RESULT_MSG, discovery));
+		}
+	};
+	private ArrayList<String> discoveredServers = new ArrayList<String>();
+	private boolean autoConnectDone = false;	// auto-connect only once, not after coming back from mover
+
+	// message handler to receive messages from other threads
+    private Handler msgHandler = new Handler() {
+        @Override
+        public void handleMessage(Message msg) {
+			switch (msg.what) {
+			case CONNECT_OK_MSG: // connecting was successful
+				Log.d(TAG, "connect ok handler");
+				if (GlobalData.connectionManager == null)
+					break;	// cancelled meanwhile
+				
+				// save this server to preferences
+				String serverName = hostPortEdit.getText().toString();
+				if (serverList.contains(serverName))
+					serverList.remove(serverName);
+				serverList.add(0, serverName);
+				SharedPreferences.Editor prefsEditor = prefs.edit();
+				for (int i = 0; i < Math.min(MAX_NUM_LAST_USED_SERVER_NAMES, serverList.size()); i++) {
+					prefsEditor.putString(PREFS_LAST_USED_SERVER_NAME + i, serverList.get(i));
+					Log.d(TAG, "wrote server name: " + serverList.get(i));
+				}
+				prefsEditor.putBoolean(PREFS_AUTO_CONNECT, autoConnectCheckBox.isChecked());
+				prefsEditor.putBoolean(PREFS_LATENCY_TRACING, latencyTracingCheckBox.isChecked());
+				prefsEditor.putBoolean(PREFS_LATENCY_OVERLAY, latencyOverlayCheckBox.isChecked());
+				prefsEditor.commit();
+
+
+				enableOkButton();
+				synchronized (GlobalData.audioScene) {
+					GlobalData.audioScene.setDrawSourcesFixedEnabled(fixedSourcesModeRadioBtn.isChecked());
+					GlobalData.audioScene.publishSnapshot();
+				}
+				GlobalData.orientationTrackingEnabled = fixedListenerTrackingModeRadioBtn.isChecked();
+				GlobalData.latencyTracingEnabled = latencyTracingCheckBox.isChecked();
+				GlobalData.latencyOverlayEnabled = latencyTracingCheckBox.isChecked() && latencyOverlayCheckBox.isChecked();
+				
+				// start mover activity, which will start an xml input thread
+				startActivityForResult(new Intent(Connector.this, SourcesMover.class), REQUEST_MOVE);
+				
+				break;
+			case CONNECT_ERR_MSG: // connecting failed
+				Log.d(TAG, "connect err handler");
+				
+				enableOkButton();
+				GlobalData.connectionManager = null;
+				
+				// show error message
+				Toast.makeText(Connector.this, "Sorry, could not connect (" + (String) msg.obj + ").", Toast.LENGTH_LONG).show(); 
+				
+				break;
+			case PROBE_RESULT_MSG: // reachability of listed servers is known
+				Log.d(TAG, "probe result handler");
+				if (msg.obj != serverProber)
+					break;	// aborted meanwhile, a newer prober is running or none at all
+				
+				List<ServerProber.Result> results = serverProber.getResults();
+				serverProber = null;
+				showProbeResults(results);
+				
+				// connect to fastest server right away?
+				if (autoConnectCheckBox.isChecked() && !autoConnectDone && okButton.isEnabled()
+						&& results.size() > 0 && results.get(0).isReachable()) {
+					autoConnectDone = true;
+					hostPortEdit.setText(results.get(0).server);
+					okButton.performClick();
+				}
+				
+				break;
+			case DISCOVERY_RESULT_MSG: // search of local network finished
+				Log.d(TAG, "discovery result handler");
+				if (msg.obj != serverDiscovery)
+					break;	// aborted meanwhile
+				
+				List<String> servers = serverDiscovery.getServers();
+				serverDiscovery = null;
+				discoverButton.setEnabled(true);
+				Toast.makeText(Connector.this, "Found " + servers.size() + " SSR server(s).", Toast.LENGTH_SHORT).show();
+				
+				// show found servers on top of the list (and probe them)
+				for (int i = servers.size() - 1; i >= 0; i--) {
+					discoveredServers.remove(servers.get(i));
+					discoveredServers.add(0, servers.get(i));
+				}
+				showServerList();
+				
+				break;
+				
+			default:
+				super.handleMessage(msg);
+        	}
+        }
+    };
+    
+	@Override
+	protected void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+		Log.d(TAG, "onCreate");
+
+		// set content view
+		setContentView(R.layout.connector);
+		
+		// publish message handler
+		GlobalData.connectorMsgHandler = msgHandler;
+
+		// get component references
+		hostPortEdit = (EditText) findViewById(R.id.host_port_edit);
+		fixedListenerTrackingModeRadioBtn = (RadioButton) findViewById(R.id.listenerfixedtracking_radiobtn);
+		fixedSourcesModeRadioBtn = (RadioButton) findViewById(R.id.sourcesfixed_radiobtn);
+		autoConnectCheckBox = (CheckBox) findViewById(R.id.autoconnect_checkbox);
+		latencyTracingCheckBox = (CheckBox) findViewById(R.id.latencytracing_checkbox);
+		latencyOverlayCheckBox = (CheckBox) findViewById(R.id.latencyoverlay_checkbox);
+		okButton = (Button) findViewById(R.id.ok_button);
+		cancelButton = (Button) findViewById(R.id.cancel_button);
+		helpButton = (Button) findViewById(R.id.connector_help_button);
+		discoverButton = (Button) findViewById(R.id.discover_button);
+		predefinedServersListView = (ListView) findViewById(R.id.predefinedservers_listview);
+		connectorScrollView = (ScrollView) findViewById(R.id.connector_scrollview);
+		
+		// get preferences
+		prefs = getPreferences(MODE_PRIVATE);
+		autoConnectCheckBox.setChecked(prefs.getBoolean(PREFS_AUTO_CONNECT, false));
+		latencyTracingCheckBox.setChecked(prefs.getBoolean(PREFS_LATENCY_TRACING, false));
+		latencyOverlayCheckBox.setChecked(prefs.getBoolean(PREFS_LATENCY_OVERLAY, false));
+		latencyOverlayCheckBox.setEnabled(latencyTracingCheckBox.isChecked());
+		
+		// latency can only be shown if it is measured
+		latencyTracingCheckBox.setOnCheckedChangeListener(new CheckBox.OnCheckedChangeListener() {
+			@Override
+			public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+				latencyOverlayCheckBox.setEnabled(isChecked);
+			}
+		});
+		
+		// ok button click handler
+		okButton.setOnClickListener(new View.OnClickListener() {
+			public void onClick(View view) {
+				URL url;
+				
+				// parse url
+				try {
+					// construct url with dummy protocol
+					url = new URL("http://" + hostPortEdit.getText().toString());
+				} catch (MalformedURLException mue) {
+					// show message box
+					Toast.makeText(Connector.this, "Please enter a valid address (" + mue.getMessage() + ").", Toast.LENGTH_LONG).show();
+					return;
+				}
+
+				disableOkButton();
+				
+				// start thread to connect to server
+				GlobalData.connectionManager = new ConnectionManager(url.getHost(), url.getPort(), 
+						GlobalData.audioScene, new ConnectionEventForwarder());
+				new ConnectThread(GlobalData.connectionManager).start();
+			}
+		});
+		
+		// cancel button click handler
+		cancelButton.setOnClickListener(new View.OnClickListener() {
+			public void onClick(View view) {
+				if (GlobalData.connectionManager != null) {
+					GlobalData.connectionManager.close();
+					GlobalData.connectionManager = null;
+				}
+				enableOkButton();
+			}
+		});
+		
+		// discover button click handler
+		discoverButton.setOnClickListener(new View.OnClickListener() {
+			public void onClick(View view) {
+				discoverServers();
+			}
+		});
+		
+		// help button click handler
+		helpButton.setOnClickListener(new View.OnClickListener() {
+			public void onClick(View view) {
+//				DialogHelper.showOneButtonDialog(Connector.this, "Title", "Message", "Done");
+				
+//				Dialog dialog = new Dialog(Connector.this);
+//				dialog.setContentView(R.layout.connector_help_dialog);
+//				dialog.setTitle("Help");
+//				dialog.show();
+				
+				// inflate help dialog view
+				LayoutInflater inflater = (LayoutInflater) Connector.this.getSystemService(LAYOUT_INFLATER_SERVICE);
+				View dialogView = inflater.inflate(R.layout.connector_help_dialog, (ViewGroup) findViewById(R.id.connector_help_dialog_layout));
+				
+				// create alert dialog and set view
+				AlertDialog.Builder builder = new AlertDialog.Builder(Connector.this);
+				builder.setTitle("Help").setPositiveButton("Ok", null);
+				builder.setView(dialogView);
+				
+				// show dialog
+				builder.show();
+			}
+		});
+		
+		// predefined servers list view click handler
+		predefinedServersListView.setOnItemClickListener(new ListView.OnItemClickListener() {
+			@Override
+			public void onItemClick(AdapterView<?> parent, View view, int pos, long id) {
+				hostPortEdit.setText(listedServers.get(pos));	// without probing annotation
+				connectorScrollView.scrollTo(0, 0);
+			}
+		});
+		
+		// little hack to get a scrollview inside a listview
+		connectorScrollView.setOnTouchListener(new ScrollView.OnTouchListener() {
+			private boolean resizedListView = false;
+			
+			@Override
+			public boolean onTouch(View v, MotionEvent event) {
+				if (!resizedListView) {
+					// resize list to vertically wrap content (to overcome android listview-inside-scrollview bug).
+					// this can not be done in onResume(), because the measuring does not work there yet.
+					// this is a bit hacky. an alternative would be: use a linear layout instead of list view and
+					// add custom items to layout ourselves.
+					ListAdapter adapter = predefinedServersListView.getAdapter();
+			        if (adapter == null) return false;
+			        int desiredWidth = MeasureSpec.makeMeasureSpec(predefinedServersListView.getWidth(), MeasureSpec.AT_MOST);
+			        int totalHeight = 0;
+			        for (int i = 0; i < adapter.getCount(); i++) {
+			            View listItem = adapter.getView(i, null, predefinedServersListView);
+			            listItem.measure(desiredWidth, MeasureSpec.UNSPECIFIED);
+			            totalHeight += listItem.getMeasuredHeight();
+			        }
+
+			        ViewGroup.LayoutParams params = predefinedServersListView.getLayoutParams();
+			        params.height = totalHeight + (predefinedServersListView.getDividerHeight() * (predefinedServersListView.getCount() - 1));
+			        predefinedServersListView.setLayoutParams(params);
+			        predefinedServersListView.requestLayout();
+			        
+					resizedListView = true;
+				}
+				return false;
+			}
+		});
+		
+		// host/port edit key down listener
+		hostPortEdit.setOnKeyListener(new EditText.OnKeyListener() {
+			@Override
+			public boolean onKey(View v, int keyCode, KeyEvent event) {
+				// pressing <ENTER> is like clicking connect button
+				if (keyCode == KeyEvent.KEYCODE_ENTER) {
+					okButton.performClick();
+					return true;
+				}
+				return false;
+			}
+		});
+	}
+	
+	private void enableOkButton() {
+		// enable ok button
+		okButton.setEnabled(true);
+		
+		// disable cancel button
+		cancelButton.setEnabled(false);
+	}
+
+	private void disableOkButton() {
+		// disable ok button and set text
+		okButton.setEnabled(false);
+		
+		// enable cancel button
+		cancelButton.setEnabled(true);
+	}
+
+	@Override
+	protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+		super.onActivityResult(requestCode, resultCode, data);
+		Log.d(TAG, "onActivityResult, result code: " + resultCode);
+    	
+		// user hit back-button from SourcesMover activity
+    	if (requestCode == REQUEST_MOVE && resultCode == RESULT_CANCELED) {
+    		// close connection and stop xml input thread (also stops reconnecting)
+    		if (GlobalData.connectionManager != null) {
+    			GlobalData.connectionManager.close();
+    			GlobalData.connectionManager = null;
+    		}
+    		
+    		// stop request scheduler and outbound writer threads
+    		if (GlobalData.requestScheduler != null) {
+    			GlobalData.requestScheduler.abort();
+    			GlobalData.requestScheduler = null;
+    		}
+    		if (GlobalData.outboundWriter != null) {
+    			GlobalData.outboundWriter.abort();
+    			GlobalData.outboundWriter = null;
+    		}
+    		
+			// reset audio scene
+			synchronized (GlobalData.audioScene) {
+				GlobalData.audioScene.reset();
+				GlobalData.audioScene.publishSnapshot();
+			}
+    	} else 
+    		Log.d(TAG, "onActivityResult was called with unknown request/result code");
+	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		Log.d(TAG, "onDestroy");
+	}
+
+	/**
+	 * Shows the listed servers ordered by connect latency, annotated with the
+	 * latency or the reason they are not reachable.
+	 */
+	private void showProbeResults(List<ServerProber.Result> results) {
+		ArrayAdapter<String> adapter = new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1);
+		listedServers.clear();
+		for (int i = 0; i < results.size(); i++) {
+			listedServers.add(results.get(i).server);
+			adapter.add(results.get(i).toString());
+		}
+		predefinedServersListView.setAdapter(adapter);
+	}
+
+	@Override
+	protected void onPause() {
+		super.onPause();
+		Log.d(TAG, "onPause");
+		
+		// stop probing and searching servers
+		if (serverProber != null) {
+			serverProber.abort();
+			serverProber = null;
+		}
+		if (serverDiscovery != null) {
+			serverDiscovery.abort();
+			serverDiscovery = null;
+			discoverButton.setEnabled(true);
+		}
+		
+		// remember auto-connect and latency settings
+		prefs.edit().putBoolean(PREFS_AUTO_CONNECT, autoConnectCheckBox.isChecked())
+				.putBoolean(PREFS_LATENCY_TRACING, latencyTracingCheckBox.isChecked())
+				.putBoolean(PREFS_LATENCY_OVERLAY, latencyOverlayCheckBox.isChecked()).commit();
+	}
+
+	@Override
+	protected void onRestart() {
+		super.onRestart();
+		Log.d(TAG, "onRestart");
+	}
+
+	@Override
+	protected void onResume() {
+		Log.d(TAG, "onResume");
+		super.onResume();
+		
+		// populate predefined servers list
+		String serverName;
+		serverList.clear();
+		for (int i = 0; i < MAX_NUM_LAST_USED_SERVER_NAMES; i++) {
+			serverName = prefs.getString(PREFS_LAST_USED_SERVER_NAME + i, null);
+			if (serverName != null) {
+				Log.d(TAG, "found server name: " + serverName);
+				if (!serverList.contains(serverName))	
+					serverList.add(serverName);
+			}
+		}
+		String[] hardServerList = getResources().getStringArray(R.array.predefinedservers_list);
+		for (String s : hardServerList) {
+			if (!serverList.contains(s))
+				serverList.add(s);
+		}
+		showServerList();
+		
+		// set default server
+		if (serverList.size() > 0)
+			hostPortEdit.setText(serverList.getFirst());
+
+	}
+	
+	/**
+	 * Shows discovered servers followed by recently used and predefined ones and 
+	 * starts probing them.
+	 */
+	private void showServerList() {
+		ArrayAdapter<String> adapter = new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1);
+		listedServers.clear();
+		for (int i = 0; i < discoveredServers.size(); i++) {
+			adapter.add(discoveredServers.get(i));
+			listedServers.add(discoveredServers.get(i));
+		}
+		for (int i = 0; i < Math.min(MAX_NUM_LAST_USED_SERVER_NAMES, serverList.size()); i++) {
+			if (listedServers.contains(serverList.get(i)))
+				continue;
+			adapter.add(serverList.get(i));
+			listedServers.add(serverList.get(i));
+		}
+		predefinedServersListView.setAdapter(adapter);
+		
+		// probe all listed servers at once, results are shown when done
+		if (serverProber != null)
+			serverProber.abort();
+		serverProber = new ServerProber(listedServers, ServerProber.DEFAULT_TIMEOUT);
+		serverProber.start();
+	}
+	
+	/**
+	 * Searches the /24 subnet of the wifi connection for servers on the port
+	 * currently entered (or the default port).
+	 */
+	private void discoverServers() {
+		WifiManager wifiManager = (WifiManager) getSystemService(WIFI_SERVICE);
+		WifiInfo wifiInfo = wifiManager.getConnectionInfo();
+		if (wifiInfo == null || wifiInfo.getIpAddress() == 0) {
+			Toast.makeText(Connector.this, "Searching needs a Wi-Fi connection.", Toast.LENGTH_LONG).show();
+			return;
+		}
+		
+		int port = DEFAULT_PORT;
+		try {
+			URL url = new URL("http://" + hostPortEdit.getText().toString());
+			if (url.getPort() > 0)
+				port = url.getPort();
+		} catch (MalformedURLException mue) {
+			// use default port
+		}
+		
+		discoverButton.setEnabled(false);
+		serverDiscovery = new ServerDiscovery(ServerDiscovery.getSubnetCandidates(wifiInfo.getIpAddress(), port), 
+				ServerDiscovery.DEFAULT_TIMEOUT, discoveryListener);
+		serverDiscovery.start();
+	}
+
+	@Override
+	protected void onStart() {
+		super.onStart();
+		Log.d(TAG, "onStart");
+	}
+
+	@Override
+	protected void onStop() {
+		super.onStop();
+		Log.d(TAG, "onStop");
+	}
+
+	@Override
+	protected void onRestoreInstanceState(Bundle savedInstanceState) {
+		super.onRestoreInstanceState(savedInstanceState);
+		Log.d(TAG, "onRestoreInstanceState");
+	}
+
+	@Override
+	protected void onSaveInstanceState(Bundle outState) {
+		super.onSaveInstanceState(outState);
+		Log.d(TAG, "onSaveInstanceState");
+	}
+}
@@ -1,52 +1,63 @@
-/******************************************************************************
- * Copyright (c) 2006-2012 Quality & Usability Lab                            *
- *                         Deutsche Telekom Laboratories, TU Berlin           *
- *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
- *                                                                            *
- * This file is part of the SoundScape Renderer (SSR).                        *
- *                                                                            *
- * The SSR is free software:  you can redistribute it and/or modify it  under *
- * the terms of the  GNU  General  Public  License  as published by the  Free *
- * Software Foundation, either version 3 of the License,  or (at your option) *
- * any later version.                                                         *
- *                                                                            *
- * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
- * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
- * FOR A PARTICULAR PURPOSE.                                                  *
- * See the GNU General Public License for more details.                       *
- *                                                                            *
- * You should  have received a copy  of the GNU General Public License  along *
- * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
- *                                                                            *
- * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
- * variety of rendering algorithms.                                           *
- *                                                                            *
- * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
- ******************************************************************************/
-
-/*
- * $LastChangedDate$
- * $LastChangedRevision$
- * $LastChangedBy$
- */
-
-package de.tlabs.ssr.g1.client;
-
-import java.nio.channels.SocketChannel;
-
-import android.os.Handler;
-
-/**
- * Contains static objects not specifically bound to one activity.
- * 
- * @author Peter Bartz
- */
-public class GlobalData {
-	public static SocketChannel socketChannel = null;
-	public static AudioScene audioScene = new AudioScene(); // this instance of AudioScene is always reused
-	public static XmlInputThread xmlInputThread = null;
-	public static Handler connectorMsgHandler = null;
-	public static Handler sourcesMoverMsgHandler = null;
-	public static SourcesView sourcesMoverView = null;
-	public static boolean orientationTrackingEnabled = false;
-}
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/*
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import android.os.Handler;
+import de.tub.tlabs.android.utils.Log;
+
+/**
+ * Contains static objects not specifically bound to one activity.
+ * 
+ * @author Peter Bartz
+ */
+public class GlobalData {
+	public static ConnectionManager connectionManager = null;
+	public static AudioScene audioScene = new AudioScene(); // this instance of AudioScene is always reused
+	public static OutboundWriter outboundWriter = null;
+	public static RequestScheduler requestScheduler = null;
+	public static Handler connectorMsgHandler = null;
+	public static Handler sourcesMoverMsgHandler = null;
+	public static SourcesView sourcesMoverView = null;
+	public static boolean orientationTrackingEnabled = false;
+	public static float headTrackingPredictionLatency = 0.0f; // in ms, 0 disables prediction
+	public static boolean headTrackingTraceEnabled = false; // record raw sensor values for offline evaluation?
+	public static boolean sensorThreadEnabled = true; // process sensor events on own thread? (false: on ui thread, for comparison)
+	public static boolean latencyTracingEnabled = false; // measure latency from input to rendered echo? (set by Connector)
+	public static boolean latencyOverlayEnabled = false; // show latency percentiles on top of the scene? (set by Connector)
+	public static LatencyTracer latencyTracer = null; // null unless latency tracing is enabled
+	
+	static {
+		// debug output of the scene model and protocol code goes to the android log
+		Log.setLogger(new AndroidLogger());
+	}
+}
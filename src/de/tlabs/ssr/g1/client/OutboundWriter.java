@@ -0,0 +1,216 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import de.tub.tlabs.android.utils.ByteBufferQueue;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Thread writing requests to the server, so that UI and sensor callbacks
+ * never block on the socket. Requests are copied into the reusable buffers
+ * of a bounded lock-free queue, if the queue is full the request is dropped.
+ */
+public class OutboundWriter extends Thread implements RequestSink {
+	private static final String TAG = "OutboundWriter";
+	
+	public static final int QUEUE_CAPACITY = 64;
+	public static final int SLOT_SIZE = 512;
+	// writes taking longer than this are counted as stalls (in ms)
+	public static final long STALL_THRESHOLD = 20;
+	// wait before retrying a write while the socket buffer is full (in ns)
+	private static final long WRITE_RETRY_DELAY = 1000000;
+	
+	private volatile SocketChannel socketChannel;
+	private ByteBufferQueue queue = new ByteBufferQueue(QUEUE_CAPACITY, SLOT_SIZE);
+	private volatile boolean abortFlag = false;
+	private volatile boolean waiting = false;
+	// connection on which a write failed, requests are dropped while it is the current one
+	private volatile SocketChannel failedChannel = null;
+	
+	// statistics
+	private AtomicInteger numDropped = new AtomicInteger(0);
+	private volatile long bytesWritten = 0;
+	private volatile int numWritten = 0;
+	private volatile int numStalls = 0;
+	private volatile long maxWriteTime = 0;
+	private volatile int maxQueueDepth = 0;
+	
+	public OutboundWriter(SocketChannel socketChannel) {
+		super(TAG);
+		this.socketChannel = socketChannel;
+	}
+	
+	/**
+	 * Queues a request, never blocks. The remaining bytes of the given buffer
+	 * are copied, its position is left untouched.
+	 * 
+	 * @return false if the request was dropped
+	 */
+	public boolean send(ByteBuffer request) {
+		if (failedChannel == socketChannel) {
+			numDropped.incrementAndGet();
+			return false;
+		}
+		int slot = queue.claim();
+		if (slot < 0) {
+			numDropped.incrementAndGet();
+			return false;
+		}
+		
+		// copy into the slot buffer
+		int position = request.position();
+		ByteBuffer buffer = queue.ensureCapacity(slot, request.remaining());
+		buffer.put(request);
+		request.position(position);
+		buffer.flip();
+		queue.publish(slot);
+		
+		// track queue depth and wake up writer
+		int depth = queue.size();
+		if (depth > maxQueueDepth)
+			maxQueueDepth = depth;
+		if (waiting)
+			LockSupport.unpark(this);
+		return true;
+	}
+	
+	/**
+	 * Continues writing on a new connection after the old one failed. Requests
+	 * dropped meanwhile are not resent. A write on the old channel that fails
+	 * only after this call does not affect the new one.
+	 */
+	public void setSocketChannel(SocketChannel socketChannel) {
+		this.socketChannel = socketChannel;
+	}
+	
+	/**
+	 * Stops the thread after the request currently being written.
+	 */
+	public void abort() {
+		abortFlag = true;
+		LockSupport.unpark(this);
+	}
+	
+	@Override
+	public void run() {
+		Log.d(TAG, "(" + this.getId() + ") HELLO");
+		
+		while (!abortFlag) {
+			int slot = queue.poll();
+			if (slot < 0) {
+				// nothing to do, sleep until a producer wakes us up
+				waiting = true;
+				if (queue.size() == 0 && !abortFlag)
+					LockSupport.park();
+				waiting = false;
+				continue;
+			}
+			
+			ByteBuffer buffer = queue.getBuffer(slot);
+			SocketChannel channel = socketChannel;
+			if (channel == failedChannel) {
+				numDropped.incrementAndGet();
+			} else {
+				int length = buffer.remaining();
+				long startTime = SystemClock.uptimeMillis();
+				try {
+					// channel is non-blocking, wait a little while the socket buffer is full
+					while (buffer.hasRemaining() && !abortFlag) {
+						if (channel.write(buffer) == 0)
+							LockSupport.parkNanos(WRITE_RETRY_DELAY);
+					}
+					bytesWritten += length;
+					numWritten++;
+				} catch (IOException e) {
+					// connection is gone, drop everything until reconnected (input thread reconnects),
+					// only this channel is marked, the connection may have been replaced meanwhile
+					Log.d(TAG, "error on write: " + e.getMessage());
+					failedChannel = channel;
+					numDropped.incrementAndGet();
+				}
+				long writeTime = SystemClock.uptimeMillis() - startTime;
+				if (writeTime > STALL_THRESHOLD)
+					numStalls++;
+				if (writeTime > maxWriteTime)
+					maxWriteTime = writeTime;
+			}
+			queue.release(slot);
+		}
+		
+		Log.d(TAG, "(" + this.getId() + ") " + toString());
+		Log.d(TAG, "(" + this.getId() + ") GOOD BYE");
+	}
+	
+	public int getQueueDepth() {
+		return queue.size();
+	}
+	
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+	
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+	
+	public int getNumWritten() {
+		return numWritten;
+	}
+	
+	public int getNumStalls() {
+		return numStalls;
+	}
+	
+	public long getMaxWriteTime() {
+		return maxWriteTime;
+	}
+	
+	public int getNumDropped() {
+		return numDropped.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "requests written: " + numWritten + " (" + bytesWritten + " bytes), dropped: " + numDropped.get()
+				+ ", write stalls: " + numStalls + ", max write time: " + maxWriteTime + " ms"
+				+ ", queue depth: " + queue.size() + " (max " + maxQueueDepth + ")";
+	}
+}
@@ -0,0 +1,238 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Picture;
+
+/**
+ * Draws {@link SceneSnapshot}s on a canvas. The scene model itself knows
+ * nothing about drawing, so it can be used without Android.
+ * Paints and pictures are set up once by {@link SourcesMover}, drawing is
+ * done on the UI thread only.
+ */
+public class SceneRenderer {
+	protected static final float SOURCE_RADIUS = 15f;
+	protected static final float SOURCE_HALO_RADIUS = SourcesView.SOURCE_SELECT_RADIUS;
+	private static final double LOG2 = Math.log(2.0);
+	
+	// static fields for drawing
+	protected static Paint soundSourcePaint = null;
+	protected static Picture planeWavePicture = null;
+	protected static Paint loudspeakerPaint = null;
+	protected static Picture loudspeakerPicture = null;
+	protected static Paint referencePaint = null;
+	protected static Picture arrowPicture = null;
+	
+	private static float[] sourceCircleRadiusCache = {0.0f, 0.0f};	// one key/value pair, same for all sources
+	private static Matrix referenceTransformation = new Matrix();
+	private static float[] matrixValues = new float[9];
+	
+	private SceneRenderer() {
+	}
+	
+	public static void draw(Canvas canvas, SceneSnapshot snapshot, float inverseScaling) {
+		float referenceRotation = -90.0f;
+		int numSoundSources = snapshot.getNumSoundSources();
+		int numLoudspeakers = snapshot.getNumLoudspeakers();
+		Reference reference = snapshot.getReference();
+		
+		snapshot.getReferenceTransformation().getValues(matrixValues);
+		referenceTransformation.setValues(matrixValues);
+		
+		// save current transformation matrix
+		canvas.save();
+
+		// draw reference fixed?
+		if (!snapshot.isDrawSourcesFixedEnabled()) {	// draw reference fixed
+			// draw speakers
+			for (int i = 0; i < numLoudspeakers; i++) {
+				drawLoudspeaker(canvas, snapshot.getLoudspeaker(i), inverseScaling);
+			}
+	
+			if (reference != null) {
+				// draw reference
+				drawReference(canvas, inverseScaling);
+				
+				referenceRotation = -reference.getAzimuth();
+				
+				// transform into reference coordinate system
+				canvas.concat(referenceTransformation);
+			}
+			
+			// draw sound sources
+			for (int i = 0; i < numSoundSources; i++) {
+				drawSoundSource(canvas, snapshot.getSoundSource(i), inverseScaling, -referenceRotation);
+			}
+		} else { // draw sources fixed
+			// rotate/translate reference and speakers 
+			if (reference != null) {
+				referenceRotation = -90.0f;
+
+				// transform into reference coordinate system
+				canvas.concat(referenceTransformation);
+
+				// save matrix
+				canvas.save();
+				
+				// translate to center
+				canvas.translate(reference.getX(), reference.getY());
+				// rotate
+				canvas.rotate(reference.getAzimuth());
+
+				// draw speakers
+				for (int i = 0; i < numLoudspeakers; i++) {
+					drawLoudspeaker(canvas, snapshot.getLoudspeaker(i), inverseScaling);
+				}
+	
+				// draw reference
+				drawReference(canvas, inverseScaling);
+				
+				// restore matrix
+				canvas.restore();
+			}
+			
+			// draw sound sources
+			for (int i = 0; i < numSoundSources; i++) {
+				drawSoundSource(canvas, snapshot.getSoundSource(i), inverseScaling, -referenceRotation);
+			}
+		}
+		
+		// restore previous transformation matrix
+		canvas.restore();
+	}
+	
+	private static void drawSoundSource(Canvas canvas, SoundSource soundSource, float inverseScaling, float counterRotation) {
+		EntityStore store = soundSource.store;
+		int handle = soundSource.handle;
+		int flags = store.flags[handle];
+		boolean selected = (flags & EntityStore.SELECTED) != 0;
+		boolean muted = (flags & EntityStore.MUTED) != 0;
+		Paint paint = soundSourcePaint;
+		
+		canvas.save();
+		canvas.translate(store.x[handle], store.y[handle]);
+
+		canvas.scale(inverseScaling, -inverseScaling); // re-invert y axis
+
+		// draw halo
+		if ((flags & EntityStore.POSITION_FIXED) != 0) {
+			paint.setARGB(102, 150, 150, 150);
+		} else {
+			paint.setARGB(102, 203, 133, 249);
+		}
+		if (selected) {
+			paint.setStyle(Paint.Style.FILL);
+		} else {
+			paint.setStyle(Paint.Style.STROKE);
+			paint.setStrokeWidth(4);
+		}
+		canvas.drawCircle(0.0f, 0.0f, SOURCE_HALO_RADIUS, paint);
+		
+		// draw plane if necessary
+		if (soundSource.sourceModel == SoundSource.SourceModel.PLANE){
+			canvas.save();
+			canvas.rotate(-store.azimuth[handle]);  // rotate in opposite direction because of inverted y axis
+			planeWavePicture.draw(canvas);
+			canvas.restore();
+		}
+		
+		// calculate source circle radius
+		if (sourceCircleRadiusCache[0] != inverseScaling) {
+			// log scaling, base 2
+			float scaling = (float) (Math.log(1.0f / inverseScaling) / LOG2 - 0.5) / 5.0f;
+			// limit value to range
+			if (scaling > 2.0) scaling = 2.0f;
+			if (scaling < 0.2) scaling = 0.2f;
+			// save to cache
+			sourceCircleRadiusCache[0] = inverseScaling;
+			sourceCircleRadiusCache[1] = SOURCE_RADIUS * scaling;
+		}
+		
+		// draw source circle
+		canvas.rotate(-counterRotation + 90.0f); // rotate in opposite direction because of inverted y axis
+		paint.setARGB(255, 255, 255, 255);
+		if (muted) {
+			paint.setStyle(Paint.Style.STROKE);
+		} else {
+			paint.setStyle(Paint.Style.FILL);
+		}
+		paint.setStrokeWidth(0);
+		canvas.drawCircle(0.0f, 0.0f, sourceCircleRadiusCache[1], paint);
+		
+		// draw text
+		if (selected) {
+			paint.setARGB(255, 255, 255, 255);
+		} else {
+			paint.setARGB(255, 127, 127, 127);
+		}
+		paint.setTextAlign(Paint.Align.CENTER);
+		canvas.drawText(soundSource.name, 0.0f, -sourceCircleRadiusCache[1] - 5.0f, paint);
+
+		// draw level meter content
+		if (!muted) {
+			if (store.level[handle] > 0.0f) {
+				paint.setARGB(200, 200, 0, 0); // over 0dB -> red
+			} else {
+				paint.setARGB(200, 0, 200, 0); // under 0dB -> green
+			}
+			paint.setStyle(Paint.Style.FILL);
+			canvas.drawRect(-10.0f, sourceCircleRadiusCache[1] + 6.0f, -10.0f + 20.0f * store.normalizedLevel[handle], sourceCircleRadiusCache[1] + 10.0f, paint);
+		}
+		
+		// draw level meter border
+		paint.setARGB(255, 127, 127, 127);
+		paint.setStyle(Paint.Style.STROKE);
+		canvas.drawRect(-10.0f, sourceCircleRadiusCache[1] + 6.0f, 10.0f, sourceCircleRadiusCache[1] + 10.0f, paint);
+		
+		canvas.restore();
+	}
+	
+	private static void drawLoudspeaker(Canvas canvas, Loudspeaker loudspeaker, float inverseScaling) {
+		canvas.save();
+		canvas.translate(loudspeaker.getX(), loudspeaker.getY());
+		canvas.rotate(loudspeaker.getAzimuth());
+		canvas.scale(inverseScaling, -inverseScaling);
+		loudspeakerPicture.draw(canvas);
+		canvas.restore();
+	}
+	
+	private static void drawReference(Canvas canvas, float inverseScaling) {
+		canvas.save();
+		canvas.scale(inverseScaling, -inverseScaling);
+		arrowPicture.draw(canvas);
+		canvas.restore();
+	}
+}
@@ -0,0 +1,243 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tlabs.ssr.g1.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import android.util.Log;
+
+/**
+ * Thread that checks which servers of a list are reachable. Non-blocking
+ * connects to all servers are started at the same time and completed with one
+ * {@link Selector}, so probing takes at most the timeout, however long the
+ * list is. The connections are closed right away. When done, the prober
+ * sends itself to the {@link Connector} as {@link Connector#PROBE_RESULT_MSG},
+ * so results of an aborted prober can be told apart, see {@link #getResults()}.
+ */
+public class ServerProber extends Thread {
+	private static final String TAG = "ServerProber";
+	public static final long DEFAULT_TIMEOUT = 2000;	// in ms
+	
+	/**
+	 * Probing result of one server.
+	 */
+	public static class Result {
+		public String server;		// as given, "host:port"
+		public long latency = -1;	// connect time in ms, -1 if not reachable
+		public String error = null;	// why the server is not reachable
+		private long startTime;		// in ns
+		
+		public boolean isReachable() {
+			return latency >= 0;
+		}
+		
+		@Override
+		public String toString() {
+			return server + (isReachable() ? " (" + latency + " ms)" : " (" + error + ")");
+		}
+	}
+	
+	// reachable servers first, fastest first, others in given order
+	private static final Comparator<Result> LATENCY_ORDER = new Comparator<Result>() {
+		@Override
+		public int compare(Result r1, Result r2) {
+			if (r1.isReachable() != r2.isReachable())
+				return r1.isReachable() ? -1 : 1;
+			if (!r1.isReachable())
+				return 0;
+			return r1.latency < r2.latency ? -1 : (r1.latency == r2.latency ? 0 : 1);
+		}
+	};
+	
+	private List<String> servers;
+	private long timeout;
+	private volatile boolean abortFlag = false;
+	private volatile Selector selector = null;
+	private volatile ArrayList<Result> results = null;
+	
+	/**
+	 * @param servers Servers to probe, as "host:port"
+	 * @param timeout Time after which unfinished connects count as not reachable, in ms
+	 */
+	public ServerProber(List<String> servers, long timeout) {
+		super(TAG);
+		this.servers = new ArrayList<String>(servers);
+		this.timeout = timeout;
+	}
+	
+	/**
+	 * Stops probing, no results are sent.
+	 */
+	public void abort() {
+		abortFlag = true;
+		Selector s = selector;
+		if (s != null)
+			s.wakeup();
+	}
+	
+	/**
+	 * @return Results ordered by connect latency, null until probing is finished
+	 */
+	public List<Result> getResults() {
+		return results;
+	}
+	
+	@Override
+	public void run() {
+		Log.d(TAG, "(" + this.getId() + ") HELLO");
+		
+		ArrayList<Result> results = new ArrayList<Result>(servers.size());
+		try {
+			selector = Selector.open();
+			try {
+				probe(results);
+			} finally {
+				// close unfinished connects
+				for (SelectionKey key : selector.keys()) {
+					closeQuietly((SocketChannel) key.channel());
+				}
+				selector.close();
+			}
+		} catch (IOException e) {
+			Log.d(TAG, "(" + this.getId() + ") could not probe: " + e.getMessage());
+			abortFlag = true;
+		}
+		
+		if (!abortFlag) {
+			Collections.sort(results, LATENCY_ORDER);	// stable, unreachable keep their order
+			this.results = results;
+			GlobalData.connectorMsgHandler.sendMessage(GlobalData.connectorMsgHandler.obtainMessage(Connector.PROBE_RESULT_MSG, this));
+			Log.d(TAG, "(" + this.getId() + ") " + results.toString());
+		}
+		Log.d(TAG, "(" + this.getId() + ") GOOD BYE");
+	}
+	
+	private void probe(ArrayList<Result> results) throws IOException {
+		// start connecting to all servers
+		long startTime = System.nanoTime();
+		int numPending = 0;
+		for (int i = 0; i < servers.size(); i++) {
+			Result result = new Result();
+			result.server = servers.get(i);
+			results.add(result);
+			
+			// parse address (host names are resolved here, one after the other)
+			InetSocketAddress address;
+			try {
+				URL url = new URL("http://" + result.server);
+				if (url.getPort() < 0) {
+					result.error = "no port";
+					continue;
+				}
+				address = new InetSocketAddress(url.getHost(), url.getPort());
+			} catch (MalformedURLException e) {
+				result.error = "invalid address";
+				continue;
+			}
+			if (address.isUnresolved()) {
+				result.error = "unknown host";
+				continue;
+			}
+			
+			SocketChannel channel = SocketChannel.open();
+			try {
+				channel.configureBlocking(false);
+				result.startTime = System.nanoTime();
+				if (channel.connect(address)) {
+					result.latency = (System.nanoTime() - result.startTime) / 1000000;
+					channel.close();
+				} else {
+					channel.register(selector, SelectionKey.OP_CONNECT, result);
+					numPending++;
+				}
+			} catch (IOException e) {
+				result.error = "unreachable";
+				closeQuietly(channel);
+			}
+		}
+		
+		// wait for connects to complete (resolving host names counts against the timeout)
+		long deadline = startTime + timeout * 1000000;
+		while (numPending > 0 && !abortFlag) {
+			long remaining = (deadline - System.nanoTime()) / 1000000;
+			if (remaining <= 0)
+				break;
+			selector.select(remaining);
+			
+			long now = System.nanoTime();
+			Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+			while (it.hasNext()) {
+				SelectionKey key = it.next();
+				it.remove();
+				SocketChannel channel = (SocketChannel) key.channel();
+				Result result = (Result) key.attachment();
+				try {
+					if (!channel.finishConnect())
+						continue;
+					result.latency = (now - result.startTime) / 1000000;
+				} catch (IOException e) {
+					result.error = "unreachable";
+				}
+				key.cancel();
+				closeQuietly(channel);
+				numPending--;
+			}
+		}
+		
+		// everything else timed out
+		for (int i = 0; i < results.size(); i++) {
+			Result result = results.get(i);
+			if (!result.isReachable() && result.error == null)
+				result.error = "timeout";
+		}
+	}
+	
+	private static void closeQuietly(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			Log.d(TAG, "exception on socket channel close(): " + e.getMessage());
+		}
+	}
+}
@@ -32,6 +32,8 @@
 
 package de.tlabs.ssr.g1.client;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.util.List;
 
 import android.app.Activity;
@@ -46,6 +48,7 @@ import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Message;
 import android.util.Log;
 import android.view.KeyEvent;
@@ -75,11 +78,18 @@ import de.tub.tlabs.android.utils.AppVersionInfo;
 public class SourcesMover extends Activity implements SensorEventListener {
 	private static final String TAG = "SourcesMover";
 	
+	// head tracking trace: up to 5 minutes at 50 Hz
+	private static final int HEAD_TRACKING_TRACE_CAPACITY = 15000;
+	private static final String HEAD_TRACKING_TRACE_FILE = "headtracking_trace.csv";
+	private static final String LATENCY_TRACE_FILE = "latency.csv";
+	
 	// message ids
 	public static final int XMLINPUT_ERR_MSG = 1;
 	public static final int SCENEPARSED_OK_MSG = 2;
 	public static final int OVERALLVOLUME_CHANGED_MSG = 3;
 	private static final int TIMED_INVALIDATE_MSG = 4;
+	public static final int CONNECTION_LOST_MSG = 5;
+	public static final int RECONNECTED_MSG = 6;
 	
 	private ImageButton zoomOutButton;
 	private ImageButton zoomInButton;
@@ -96,11 +106,9 @@ public class SourcesMover extends Activity implements SensorEventListener {
 	private LinearLayout buttonsLayout;
 	
 	private SensorManager sensorManager;
+	private HandlerThread sensorThread = null;
 	private boolean draw;
-	private float initialAzimuth;
-	private boolean initialAzimuthFlag;
-	private float lastAzimuthValues[] = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
-	private int azimuthValuesIndex = 0;
+	private HeadTracker headTracker = new HeadTracker();
 	
 	
 	// message handler to receive messages from other threads
@@ -142,6 +150,19 @@ public class SourcesMover extends Activity implements SensorEventListener {
 				Toast.makeText(SourcesMover.this, "An error occured during XML parsing (" + (String) msg.obj + "). Please try to connect again.", Toast.LENGTH_LONG).show(); 
 				finish(); // go back to connect screen
 				
+				break;
+			case CONNECTION_LOST_MSG: // connection lost, reconnecting in background
+				Log.d(TAG, "connection lost handler");
+				
+				// keep showing the last known scene
+				Toast.makeText(SourcesMover.this, "Connection lost (" + (String) msg.obj + "), reconnecting...", Toast.LENGTH_SHORT).show(); 
+				
+				break;
+			case RECONNECTED_MSG: // reconnected and received fresh scene description
+				Log.d(TAG, "reconnected handler");
+				
+				Toast.makeText(SourcesMover.this, "Reconnected.", Toast.LENGTH_SHORT).show(); 
+				
 				break;
 			case SCENEPARSED_OK_MSG: // the scene was successfully and completely parsed
 				Log.d(TAG, "scene parsed ok handler");
@@ -149,6 +170,7 @@ public class SourcesMover extends Activity implements SensorEventListener {
 				// scale view to fit entire scene
 				synchronized (GlobalData.audioScene) {
 					GlobalData.audioScene.recalculateReferenceTransformation();
+					GlobalData.audioScene.publishSnapshot();
 				}
 				GlobalData.sourcesMoverView.transformToFitScene();
 				
@@ -250,7 +272,7 @@ public class SourcesMover extends Activity implements SensorEventListener {
         playButton.setOnClickListener(new View.OnClickListener() {
         	@Override
         	public void onClick(View v) {
-        		GlobalData.sourcesMoverView.sendToServer("<request><state transport='start'/></request>\0");
+        		GlobalData.requestScheduler.queueTransportCommand("start");
 //        		playButton.setVisibility(View.GONE);
 //        		pauseButton.setVisibility(View.VISIBLE);
         	}
@@ -259,7 +281,7 @@ public class SourcesMover extends Activity implements SensorEventListener {
         pauseButton.setOnClickListener(new View.OnClickListener() {
         	@Override
         	public void onClick(View v) {
-        		GlobalData.sourcesMoverView.sendToServer("<request><state transport='stop'/></request>\0");
+        		GlobalData.requestScheduler.queueTransportCommand("stop");
 //        		playButton.setVisibility(View.VISIBLE);
 //        		pauseButton.setVisibility(View.GONE);
         	}
@@ -268,7 +290,7 @@ public class SourcesMover extends Activity implements SensorEventListener {
         rewindButton.setOnClickListener(new View.OnClickListener() {
         	@Override
         	public void onClick(View v) {
-        		GlobalData.sourcesMoverView.sendToServer("<request><state transport='rewind'/></request>\0");
+        		GlobalData.requestScheduler.queueTransportCommand("rewind");
         	}
         });
         
@@ -286,9 +308,7 @@ public class SourcesMover extends Activity implements SensorEventListener {
 				// send volume change to server if change was user-initiated
 				if (fromUser) {
 					float newVolume = seekBarToDb(progress);
-					// generate server request string
-					String strMsg = "<request><scene volume='" + newVolume + "'/></request>\0";
-					GlobalData.sourcesMoverView.sendToServer(strMsg);
+					GlobalData.requestScheduler.setSceneVolume(newVolume);
 					//volumeSeekBar.setProgress(volumeSeekBar.lastProgress);
 				} else {
 					//volumeSeekBar.lastProgress = progress;
@@ -312,66 +332,68 @@ public class SourcesMover extends Activity implements SensorEventListener {
         // set up stuff for drawing entities
         Paint paint = new Paint();
         paint.setAntiAlias(true);
-        SoundSource.setPaint(paint);
+        SceneRenderer.soundSourcePaint = paint;
 
         paint = new Paint(paint);
         paint.setAntiAlias(true);
-        Reference.setPaint(paint);
+        SceneRenderer.referencePaint = paint;
 
         paint = new Paint(paint);
         paint.setAntiAlias(true);
-        Loudspeaker.setPaint(paint);
-
-        paint = new Paint(paint);
-        paint.setAntiAlias(true);
-        paint.setARGB(255, 0, 0, 0);
-        paint.setStrokeWidth(3);
-        AudioScene.setPaint(paint);
+        SceneRenderer.loudspeakerPaint = paint;
 
         Picture picture = new Picture();
         Canvas canvas = picture.beginRecording(0, 0);
-        SoundSource.paint.setARGB(255, 150, 150, 150);
-        canvas.drawLine(0.0f, -30.0f, 0.0f,  30.0f, SoundSource.paint);
-        canvas.drawLine(0.0f, -35.0f, 0.0f, -45.0f, SoundSource.paint);
-        canvas.drawLine(0.0f,  35.0f, 0.0f,  45.0f, SoundSource.paint);
-        canvas.drawLine(0.0f, -49.0f, 0.0f, -54.0f, SoundSource.paint);
-        canvas.drawLine(0.0f,  49.0f, 0.0f,  54.0f, SoundSource.paint);
-        canvas.drawPoint(0.0f,  58.0f, SoundSource.paint);
-        canvas.drawPoint(0.0f,  62.0f, SoundSource.paint);
-        canvas.drawPoint(0.0f, -58.0f, SoundSource.paint);
-        canvas.drawPoint(0.0f, -62.0f, SoundSource.paint);
-        canvas.drawLine(0.0f, -30.0f, 8.0f, -30.0f, SoundSource.paint);
-        canvas.drawLine(8.0f, -30.0f, 4.0f, -27.5f, SoundSource.paint);
-        canvas.drawLine(8.0f, -30.0f, 4.0f, -32.5f, SoundSource.paint);
-        canvas.drawLine(0.0f, 30.0f, 8.0f, 30.0f, SoundSource.paint);
-        canvas.drawLine(8.0f, 30.0f, 4.0f, 27.5f, SoundSource.paint);
-        canvas.drawLine(8.0f, 30.0f, 4.0f, 32.5f, SoundSource.paint);
+        SceneRenderer.soundSourcePaint.setARGB(255, 150, 150, 150);
+        canvas.drawLine(0.0f, -30.0f, 0.0f,  30.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(0.0f, -35.0f, 0.0f, -45.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(0.0f,  35.0f, 0.0f,  45.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(0.0f, -49.0f, 0.0f, -54.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(0.0f,  49.0f, 0.0f,  54.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawPoint(0.0f,  58.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawPoint(0.0f,  62.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawPoint(0.0f, -58.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawPoint(0.0f, -62.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(0.0f, -30.0f, 8.0f, -30.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(8.0f, -30.0f, 4.0f, -27.5f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(8.0f, -30.0f, 4.0f, -32.5f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(0.0f, 30.0f, 8.0f, 30.0f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(8.0f, 30.0f, 4.0f, 27.5f, SceneRenderer.soundSourcePaint);
+        canvas.drawLine(8.0f, 30.0f, 4.0f, 32.5f, SceneRenderer.soundSourcePaint);
         picture.endRecording();
-        SoundSource.planeWavePicture = picture;
+        SceneRenderer.planeWavePicture = picture;
 
         picture = new Picture();
         canvas = picture.beginRecording(0, 0);
-        Reference.paint.setColor(getResources().getColor(R.drawable.col_listener));
-        Reference.paint.setStrokeWidth(3.0f);
-        canvas.drawLine(-12.0f, 0.0f, 13.0f,  0.0f, Reference.paint);
-        Reference.paint.setStrokeWidth(2.0f);
-        canvas.drawLine( 15.0f, 0.0f, -1.0f, -10.0f, Reference.paint);
-        canvas.drawLine( 15.0f, 0.0f, -1.0f,  10.0f, Reference.paint);
+        SceneRenderer.referencePaint.setColor(getResources().getColor(R.drawable.col_listener));
+        SceneRenderer.referencePaint.setStrokeWidth(3.0f);
+        canvas.drawLine(-12.0f, 0.0f, 13.0f,  0.0f, SceneRenderer.referencePaint);
+        SceneRenderer.referencePaint.setStrokeWidth(2.0f);
+        canvas.drawLine( 15.0f, 0.0f, -1.0f, -10.0f, SceneRenderer.referencePaint);
+        canvas.drawLine( 15.0f, 0.0f, -1.0f,  10.0f, SceneRenderer.referencePaint);
         picture.endRecording();
-        Reference.arrowPicture = picture;
+        SceneRenderer.arrowPicture = picture;
 
         picture = new Picture();
         canvas = picture.beginRecording(0, 0);
-        Loudspeaker.paint.setColor(getResources().getColor(R.drawable.col_loudspeaker));
-        canvas.drawRect(-4.0f, -5.0f, 4.0f, 5.0f, Loudspeaker.paint);
-        canvas.drawLine( 4.0f, 0.0f, 10.0f, 0.0f, Loudspeaker.paint);
-        canvas.drawLine(10.0f, 0.0f,  6.0f, -2.5f, Loudspeaker.paint);
-        canvas.drawLine(10.0f, 0.0f,  6.0f,  2.5f, Loudspeaker.paint);
-        Loudspeaker.picture = picture;
+        SceneRenderer.loudspeakerPaint.setColor(getResources().getColor(R.drawable.col_loudspeaker));
+        canvas.drawRect(-4.0f, -5.0f, 4.0f, 5.0f, SceneRenderer.loudspeakerPaint);
+        canvas.drawLine( 4.0f, 0.0f, 10.0f, 0.0f, SceneRenderer.loudspeakerPaint);
+        canvas.drawLine(10.0f, 0.0f,  6.0f, -2.5f, SceneRenderer.loudspeakerPaint);
+        canvas.drawLine(10.0f, 0.0f,  6.0f,  2.5f, SceneRenderer.loudspeakerPaint);
+        SceneRenderer.loudspeakerPicture = picture;
 
-        // start xml input thread
-        GlobalData.xmlInputThread = new XmlInputThread();
-        GlobalData.xmlInputThread.start();
+        // start threads merging and writing requests to the server
+        GlobalData.latencyTracer = GlobalData.latencyTracingEnabled ? new LatencyTracer() : null;
+        GlobalData.audioScene.setLatencyTracer(GlobalData.latencyTracer);
+        GlobalData.outboundWriter = new OutboundWriter(GlobalData.connectionManager.getSocketChannel());
+        GlobalData.outboundWriter.start();
+        GlobalData.requestScheduler = new RequestScheduler(GlobalData.outboundWriter);
+        GlobalData.requestScheduler.setLatencyTracer(GlobalData.latencyTracer);
+        GlobalData.requestScheduler.start();
+
+        // start xml input thread, which reconnects if the connection is lost
+        GlobalData.connectionManager.start();
 	}
     
 	@Override
@@ -407,6 +429,21 @@ public class SourcesMover extends Activity implements SensorEventListener {
     	
     	// stop sensing orientation
    		sensorManager.unregisterListener(this);
+   		if (sensorThread != null) {
+   			sensorThread.quit();
+   			sensorThread = null;
+   		}
+   		
+   		// log statistics
+   		if (GlobalData.orientationTrackingEnabled) {
+   			Log.d(TAG, "head tracking: " + headTracker.toString());
+   			evaluateHeadTrackingTrace();
+   			Log.d(TAG, "frames with sensor events on " + (GlobalData.sensorThreadEnabled ? "sensor" : "ui")
+   					+ " thread: " + GlobalData.sourcesMoverView.getFrameStatistics());
+   		} else {
+   			Log.d(TAG, "frames without head tracking: " + GlobalData.sourcesMoverView.getFrameStatistics());
+   		}
+   		writeLatencyTrace();
     	
     	Log.d(TAG, "onPause");
     }
@@ -423,13 +460,25 @@ public class SourcesMover extends Activity implements SensorEventListener {
     	
 		// start periodical invalidation every 40 ms (-> repainting)
     	draw = true;
+    	GlobalData.sourcesMoverView.resetFrameStatistics();
     	msgHandler.sendEmptyMessageDelayed(TIMED_INVALIDATE_MSG, 40); // 25 fps
 
     	// start sensing orientation
     	if (GlobalData.orientationTrackingEnabled) {
     		List<Sensor> sensors = sensorManager.getSensorList(Sensor.TYPE_ORIENTATION);
-    		sensorManager.registerListener(this, sensors.get(0), SensorManager.SENSOR_DELAY_GAME);
-    		initialAzimuthFlag = true;	// "calibrate" to initial orientation
+    		headTracker.calibrate();	// "calibrate" to initial orientation
+    		headTracker.setPredictionLatency(GlobalData.headTrackingPredictionLatency);
+    		if (GlobalData.headTrackingTraceEnabled)
+    			headTracker.startTrace(HEAD_TRACKING_TRACE_CAPACITY);
+    		if (GlobalData.sensorThreadEnabled) {
+    			// deliver sensor events to their own looper thread, away from drawing and touch handling
+    			sensorThread = new HandlerThread("SensorThread");
+    			sensorThread.start();
+    			sensorManager.registerListener(this, sensors.get(0), SensorManager.SENSOR_DELAY_GAME, 
+    					new Handler(sensorThread.getLooper()));
+    		} else {
+    			sensorManager.registerListener(this, sensors.get(0), SensorManager.SENSOR_DELAY_GAME);
+    		}
     	}
     	Log.d(TAG, "onResume");
     }
@@ -481,6 +530,56 @@ public class SourcesMover extends Activity implements SensorEventListener {
 		return super.onKeyDown(keyCode, event);
 	}
 
+	/**
+	 * Saves the recorded head tracking trace (if any) and logs how well
+	 * orientation prediction would have done on it.
+	 */
+	private void evaluateHeadTrackingTrace() {
+		SensorTrace trace = headTracker.getTrace();
+		if (trace == null || trace.getLength() == 0)
+			return;
+		
+		for (int i = 0; i < PredictionEvaluator.DEFAULT_LATENCIES.length; i++) {
+			Log.d(TAG, "prediction replay: " + PredictionEvaluator.evaluate(trace, headTracker.getFilterStrength(), 
+					PredictionEvaluator.DEFAULT_LATENCIES[i], HeadTracker.DEFAULT_VELOCITY_SMOOTHING).toString());
+		}
+		
+		try {
+			OutputStreamWriter writer = new OutputStreamWriter(openFileOutput(HEAD_TRACKING_TRACE_FILE, MODE_PRIVATE));
+			try {
+				trace.write(writer);
+			} finally {
+				writer.close();
+			}
+			Log.d(TAG, "wrote " + trace.getLength() + " head tracking samples to " + HEAD_TRACKING_TRACE_FILE);
+		} catch (IOException e) {
+			Log.d(TAG, "could not write head tracking trace: " + e.getMessage());
+		}
+		trace.clear();
+	}
+	
+	/**
+	 * Logs the measured latencies (if any) and saves their histograms.
+	 */
+	private void writeLatencyTrace() {
+		LatencyTracer latencyTracer = GlobalData.latencyTracer;
+		if (latencyTracer == null)
+			return;
+		
+		Log.d(TAG, "latency (ms):\n" + latencyTracer.toString());
+		try {
+			OutputStreamWriter writer = new OutputStreamWriter(openFileOutput(LATENCY_TRACE_FILE, MODE_PRIVATE));
+			try {
+				latencyTracer.write(writer);
+			} finally {
+				writer.close();
+			}
+			Log.d(TAG, "wrote latency histograms to " + LATENCY_TRACE_FILE);
+		} catch (IOException e) {
+			Log.d(TAG, "could not write latency histograms: " + e.getMessage());
+		}
+	}
+	
 	public float seekBarToDb(int progress) {
 		return (float) progress / (float) volumeSeekBar.getMax() * 72.0f - 60.0f;
 	}
@@ -494,38 +593,21 @@ public class SourcesMover extends Activity implements SensorEventListener {
 		// nothing
 	}
 
+	/**
+	 * Called on the sensor thread (or ui thread, see {@link GlobalData#sensorThreadEnabled}),
+	 * must not touch any views.
+	 */
 	@Override
 	public void onSensorChanged(SensorEvent event) {
 		if (event.sensor.getType() == Sensor.TYPE_ORIENTATION) {
-			if (initialAzimuthFlag) { // calibrate
-				initialAzimuth = -(event.values[0] + 90.0f);
-				for (int i = 1; i < lastAzimuthValues.length; i++) {
-					lastAzimuthValues[i] = initialAzimuth;
-				}
-				initialAzimuthFlag = false;
-			} else {
-				lastAzimuthValues[azimuthValuesIndex++]= -event.values[0];	
-				if (azimuthValuesIndex >= lastAzimuthValues.length)
-					azimuthValuesIndex = 0;
-				float azimuth = 0;
-				for (int i = 1; i < lastAzimuthValues.length; i++) {
-					float diff;
-					diff = lastAzimuthValues[i] - lastAzimuthValues[0];
-					
-					if (diff > 180) 
-						azimuth += diff - 360.0f;
-					else if (diff < -180)
-						azimuth += diff + 360.0f;
-					else
-						azimuth += diff;
-				}
-				azimuth = lastAzimuthValues[0] + azimuth / lastAzimuthValues.length - initialAzimuth;
-				
-				// generate server request string
+			// filtered orientation outside dead-band and send rate not exceeded?
+			if (headTracker.update(event.values[0], event.timestamp)) {
 				// TODO temporary
 //				GlobalData.sourcesMoverView.setCurrentCenterRotation(-azimuth);
-				String strMsg = "<request><reference><orientation azimuth='" + azimuth + "'/></reference></request>\0";
-				GlobalData.sourcesMoverView.sendToServer(strMsg);
+				float azimuth = headTracker.getAzimuth();
+				if (GlobalData.latencyTracer != null)
+					GlobalData.latencyTracer.traceInput(LatencyTracer.REFERENCE_AZIMUTH, null, azimuth, 0.0f, System.nanoTime());
+				GlobalData.requestScheduler.setReferenceOrientation(azimuth);
 			}
 		}
 	}
@@ -0,0 +1,172 @@
+/******************************************************************************
+ * Copyright (c) 2006-2012 Quality & Usability Lab                            *
+ *                         Deutsche Telekom Laboratories, TU Berlin           *
+ *                         Ernst-Reuter-Platz 7, 10587 Berlin, Germany        *
+ *                                                                            *
+ * This file is part of the SoundScape Renderer (SSR).                        *
+ *                                                                            *
+ * The SSR is free software:  you can redistribute it and/or modify it  under *
+ * the terms of the  GNU  General  Public  License  as published by the  Free *
+ * Software Foundation, either version 3 of the License,  or (at your option) *
+ * any later version.                                                         *
+ *                                                                            *
+ * The SSR is distributed in the hope that it will be useful, but WITHOUT ANY *
+ * WARRANTY;  without even the implied warranty of MERCHANTABILITY or FITNESS *
+ * FOR A PARTICULAR PURPOSE.                                                  *
+ * See the GNU General Public License for more details.                       *
+ *                                                                            *
+ * You should  have received a copy  of the GNU General Public License  along *
+ * with this program.  If not, see <http://www.gnu.org/licenses/>.            *
+ *                                                                            *
+ * The SSR is a tool  for  real-time  spatial audio reproduction  providing a *
+ * variety of rendering algorithms.                                           *
+ *                                                                            *
+ * http://tu-berlin.de/?id=ssr                  SoundScapeRenderer@telekom.de *
+ ******************************************************************************/
+
+/* 
+ * $LastChangedDate$
+ * $LastChangedRevision$
+ * $LastChangedBy$
+ */
+
+package de.tub.tlabs.android.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Bounded lock-free queue of reusable byte buffers, for any number of
+ * producer and consumer threads (after D. Vyukov's bounded MPMC queue).
+ * Slots are filled and read in place: a producer claims a slot, writes into
+ * its buffer and publishes it, a consumer polls a slot, reads its buffer and
+ * releases it. Nothing is allocated after construction, unless a producer
+ * asks for a buffer larger than the slot size.
+ */
+public class ByteBufferQueue {
+	private final int mask;
+	private final ByteBuffer[] buffers;
+	private final int[] positions;	// position a slot was claimed/polled at, owned by the slot's current holder
+	private final AtomicIntegerArray sequences;
+	private final AtomicInteger enqueuePos = new AtomicInteger(0);
+	private final AtomicInteger dequeuePos = new AtomicInteger(0);
+	
+	/**
+	 * @param capacity Number of slots, rounded up to the next power of two
+	 * @param slotSize Initial size of each slot's buffer in bytes
+	 */
+	public ByteBufferQueue(int capacity, int slotSize) {
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+		mask = size - 1;
+		buffers = new ByteBuffer[size];
+		positions = new int[size];
+		sequences = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			buffers[i] = ByteBuffer.allocate(slotSize);
+			sequences.set(i, i);
+		}
+	}
+	
+	/**
+	 * Claims a free slot. Must be followed by {@link #publish(int)}.
+	 * 
+	 * @return Slot index, or -1 if the queue is full
+	 */
+	public int claim() {
+		int pos = enqueuePos.get();
+		while (true) {
+			int slot = pos & mask;
+			int dif = sequences.get(slot) - pos;
+			if (dif == 0) {
+				if (enqueuePos.compareAndSet(pos, pos + 1)) {
+					positions[slot] = pos;
+					buffers[slot].clear();
+					return slot;
+				}
+				pos = enqueuePos.get();
+			} else if (dif < 0) {
+				return -1;	// full
+			} else {
+				pos = enqueuePos.get();	// another producer was faster
+			}
+		}
+	}
+	
+	/**
+	 * Makes a claimed slot visible to consumers. The buffer should be flipped.
+	 */
+	public void publish(int slot) {
+		sequences.set(slot, positions[slot] + 1);
+	}
+	
+	/**
+	 * Takes the oldest published slot. Must be followed by {@link #release(int)}.
+	 * 
+	 * @return Slot index, or -1 if the queue is empty
+	 */
+	public int poll() {
+		int pos = dequeuePos.get();
+		while (true) {
+			int slot = pos & mask;
+			int dif = sequences.get(slot) - (pos + 1);
+			if (dif == 0) {
+				if (dequeuePos.compareAndSet(pos, pos + 1)) {
+					positions[slot] = pos;
+					return slot;
+				}
+				pos = dequeuePos.get();
+			} else if (dif < 0) {
+				return -1;	// empty
+			} else {
+				pos = dequeuePos.get();	// another consumer was faster
+			}
+		}
+	}
+	
+	/**
+	 * Hands a polled slot back to the producers.
+	 */
+	public void release(int slot) {
+		sequences.set(slot, positions[slot] + mask + 1);
+	}
+	
+	/**
+	 * Returns the buffer of a slot held by the caller.
+	 */
+	public ByteBuffer getBuffer(int slot) {
+		return buffers[slot];
+	}
+	
+	/**
+	 * Makes sure the buffer of a claimed slot can hold at least the given
+	 * number of bytes. A larger buffer replaces the old one for good, content
+	 * already written is kept.
+	 * 
+	 * @return The slot's (possibly new) buffer
+	 */
+	public ByteBuffer ensureCapacity(int slot, int capacity) {
+		ByteBuffer buffer = buffers[slot];
+		if (buffer.capacity() < capacity) {
+			ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffers[slot] = buffer = newBuffer;
+		}
+		return buffer;
+	}
+	
+	/**
+	 * @return Number of claimed or published slots, only a snapshot if other threads are active
+	 */
+	public int size() {
+		int size = enqueuePos.get() - dequeuePos.get();
+		return size < 0 ? 0 : Math.min(size, mask + 1);
+	}
+	
+	public int getCapacity() {
+		return mask + 1;
+	}
+}